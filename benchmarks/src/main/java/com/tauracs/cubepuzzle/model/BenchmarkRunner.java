@@ -0,0 +1,26 @@
+package com.tauracs.cubepuzzle.model;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. It accepts the JMH command line options and 
+ * always adds the GC profiler, so the allocation rate is reported next to the throughput.
+ *
+ */
+public final class BenchmarkRunner {
+	
+	private BenchmarkRunner() {
+	}
+	
+	public static void main(final String[] args_) throws RunnerException, CommandLineOptionException {
+		new Runner(new OptionsBuilder()
+				.parent(new CommandLineOptions(args_))
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,118 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The puzzle piece sets of the benchmarks
+ *
+ */
+final class Fixtures {
+	
+	final static char[][] BLUE_1 = {
+			{' ',' ','*',' ',' '},
+			{' ','*','*','*',' '},
+			{'*','*','*','*','*'},
+			{' ','*','*','*',' '},
+			{' ',' ','*',' ',' '}
+	};
+	
+	final static char[][] BLUE_2 = {
+			{'*',' ','*',' ','*'},
+			{'*','*','*','*','*'},
+			{' ','*','*','*',' '},
+			{'*','*','*','*','*'},
+			{'*',' ','*',' ','*'}
+	};
+	
+	final static char[][] BLUE_3 = {
+			{' ',' ','*',' ',' '},
+			{' ','*','*','*','*'},
+			{'*','*','*','*',' '},
+			{' ','*','*','*','*'},
+			{' ',' ','*',' ',' '}
+	};
+	
+	final static char[][] BLUE_4 = {
+			{' ','*',' ','*',' '},
+			{'*','*','*','*',' '},
+			{' ','*','*','*','*'},
+			{'*','*','*','*',' '},
+			{'*','*',' ','*',' '}
+	};
+	
+	final static char[][] BLUE_5 = {
+			{' ','*',' ','*',' '},
+			{'*','*','*','*','*'},
+			{' ','*','*','*',' '},
+			{'*','*','*','*','*'},
+			{'*',' ','*',' ',' '}
+	};
+	
+	final static char[][] BLUE_6 = {
+			{' ','*',' ','*',' '},
+			{' ','*','*','*','*'},
+			{'*','*','*','*',' '},
+			{' ','*','*','*','*'},
+			{'*','*',' ','*','*'}
+	};
+	
+	final static char[][] COMPLETE = {
+			{'*','*','*','*','*'},
+			{'*','*','*','*','*'},
+			{'*','*','*','*','*'},
+			{'*','*','*','*','*'},
+			{'*','*','*','*','*'}
+	};
+	
+	private Fixtures() {
+	}
+	
+	/**
+	 * @return The pieces of the blue cube of the README
+	 */
+	static List<PuzzlePiece> createBluePieces() {
+		List<PuzzlePiece> result = new ArrayList<PuzzlePiece>();
+		for (char[][] layout : new char[][][]{BLUE_1, BLUE_2, BLUE_3, BLUE_4, BLUE_5, BLUE_6}) {
+			result.add(new PuzzlePiece(layout));
+		}
+		return result;
+	}
+	
+	/**
+	 * @return The pieces of the blue cube in reverse order - the first piece is the symmetric one
+	 */
+	static List<PuzzlePiece> createReversedBluePieces() {
+		List<PuzzlePiece> result = createBluePieces();
+		Collections.reverse(result);
+		return result;
+	}
+	
+	/**
+	 * @return Six complete pieces - the search has to visit every placement of the first pieces to fail
+	 */
+	static List<PuzzlePiece> createCompletePieces() {
+		List<PuzzlePiece> result = new ArrayList<PuzzlePiece>();
+		for (int i=0; i<6; i++) {
+			result.add(new PuzzlePiece(COMPLETE));
+		}
+		return result;
+	}
+	
+	/**
+	 * @return The piece set of the passed name: blue, reversed or complete
+	 */
+	static List<PuzzlePiece> createPieces(final String name_) {
+		if ("blue".equals(name_)) {
+			return createBluePieces();
+		}
+		if ("reversed".equals(name_)) {
+			return createReversedBluePieces();
+		}
+		if ("complete".equals(name_)) {
+			return createCompletePieces();
+		}
+		throw new IllegalArgumentException(String.format("Unknown piece set: %s", name_));
+	}
+}
@@ -0,0 +1,131 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tauracs.cubepuzzle.challenge.PieceBorder;
+import com.tauracs.cubepuzzle.model.enums.CoordAxis;
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Benchmarks of the Cube, Shape and PuzzlePiece operations used by the resolvers
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmark {
+	
+	/**
+	 * Index of the blue piece used by the benchmarks
+	 */
+	@Param({"0", "1"})
+	public int pieceIdx;
+	
+	private Cube _cube;
+	
+	private PuzzlePiece _piece;
+	
+	private PlacementTable _placements;
+	
+	private int _placement;
+	
+	/**
+	 * Number of the border words validated by one call
+	 */
+	final static private int BORDER_BATCH_SIZE = 4096;
+	
+	private int[] _borders;
+	
+	private int[] _validBorders;
+	
+	@Setup
+	public void setUp() {
+		_cube = new Cube();
+		_piece = Fixtures.createBluePieces().get(pieceIdx);
+		_placements = _piece.getPlacements();
+		_placement = 0;
+		
+		Random random = new Random(pieceIdx);
+		_borders = new int[BORDER_BATCH_SIZE];
+		_validBorders = new int[BORDER_BATCH_SIZE];
+		for (int i=0; i<_borders.length; i++) {
+			_borders[i] = random.nextInt(PieceBorder.WORD_COUNT);
+		}
+	}
+	
+	/**
+	 * Extracting a PuzzlePiece from a copy of the full cube
+	 */
+	@Benchmark
+	public Boolean extractPiece() {
+		return ((Cube)_cube.clone()).extract(_piece);
+	}
+	
+	/**
+	 * Extracting and restoring a precomputed placement - the operations of the search
+	 */
+	@Benchmark
+	public boolean extractPlacement() {
+		_placement = (_placement + 1) % _placements.size();
+		boolean result = _cube.extract(_placements, _placement);
+		if (result) {
+			_cube.restore(_placements, _placement);
+		}
+		return result;
+	}
+	
+	/**
+	 * Walking through the states of the piece
+	 */
+	@Benchmark
+	public boolean nextState() {
+		if (!_piece.nextState()) {
+			_piece.applyPlacement(0);
+			return false;
+		}
+		return true;
+	}
+	
+	@Benchmark
+	public PuzzlePiece flip() {
+		_piece.flip();
+		return _piece;
+	}
+	
+	@Benchmark
+	public Shape rotateAroundAxis() {
+		_piece.rotateAroundAxis(CoordAxis.Z, 1);
+		return _piece;
+	}
+	
+	@Benchmark
+	public Object getBricksNormalized() {
+		return _piece.getBricksNormalized(_piece.getSide() != null ? _piece.getSide() : Side.FRONT);
+	}
+	
+	/**
+	 * Validating a batch of random border words - see PieceBorder.selectValid()
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BORDER_BATCH_SIZE)
+	public int selectValidBorders() {
+		return PieceBorder.selectValid(_borders, 0, _borders.length, _validBorders);
+	}
+}
@@ -0,0 +1,70 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End to end benchmarks of the PuzzleResolver
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResolverBenchmark {
+	
+	/**
+	 * The piece set: blue, reversed (blue in reverse order) or complete (no solution)
+	 */
+	@Param({"blue", "reversed", "complete"})
+	public String pieces;
+	
+	private List<PuzzlePiece> _pieces;
+	
+	private PuzzleResolver _resolver;
+	
+	@Setup
+	public void setUp() {
+		_pieces = Fixtures.createPieces(pieces);
+		_resolver = new PuzzleResolver();
+		_resolver.resolve(_pieces);
+	}
+	
+	/**
+	 * Resolving with fresh pieces - includes building the placement tables
+	 */
+	@Benchmark
+	public boolean resolve() {
+		return _resolver.resolve(Fixtures.createPieces(pieces));
+	}
+	
+	/**
+	 * Resolving with pieces whose placement tables are already built
+	 */
+	@Benchmark
+	public boolean resolvePrepared() {
+		return _resolver.resolve(_pieces);
+	}
+	
+	/**
+	 * Rendering the last solution
+	 */
+	@Benchmark
+	public String to360TString() {
+		return _resolver.to360TString();
+	}
+}
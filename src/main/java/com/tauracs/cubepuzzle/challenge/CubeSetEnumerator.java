@@ -0,0 +1,651 @@
+package com.tauracs.cubepuzzle.challenge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.tauracs.cubepuzzle.model.DancingLinksResolver;
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+
+/**
+ * Enumerator of the cube sets of the additional challenge 2:
+ * sets of 6 pieces that can be plugged together in a plane in the order
+ * 
+ *  1 2 3
+ *  4 5 6
+ *  
+ * and can be folded into a cube. Two sets are the same if their pieces can be paired
+ * by rotating or mirroring in 2 dimensions, so a set is identified by the sorted
+ * canonical border words of its pieces (see PieceBorder).
+ * 
+ * The plane layouts are built piece by piece, the candidates of a position are looked up
+ * by the inner codes of the left and the top side. Layouts that are rotated / mirrored images
+ * of each other are visited once: the top left piece has the smallest canonical word of the corners.
+ * 
+ * The partial layouts are dropped as soon as they can not be folded into a cube any more:
+ *  - the pieces of a cube cover its 8 corners and the 36 inner cells of its edges exactly, so the running
+ *    totals of the corner and the inner border cells have to be able to reach these numbers
+ *  - the two sides on an edge of the cube have complementary codes (read in either direction, as a piece
+ *    can be mirrored). The neighbours in the plane fit already, so the codes of the outer sides of the layout
+ *    have to pair up: the imbalance can not exceed the number of the outer sides still to be placed.
+ * The complete layouts are checked against the cube with a DancingLinksResolver per worker thread.
+ * Only the cube sets are stored, the sets that failed the check are remembered by a small cache per worker,
+ * so the memory follows the result and not the number of the layouts.
+ * 
+ * The layouts starting with different top left pieces are processed as separate tasks of a ForkJoinPool,
+ * the progress is available via the counters during the enumeration (updated as the tasks finish).
+ *
+ */
+public final class CubeSetEnumerator {
+	
+	final static private int COLUMNS = 3;
+	final static private int POSITIONS = 6;
+	
+	/**
+	 * Number of the junction points of the 2 * 3 layout: the corners of the pieces
+	 */
+	final static private int JUNCTION_COLUMNS = COLUMNS + 1;
+	final static private int JUNCTIONS = 3 * JUNCTION_COLUMNS;
+	
+	/**
+	 * Number of the border cells of the pieces of a cube: the 98 surface cells without the 6 cores of 3 * 3 cells
+	 */
+	final static private int CUBE_BORDER_CELLS = 5 * 5 * 5 - 3 * 3 * 3 - POSITIONS * 3 * 3;
+	
+	/**
+	 * Number of the corners of a cube and of the inner cells of its edges
+	 */
+	final static private int CUBE_CORNERS = 8;
+	final static private int CUBE_INNER_CELLS = CUBE_BORDER_CELLS - CUBE_CORNERS;
+	
+	/**
+	 * Number of the 3 bit inner codes of a side
+	 */
+	final static private int CODES = 8;
+	
+	/**
+	 * Class of the inner codes up to reading them backwards: axis and sign of the classes
+	 * 000 / 111, 010 / 101 and 001 100 / 011 110 - complementary codes have opposite signs on the same axis
+	 */
+	final static private int[] CODE_AXIS = {0, 2, 1, 2, 2, 1, 2, 0};
+	final static private int[] CODE_SIGN = {1, 1, 1, -1, 1, -1, -1, -1};
+	final static private int AXES = 3;
+	
+	/**
+	 * Sides of the positions on the border of the layout and the number of such sides after the position
+	 */
+	final static private int[][] OUTER_SIDES = {{0, 3}, {0}, {0, 1}, {2, 3}, {2}, {1, 2}};
+	final static private int[] OUTER_SIDES_AFTER = {8, 7, 5, 3, 2, 0};
+	
+	/**
+	 * The junction points of the top left, top right, bottom right and bottom left corner of the positions
+	 */
+	final static private int[][] JUNCTION_POINTS = new int[POSITIONS][];
+	
+	static {
+		for (int position=0; position<POSITIONS; position++) {
+			int topLeft = (position / COLUMNS) * JUNCTION_COLUMNS + position % COLUMNS;
+			JUNCTION_POINTS[position] = new int[]{topLeft, topLeft + 1, topLeft + JUNCTION_COLUMNS + 1, topLeft + JUNCTION_COLUMNS};
+		}
+	}
+	
+	/**
+	 * Number of the rejected sets remembered by a worker
+	 */
+	final static private int REJECTED_CAPACITY = 1 << 12;
+	
+	/**
+	 * Border words of the pool in every distinct orientation
+	 */
+	private final int[] _words;
+	
+	/**
+	 * Canonical border word of the oriented words
+	 */
+	private final int[] _canonical;
+	
+	/**
+	 * Number of the corner and of the inner border cells of the oriented words, their range in the pool
+	 */
+	private final int[] _corners;
+	private final int[] _innerCells;
+	private final int _minCorners;
+	private final int _maxCorners;
+	private final int _minInnerCells;
+	private final int _maxInnerCells;
+	
+	/**
+	 * Inner codes of the oriented words: [word * 4 + side]
+	 */
+	private final int[] _codes;
+	
+	/**
+	 * Index of the oriented words by the code of the left side, the top side and both sides
+	 */
+	private final int[][] _byLeft = new int[CODES][];
+	private final int[][] _byTop = new int[CODES][];
+	private final int[][] _byLeftAndTop = new int[CODES * CODES][];
+	
+	/**
+	 * The pieces of the canonical border words - the placement tables are computed once
+	 */
+	private final ConcurrentHashMap<Integer, PuzzlePiece> _pieces = new ConcurrentHashMap<Integer, PuzzlePiece>();
+	
+	/**
+	 * The cube sets found by the enumeration
+	 */
+	private final Set<SetKey> _sets = ConcurrentHashMap.newKeySet();
+	
+	/**
+	 * The cube checks of the worker threads
+	 */
+	private final ThreadLocal<CubeCheck> _cubeChecks = new ThreadLocal<CubeCheck>() {
+		@Override
+		protected CubeCheck initialValue() {
+			return new CubeCheck();
+		}
+	};
+	
+	private final ForkJoinPool _forkJoinPool;
+	
+	/**
+	 * Progress counters
+	 */
+	private final AtomicLong _layoutCount = new AtomicLong();
+	private final AtomicLong _checkCount = new AtomicLong();
+	private final AtomicLong _cubeSetCount = new AtomicLong();
+	private final AtomicLong _completedTaskCount = new AtomicLong();
+	
+	/**
+	 * Creates an enumerator running on the common ForkJoinPool
+	 * @param pool_ - border words of the pieces the sets are made of
+	 */
+	public CubeSetEnumerator(final int[] pool_) {
+		this(pool_, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * @param pool_ - border words of the pieces the sets are made of, the orientation of the words and the duplicates do not matter
+	 * @param forkJoinPool_ - the pool running the enumeration
+	 */
+	public CubeSetEnumerator(final int[] pool_, final ForkJoinPool forkJoinPool_) {
+		_forkJoinPool = forkJoinPool_;
+		
+		ArrayList<Integer> words = new ArrayList<Integer>();
+		boolean[] visited = new boolean[PieceBorder.WORD_COUNT];
+		for (int word : pool_) {
+			if (!PieceBorder.isValid(word)) {
+				throw new IllegalArgumentException(String.format("Invalid border word: %s", word));
+			}
+			for (int image : PieceBorder.getImages(word)) {
+				if (!visited[image]) {
+					visited[image] = true;
+					words.add(image);
+				}
+			}
+		}
+		
+		_words = new int[words.size()];
+		_canonical = new int[words.size()];
+		_corners = new int[words.size()];
+		_innerCells = new int[words.size()];
+		_codes = new int[4 * words.size()];
+		int minCorners = CUBE_CORNERS;
+		int maxCorners = 0;
+		int minInnerCells = CUBE_INNER_CELLS;
+		int maxInnerCells = 0;
+		for (int i=0; i<_words.length; i++) {
+			_words[i] = words.get(i);
+			_canonical[i] = PieceBorder.canonical(_words[i]);
+			for (int side=0; side<4; side++) {
+				_corners[i] += PieceBorder.isSet(_words[i], 4 * side) ? 1 : 0;
+				_codes[4 * i + side] = PieceBorder.getInnerCode(_words[i], side);
+			}
+			_innerCells[i] = Integer.bitCount(_words[i]) - _corners[i];
+			minCorners = Math.min(minCorners, _corners[i]);
+			maxCorners = Math.max(maxCorners, _corners[i]);
+			minInnerCells = Math.min(minInnerCells, _innerCells[i]);
+			maxInnerCells = Math.max(maxInnerCells, _innerCells[i]);
+		}
+		_minCorners = minCorners;
+		_maxCorners = maxCorners;
+		_minInnerCells = minInnerCells;
+		_maxInnerCells = maxInnerCells;
+		
+		for (int left=0; left<CODES; left++) {
+			_byLeft[left] = select(left, -1);
+			_byTop[left] = select(-1, left);
+			for (int top=0; top<CODES; top++) {
+				_byLeftAndTop[left * CODES + top] = select(left, top);
+			}
+		}
+	}
+	
+	/**
+	 * @return The canonical border words of all the valid pieces
+	 */
+	public static int[] createFullPool() {
+		int count = 0;
+		int[] result = new int[PieceBorder.WORD_COUNT];
+		for (int word=0; word<PieceBorder.WORD_COUNT; word++) {
+			if (PieceBorder.isValid(word) && PieceBorder.canonical(word) == word) {
+				result[count++] = word;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+	
+	/**
+	 * @return Indexes of the oriented words with the requested codes on the left and the top side (-1: any code)
+	 */
+	private int[] select(final int left_, final int top_) {
+		int count = 0;
+		int[] result = new int[_words.length];
+		for (int i=0; i<_words.length; i++) {
+			if ((left_ < 0 || PieceBorder.getInnerCode(_words[i], 3) == left_)
+					&& (top_ < 0 || PieceBorder.getInnerCode(_words[i], 0) == top_)) {
+				result[count++] = i;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+	
+	/**
+	 * Enumerates the cube sets. The counters are reset at the start.
+	 * @return the number of the different sets that can be plugged together in the plane and folded into a cube
+	 */
+	public long enumerate() {
+		_sets.clear();
+		_layoutCount.set(0);
+		_checkCount.set(0);
+		_cubeSetCount.set(0);
+		_completedTaskCount.set(0);
+		
+		final List<LayoutTask> tasks = new ArrayList<LayoutTask>();
+		for (int i=0; i<_words.length; i++) {
+			tasks.add(new LayoutTask(i));
+		}
+		
+		_forkJoinPool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+		
+		return _cubeSetCount.get();
+	}
+	
+	/**
+	 * @return Number of the tasks of the enumeration - one task per oriented word in the top left corner
+	 */
+	public long getTaskCount() {
+		return _words.length;
+	}
+	
+	/**
+	 * @return Number of the finished tasks
+	 */
+	public long getCompletedTaskCount() {
+		return _completedTaskCount.get();
+	}
+	
+	/**
+	 * @return Number of the complete plane layouts that passed the cell totals and the side codes
+	 */
+	public long getLayoutCount() {
+		return _layoutCount.get();
+	}
+	
+	/**
+	 * @return Number of the sets checked against the cube with the DancingLinksResolver
+	 */
+	public long getCheckCount() {
+		return _checkCount.get();
+	}
+	
+	/**
+	 * @return Number of the different sets that can be plugged together in the plane and folded into a cube
+	 */
+	public long getCubeSetCount() {
+		return _cubeSetCount.get();
+	}
+	
+	/**
+	 * Checks whether the pieces can be plugged together in the plane in the passed order and orientation
+	 * @param layout_ - border words of the pieces in the order 1 2 3 / 4 5 6
+	 * @return true if the sides fit and no junction point is covered twice
+	 */
+	public static boolean fitsInPlane(final int[] layout_) {
+		if (layout_.length != POSITIONS) {
+			throw new IllegalArgumentException(String.format("The layout should have %s pieces", POSITIONS));
+		}
+		
+		int[] junctions = new int[JUNCTIONS];
+		for (int position=0; position<POSITIONS; position++) {
+			if (!fitsToNeighbours(layout_, position, layout_[position]) || !occupy(junctions, position, layout_[position])) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Checks whether the pieces can be folded into a cube
+	 * @param words_ - border words of the 6 pieces
+	 * @return true if the pieces cover the surface exactly - the DancingLinksResolver finds a solution
+	 */
+	public boolean isCube(final int[] words_) {
+		//Fewer bricks leave holes in the cube, more bricks can not be placed
+		int borderCells = 0;
+		for (int word : words_) {
+			borderCells += Integer.bitCount(word);
+		}
+		if (words_.length != POSITIONS || borderCells != CUBE_BORDER_CELLS) {
+			return false;
+		}
+		return _cubeChecks.get().resolve(words_);
+	}
+	
+	private PuzzlePiece getPiece(final int canonical_) {
+		PuzzlePiece piece = _pieces.get(canonical_);
+		if (piece == null) {
+			PuzzlePiece created = PieceBorder.toPuzzlePiece(canonical_);
+			created.getPlacements();
+			piece = _pieces.putIfAbsent(canonical_, created);
+			if (piece == null) {
+				piece = created;
+			}
+		}
+		return piece;
+	}
+	
+	/**
+	 * Checks the inner codes of the word against the left and the top neighbour
+	 */
+	private static boolean fitsToNeighbours(final int[] layout_, final int position_, final int word_) {
+		if (position_ % COLUMNS > 0
+				&& PieceBorder.getInnerCode(word_, 3) != (~PieceBorder.getInnerCode(layout_[position_ - 1], 1) & (CODES - 1))) {
+			return false;
+		}
+		if (position_ >= COLUMNS
+				&& PieceBorder.getInnerCode(word_, 0) != (~PieceBorder.getInnerCode(layout_[position_ - COLUMNS], 2) & (CODES - 1))) {
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Marks the corners of the piece on the junction points
+	 * @return false if a corner is already covered by an other piece - the junctions are not changed then
+	 */
+	private static boolean occupy(final int[] junctions_, final int position_, final int word_) {
+		int[] points = JUNCTION_POINTS[position_];
+		for (int corner=0; corner<4; corner++) {
+			if (PieceBorder.isSet(word_, 4 * corner) && junctions_[points[corner]] > 0) {
+				return false;
+			}
+		}
+		for (int corner=0; corner<4; corner++) {
+			if (PieceBorder.isSet(word_, 4 * corner)) {
+				junctions_[points[corner]]++;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Removes the corners of the piece from the junction points
+	 */
+	private static void release(final int[] junctions_, final int position_, final int word_) {
+		int[] points = JUNCTION_POINTS[position_];
+		for (int corner=0; corner<4; corner++) {
+			if (PieceBorder.isSet(word_, 4 * corner)) {
+				junctions_[points[corner]]--;
+			}
+		}
+	}
+	
+	/**
+	 * @return true if the total of the placed pieces can still reach the target with the remaining pieces
+	 */
+	private static boolean isReachable(final int total_, final int target_, final int min_, final int max_, final int remaining_) {
+		return total_ + min_ * remaining_ <= target_ && total_ + max_ * remaining_ >= target_;
+	}
+	
+	/**
+	 * Checker of the sets against the cube, one per worker thread: the exact cover matrix of the
+	 * DancingLinksResolver is reused by the checks and the rejected sets are remembered in a
+	 * direct mapped cache (the newest set replaces the stored one)
+	 */
+	private final class CubeCheck {
+		
+		private final DancingLinksResolver _resolver = new DancingLinksResolver();
+		
+		private final List<PuzzlePiece> _pieces = new ArrayList<PuzzlePiece>(POSITIONS);
+		
+		/**
+		 * The rejected sets - no set of valid words packs into -1 words
+		 */
+		private final long[] _rejectedLow = new long[REJECTED_CAPACITY];
+		private final long[] _rejectedHigh = new long[REJECTED_CAPACITY];
+		
+		CubeCheck() {
+			Arrays.fill(_rejectedLow, -1);
+			Arrays.fill(_rejectedHigh, -1);
+		}
+		
+		/**
+		 * @return true if the DancingLinksResolver covers the cube with the pieces of the border words
+		 */
+		boolean resolve(final int[] words_) {
+			_pieces.clear();
+			for (int word : words_) {
+				_pieces.add(getPiece(PieceBorder.canonical(word)));
+			}
+			return _resolver.resolve(_pieces);
+		}
+		
+		boolean isRejected(final SetKey key_) {
+			int slot = key_.hashCode() & (REJECTED_CAPACITY - 1);
+			return _rejectedLow[slot] == key_._low && _rejectedHigh[slot] == key_._high;
+		}
+		
+		void reject(final SetKey key_) {
+			int slot = key_.hashCode() & (REJECTED_CAPACITY - 1);
+			_rejectedLow[slot] = key_._low;
+			_rejectedHigh[slot] = key_._high;
+		}
+	}
+	
+	/**
+	 * Task enumerating the layouts with one oriented word in the top left corner
+	 */
+	private final class LayoutTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final int _first;
+		
+		/**
+		 * Oriented word indexes and border words of the current layout
+		 */
+		private final int[] _indexes = new int[POSITIONS];
+		private final int[] _layout = new int[POSITIONS];
+		
+		private final int[] _junctions = new int[JUNCTIONS];
+		
+		/**
+		 * Corner and inner border cells of the placed pieces, imbalance of the outer side codes by axis
+		 */
+		private int _cornerTotal;
+		private int _innerTotal;
+		private final int[] _balance = new int[AXES];
+		
+		/**
+		 * Counters of the task, added to the counters of the enumerator at the end
+		 */
+		private long _layouts;
+		private long _checkedSets;
+		
+		LayoutTask(final int first_) {
+			_first = first_;
+		}
+		
+		@Override
+		protected void compute() {
+			if (fits(_first, 0)) {
+				_indexes[0] = _first;
+				_layout[0] = _words[_first];
+				occupy(_junctions, 0, _layout[0]);
+				place(_first, 0, 1);
+				
+				extend(1);
+			}
+			
+			_layoutCount.addAndGet(_layouts);
+			_checkCount.addAndGet(_checkedSets);
+			_completedTaskCount.incrementAndGet();
+		}
+		
+		/**
+		 * Checks the totals and the outer sides with the candidate on the position
+		 * @return true if the layout can still be folded into a cube
+		 */
+		private boolean fits(final int candidate_, final int position_) {
+			int remaining = POSITIONS - 1 - position_;
+			if (!isReachable(_cornerTotal + _corners[candidate_], CUBE_CORNERS, _minCorners, _maxCorners, remaining)
+					|| !isReachable(_innerTotal + _innerCells[candidate_], CUBE_INNER_CELLS, _minInnerCells, _maxInnerCells, remaining)) {
+				return false;
+			}
+			place(candidate_, position_, 1);
+			int imbalance = 0;
+			for (int axis=0; axis<AXES; axis++) {
+				imbalance += Math.abs(_balance[axis]);
+			}
+			place(candidate_, position_, -1);
+			return imbalance <= OUTER_SIDES_AFTER[position_];
+		}
+		
+		/**
+		 * Adds the candidate to the totals (sign_ = 1) or removes it (sign_ = -1)
+		 */
+		private void place(final int candidate_, final int position_, final int sign_) {
+			_cornerTotal += sign_ * _corners[candidate_];
+			_innerTotal += sign_ * _innerCells[candidate_];
+			for (int side : OUTER_SIDES[position_]) {
+				int code = _codes[4 * candidate_ + side];
+				_balance[CODE_AXIS[code]] += sign_ * CODE_SIGN[code];
+			}
+		}
+		
+		private void extend(final int position_) {
+			if (position_ == POSITIONS) {
+				onLayout();
+				return;
+			}
+			
+			int[] candidates;
+			if (position_ < COLUMNS) {
+				candidates = _byLeft[~PieceBorder.getInnerCode(_layout[position_ - 1], 1) & (CODES - 1)];
+			}
+			else if (position_ == COLUMNS) {
+				candidates = _byTop[~PieceBorder.getInnerCode(_layout[0], 2) & (CODES - 1)];
+			}
+			else {
+				int left = ~PieceBorder.getInnerCode(_layout[position_ - 1], 1) & (CODES - 1);
+				int top = ~PieceBorder.getInnerCode(_layout[position_ - COLUMNS], 2) & (CODES - 1);
+				candidates = _byLeftAndTop[left * CODES + top];
+			}
+			
+			//The top left piece is the smallest corner - the mirrored / rotated layouts are skipped
+			boolean corner = position_ == COLUMNS - 1 || position_ == COLUMNS || position_ == POSITIONS - 1;
+			
+			for (int candidate : candidates) {
+				if (corner && _canonical[candidate] < _canonical[_first]) {
+					continue;
+				}
+				int word = _words[candidate];
+				if (!fits(candidate, position_) || !occupy(_junctions, position_, word)) {
+					continue;
+				}
+				_indexes[position_] = candidate;
+				_layout[position_] = word;
+				place(candidate, position_, 1);
+				
+				extend(position_ + 1);
+				
+				place(candidate, position_, -1);
+				release(_junctions, position_, word);
+			}
+		}
+		
+		private void onLayout() {
+			_layouts++;
+			
+			int[] set = new int[POSITIONS];
+			for (int i=0; i<POSITIONS; i++) {
+				set[i] = _canonical[_indexes[i]];
+			}
+			Arrays.sort(set);
+			
+			//The cube sets are stored, the rejected ones are remembered by the worker
+			SetKey key = new SetKey(set);
+			CubeCheck check = _cubeChecks.get();
+			if (_sets.contains(key) || check.isRejected(key)) {
+				return;
+			}
+			_checkedSets++;
+			if (!check.resolve(set)) {
+				check.reject(key);
+			}
+			else if (_sets.add(key)) {
+				_cubeSetCount.incrementAndGet();
+			}
+		}
+	}
+	
+	/**
+	 * Key of a set: the sorted canonical border words packed into two longs
+	 */
+	private static final class SetKey {
+		
+		private final long _low;
+		private final long _high;
+		
+		SetKey(final int[] sortedWords_) {
+			long low = 0;
+			long high = 0;
+			for (int i=0; i<4; i++) {
+				low |= (long)sortedWords_[i] << (16 * i);
+			}
+			for (int i=4; i<POSITIONS; i++) {
+				high |= (long)sortedWords_[i] << (16 * (i - 4));
+			}
+			_low = low;
+			_high = high;
+		}
+		
+		@Override
+		public boolean equals(final Object obj_) {
+			if (!(obj_ instanceof SetKey)) {
+				return false;
+			}
+			SetKey other = (SetKey)obj_;
+			return _low == other._low && _high == other._high;
+		}
+		
+		@Override
+		public int hashCode() {
+			long hash = _low * 31 + _high;
+			return (int)(hash ^ (hash >>> 32));
+		}
+	}
+}
@@ -0,0 +1,265 @@
+package com.tauracs.cubepuzzle.challenge;
+
+import com.tauracs.cubepuzzle.model.Dimensions;
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+
+/**
+ * Helper class of the 16 bit border words of the puzzle pieces.
+ * 
+ * The inner 3 * 3 bricks of a piece are always present, the piece is described by its border.
+ * Bit N of the word is the Nth border cell clockwise from the top left corner:
+ * 
+ *  0  1  2  3  4
+ * 15           5
+ * 14           6
+ * 13           7
+ * 12 11 10  9  8
+ * 
+ * Side K (0 - top, 1 - right, 2 - bottom, 3 - left) is made of the bits 4K..4K+4 (modulo 16),
+ * so a 90 degree rotation is a 4 bit rotation of the word.
+ * 
+ * The manufacturing rules are checked with bit operations on the word once per word, isValid()
+ * and the batch selectValid() look up the result in a 64K bit table.
+ *
+ */
+public final class PieceBorder {
+	
+	/**
+	 * Number of the border cells
+	 */
+	final static public int CELL_COUNT = 16;
+	
+	/**
+	 * Number of the distinct border words
+	 */
+	final static public int WORD_COUNT = 1 << CELL_COUNT;
+	
+	/**
+	 * Mask of a 16 bit word
+	 */
+	final static private int MASK = WORD_COUNT - 1;
+	
+	/**
+	 * Edge size of the pieces described by the border words
+	 */
+	final static private int EDGE = 5;
+	
+	/**
+	 * Row and column of the border cells
+	 */
+	final static private int[] ROW = {0, 0, 0, 0, 0, 1, 2, 3, 4, 4, 4, 4, 4, 3, 2, 1};
+	final static private int[] COLUMN = {0, 1, 2, 3, 4, 4, 4, 4, 4, 3, 2, 1, 0, 0, 0, 0};
+	
+	/**
+	 * Cells of the sides: top, right, bottom and left - the left side wraps around to cell 0
+	 */
+	final static private int[] SIDE_MASKS = {0x001F, 0x01F0, 0x1F00, 0xF001};
+	
+	/**
+	 * Cells of the corners
+	 */
+	final static private int CORNER_MASK = 0x1111;
+	
+	/**
+	 * Validity of the words: bit W (modulo 64) of entry W / 64 is set if word W is valid
+	 */
+	final static private long[] VALID = new long[WORD_COUNT / Long.SIZE];
+	
+	static {
+		for (int border=0; border<WORD_COUNT; border++) {
+			if (checkRules(border)) {
+				VALID[border >>> 6] |= 1L << border;
+			}
+		}
+	}
+	
+	private PieceBorder() {
+	}
+	
+	/**
+	 * Rotates the border by 90 degrees clockwise
+	 */
+	public static int rotate(final int border_) {
+		return ((border_ << 4) | (border_ >>> (CELL_COUNT - 4))) & MASK;
+	}
+	
+	/**
+	 * Mirrors the border to the vertical axis: cell N is moved to cell 4 - N (modulo 16)
+	 */
+	public static int mirror(final int border_) {
+		int result = 0;
+		for (int cell=0; cell<CELL_COUNT; cell++) {
+			if ((border_ & (1 << cell)) != 0) {
+				result |= 1 << ((4 - cell + CELL_COUNT) % CELL_COUNT);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the images of the border by rotating and mirroring in 2 dimensions
+	 * @return the 8 images, the first is the passed border
+	 */
+	public static int[] getImages(final int border_) {
+		int[] result = new int[8];
+		int border = border_;
+		for (int i=0; i<4; i++) {
+			result[2*i] = border;
+			result[2*i+1] = mirror(border);
+			border = rotate(border);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return The smallest image of the border - pieces that can be transformed into each other have the same canonical border
+	 */
+	public static int canonical(final int border_) {
+		int result = border_;
+		for (int image : getImages(border_)) {
+			result = Math.min(result, image);
+		}
+		return result;
+	}
+	
+	/**
+	 * Checks the manufacturing rules of the pieces:
+	 *  - no side is flat (all the 5 cells of the side are present)
+	 *  - no corner can break (a present corner has a present neighbour on the border)
+	 * A piece without breakable corners is connected as the inner 3 * 3 bricks are present.
+	 * The bare 3 * 3 core (word 0) is a valid piece: it has neither a flat side nor a corner,
+	 * so it is part of the pool of CubeSetEnumerator.createFullPool().
+	 * 
+	 * @return true if the border describes a valid piece, false for the words that are not 16 bit long as well
+	 */
+	public static boolean isValid(final int border_) {
+		return (border_ & ~MASK) == 0 && (VALID[border_ >>> 6] & (1L << border_)) != 0;
+	}
+	
+	/**
+	 * Selects the valid words of a batch of candidates - see isValid()
+	 * 
+	 * @param borders_ - the candidate border words
+	 * @param offset_ - index of the first candidate
+	 * @param length_ - number of the candidates
+	 * @param valid_ - receives the valid words in the order of the candidates from index 0, it should have length_ entries
+	 * @return the number of the valid words
+	 */
+	public static int selectValid(final int[] borders_, final int offset_, final int length_, final int[] valid_) {
+		if (offset_ < 0 || length_ < 0 || offset_ > borders_.length - length_) {
+			throw new IllegalArgumentException(String.format("Invalid range of the candidates: %s + %s", offset_, length_));
+		}
+		if (valid_.length < length_) {
+			throw new IllegalArgumentException("valid_ argument is shorter than the batch: " + valid_.length);
+		}
+		
+		//Every word is written, only the valid ones are kept
+		int count = 0;
+		for (int i=offset_; i<offset_+length_; i++) {
+			int border = borders_[i];
+			valid_[count] = border;
+			count += isValid(border) ? 1 : 0;
+		}
+		return count;
+	}
+	
+	/**
+	 * Evaluates the manufacturing rules of a 16 bit word with bit operations
+	 */
+	private static boolean checkRules(final int border_) {
+		for (int side : SIDE_MASKS) {
+			if ((border_ & side) == side) {
+				return false;
+			}
+		}
+		//Bit N of the words: the previous and the next cell of cell N
+		int previous = ((border_ << 1) | (border_ >>> (CELL_COUNT - 1))) & MASK;
+		int next = ((border_ >>> 1) | (border_ << (CELL_COUNT - 1))) & MASK;
+		return (border_ & CORNER_MASK & ~(previous | next)) == 0;
+	}
+	
+	/**
+	 * @return true if the border cell (modulo 16) is present
+	 */
+	public static boolean isSet(final int border_, final int cell_) {
+		return (border_ & (1 << ((cell_ + CELL_COUNT) % CELL_COUNT))) != 0;
+	}
+	
+	/**
+	 * Returns the 3 inner cells of a side as a 3 bit code. The bits are ordered
+	 * from left to right on the horizontal sides and from top to bottom on the vertical sides, 
+	 * so the codes of two neighbouring pieces fit if they are complementary.
+	 * 
+	 * @param border_ - the border word
+	 * @param side_ - 0 - top, 1 - right, 2 - bottom, 3 - left
+	 * @return the 3 bit code
+	 */
+	public static int getInnerCode(final int border_, final int side_) {
+		int first = 4 * side_ + 1;
+		int code = 0;
+		for (int i=0; i<3; i++) {
+			if (isSet(border_, first + i)) {
+				//The bottom and the left side are walked backwards
+				code |= side_ < 2 ? 1 << i : 1 << (2 - i);
+			}
+		}
+		return code;
+	}
+	
+	/**
+	 * Converts the layout of a puzzle piece to a border word
+	 * 
+	 * @param layout_ - Char array representation of the piece, the space characters are empty cells
+	 * @return the border word
+	 */
+	public static int fromLayout(final char[][] layout_) {
+		if (layout_ == null || layout_.length != EDGE) {
+			throw new IllegalArgumentException(String.format("layout_ should be an %s * %s matrix", EDGE, EDGE));
+		}
+		
+		for (int y=1; y<EDGE-1; y++) {
+			for (int x=1; x<EDGE-1; x++) {
+				if (Character.isSpaceChar(layout_[y][x])) {
+					throw new IllegalArgumentException("The inner cells of the piece should be present");
+				}
+			}
+		}
+		
+		int result = 0;
+		for (int cell=0; cell<CELL_COUNT; cell++) {
+			if (!Character.isSpaceChar(layout_[ROW[cell]][COLUMN[cell]])) {
+				result |= 1 << cell;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Converts a border word to the layout of a puzzle piece
+	 * @return Char array representation of the piece
+	 */
+	public static char[][] toLayout(final int border_) {
+		char[][] result = new char[EDGE][EDGE];
+		for (int y=0; y<EDGE; y++) {
+			for (int x=0; x<EDGE; x++) {
+				result[y][x] = '*';
+			}
+		}
+		for (int cell=0; cell<CELL_COUNT; cell++) {
+			if (!isSet(border_, cell)) {
+				result[ROW[cell]][COLUMN[cell]] = ' ';
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Creates the puzzle piece described by the border word
+	 */
+	public static PuzzlePiece toPuzzlePiece(final int border_) {
+		if (Dimensions.CUBE_EDGE_SIZE != EDGE) {
+			throw new UnsupportedOperationException(String.format("Border words describe %s * %s pieces", EDGE, EDGE));
+		}
+		return new PuzzlePiece(toLayout(border_));
+	}
+}
@@ -0,0 +1,366 @@
+package com.tauracs.cubepuzzle.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.tauracs.cubepuzzle.io.PuzzleSheetParser;
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+import com.tauracs.cubepuzzle.model.PuzzleResolver;
+import com.tauracs.cubepuzzle.model.SolutionCount;
+
+/**
+ * Command line driver solving the cubes of puzzle sheets in parallel.
+ *
+ * The cubes of every sheet (see PuzzleSheetParser) are solved by a pool of workers, each with its own
+ * PuzzleResolver. The solutions are written in the unfolded format to [output dir]/[sheet name].solutions
+ * in the order of the cubes - or, in count mode, the number of their solutions by symmetry class.
+ * The parser runs ahead of the writer by a bounded number of cubes, so the
+ * sheets are never loaded whole. At the end the throughput and the latency percentiles are printed.
+ *
+ * Usage: BatchSolver [-w workers] [-o output dir] [-c] sheet file or directory...
+ *
+ */
+public final class BatchSolver {
+
+	final static private String SUFFIX = ".solutions";
+
+	/**
+	 * Number of the cubes per worker that are parsed before their solutions are written
+	 */
+	final static private int CUBES_IN_FLIGHT_PER_WORKER = 4;
+
+	final static private double[] PERCENTILES = new double[]{50, 90, 99, 100};
+
+	private final int _workerCount;
+
+	private final File _outputDir;
+
+	/**
+	 * true if the solutions are counted instead of written
+	 */
+	private boolean _countMode = false;
+
+	private final ThreadLocal<PuzzleResolver> _resolvers = new ThreadLocal<PuzzleResolver>() {
+		@Override
+		protected PuzzleResolver initialValue() {
+			return new PuzzleResolver();
+		}
+	};
+
+	/**
+	 * @param workerCount_ - number of the solving threads
+	 * @param outputDir_ - directory of the solution files
+	 */
+	public BatchSolver(final int workerCount_, final File outputDir_) {
+		if (workerCount_ < 1) {
+			throw new IllegalArgumentException("workerCount_ argument should be positive: " + workerCount_);
+		}
+		if (outputDir_ == null) {
+			throw new IllegalArgumentException("outputDir_ argument is null");
+		}
+		_workerCount = workerCount_;
+		_outputDir = outputDir_;
+	}
+
+	/**
+	 * Sets whether the solutions of the cubes are counted (see PuzzleResolver.count()) instead of the first one written
+	 */
+	public void setCountMode(final boolean countMode_) {
+		_countMode = countMode_;
+	}
+
+	public boolean isCountMode() {
+		return _countMode;
+	}
+
+	public static void main(final String[] args_) {
+		int workerCount = Runtime.getRuntime().availableProcessors();
+		File outputDir = new File(".");
+		boolean countMode = false;
+		List<File> inputs = new ArrayList<File>();
+
+		try {
+			for (int i=0; i<args_.length; i++) {
+				if ("-w".equals(args_[i]) && i + 1 < args_.length) {
+					workerCount = Integer.parseInt(args_[++i]);
+				}
+				else if ("-o".equals(args_[i]) && i + 1 < args_.length) {
+					outputDir = new File(args_[++i]);
+				}
+				else if ("-c".equals(args_[i])) {
+					countMode = true;
+				}
+				else if (args_[i].startsWith("-")) {
+					throw new IllegalArgumentException("Unknown option: " + args_[i]);
+				}
+				else {
+					inputs.addAll(listSheets(new File(args_[i])));
+				}
+			}
+			if (inputs.isEmpty()) {
+				throw new IllegalArgumentException("No sheet to solve");
+			}
+
+			BatchSolver solver = new BatchSolver(workerCount, outputDir);
+			solver.setCountMode(countMode);
+			Report report = solver.solve(inputs);
+			System.out.println(report);
+		}
+		catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: BatchSolver [-w workers] [-o output dir] [-c] sheet file or directory...");
+			System.exit(2);
+		}
+		catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @return The passed file or the files of the passed directory in the order of their names
+	 */
+	static List<File> listSheets(final File file_) {
+		if (!file_.isDirectory()) {
+			if (!file_.isFile()) {
+				throw new IllegalArgumentException("No such file: " + file_);
+			}
+			return Arrays.asList(file_);
+		}
+
+		List<File> result = new ArrayList<File>();
+		File[] files = file_.listFiles();
+		if (files != null) {
+			Arrays.sort(files);
+			for (File file : files) {
+				if (file.isFile() && !file.getName().endsWith(SUFFIX)) {
+					result.add(file);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Solves the cubes of the sheets and writes their solution files
+	 * @return the counters and the latencies of the cubes
+	 * @throws IOException - a sheet can not be read or it is malformed, or a solution file can not be written
+	 */
+	public Report solve(final List<File> sheets_) throws IOException {
+		if (!_outputDir.isDirectory() && !_outputDir.mkdirs()) {
+			throw new IOException("Can not create the output directory: " + _outputDir);
+		}
+
+		Report report = new Report(_workerCount);
+		ExecutorService executor = Executors.newFixedThreadPool(_workerCount);
+		long start = System.nanoTime();
+		try {
+			for (File sheet : sheets_) {
+				solveSheet(sheet, executor, report);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		report._elapsedNanos = System.nanoTime() - start;
+		return report;
+	}
+
+	/**
+	 * Solves the cubes of one sheet, the results are written in the order of the cubes
+	 */
+	private void solveSheet(final File sheet_, final ExecutorService executor_, final Report report_) throws IOException {
+		File output = new File(_outputDir, sheet_.getName() + SUFFIX);
+		PuzzleSheetParser parser = new PuzzleSheetParser(sheet_.toPath());
+		Writer writer = Files.newBufferedWriter(output.toPath(), Charset.forName("US-ASCII"));
+		Deque<Future<Result>> inFlight = new ArrayDeque<Future<Result>>();
+
+		try {
+			List<PuzzlePiece> pieces;
+			while ((pieces = parser.next()) != null) {
+				inFlight.add(executor_.submit(new SolveTask(pieces, parser.getCubeCount())));
+				if (inFlight.size() >= _workerCount * CUBES_IN_FLIGHT_PER_WORKER) {
+					write(inFlight.poll(), writer, report_);
+				}
+			}
+			while (!inFlight.isEmpty()) {
+				write(inFlight.poll(), writer, report_);
+			}
+		}
+		catch (IOException e) {
+			throw new IOException(sheet_ + ": " + e.getMessage(), e);
+		}
+		finally {
+			for (Future<Result> future : inFlight) {
+				future.cancel(true);
+			}
+			parser.close();
+			writer.close();
+		}
+	}
+
+	/**
+	 * Waits for the result of a cube and writes it
+	 */
+	private static void write(final Future<Result> future_, final Writer writer_, final Report report_) throws IOException {
+		Result result;
+		try {
+			result = future_.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted", e);
+		}
+		catch (ExecutionException e) {
+			throw new IOException("Solving failed: " + e.getCause(), e.getCause());
+		}
+
+		writer_.write("Cube " + result._cubeNumber + ":\n");
+		writer_.write(result._solution != null ? result._solution : "No solution\n");
+		writer_.write("\n");
+		report_.add(result);
+	}
+
+	/**
+	 * Solution of one cube with its latency
+	 */
+	private static final class Result {
+		final long _cubeNumber;
+		final String _solution;
+		final long _nanos;
+
+		Result(final long cubeNumber_, final String solution_, final long nanos_) {
+			_cubeNumber = cubeNumber_;
+			_solution = solution_;
+			_nanos = nanos_;
+		}
+	}
+
+	/**
+	 * Task solving one cube with the resolver of the worker
+	 */
+	private final class SolveTask implements Callable<Result> {
+
+		private final List<PuzzlePiece> _pieces;
+
+		private final long _cubeNumber;
+
+		SolveTask(final List<PuzzlePiece> pieces_, final long cubeNumber_) {
+			_pieces = pieces_;
+			_cubeNumber = cubeNumber_;
+		}
+
+		public Result call() {
+			long start = System.nanoTime();
+			PuzzleResolver resolver = _resolvers.get();
+			String solution;
+			if (_countMode) {
+				SolutionCount count = resolver.count(_pieces, true);
+				solution = count.getSolutionCount() > 0 ? count + "\n" : null;
+			}
+			else {
+				solution = resolver.resolve(_pieces) ? resolver.to360TString() : null;
+			}
+			return new Result(_cubeNumber, solution, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Counters and latencies of a batch
+	 */
+	public static final class Report {
+
+		private final int _workerCount;
+
+		private long _puzzleCount = 0;
+
+		private long _solvedCount = 0;
+
+		private long _elapsedNanos = 0;
+
+		private long[] _latencies = new long[1024];
+
+		private Report(final int workerCount_) {
+			_workerCount = workerCount_;
+		}
+
+		private void add(final Result result_) {
+			if (_puzzleCount == _latencies.length) {
+				_latencies = Arrays.copyOf(_latencies, 2 * _latencies.length);
+			}
+			_latencies[(int)_puzzleCount++] = result_._nanos;
+			if (result_._solution != null) {
+				_solvedCount++;
+			}
+		}
+
+		/**
+		 * @return Number of the solved cubes (with or without solution)
+		 */
+		public long getPuzzleCount() {
+			return _puzzleCount;
+		}
+
+		/**
+		 * @return Number of the cubes with a solution
+		 */
+		public long getSolvedCount() {
+			return _solvedCount;
+		}
+
+		/**
+		 * @return Wall clock time of the batch, including the parsing and the writing
+		 */
+		public long getElapsedNanos() {
+			return _elapsedNanos;
+		}
+
+		/**
+		 * @return Cubes per second
+		 */
+		public double getThroughput() {
+			return _elapsedNanos > 0 ? _puzzleCount * 1e9 / _elapsedNanos : 0;
+		}
+
+		/**
+		 * @param percentile_ - 0..100
+		 * @return The solving time of a cube in nanoseconds that is not exceeded by the passed percent of the cubes (nearest rank)
+		 */
+		public long getLatencyPercentile(final double percentile_) {
+			if (percentile_ < 0 || percentile_ > 100) {
+				throw new IllegalArgumentException("percentile_ argument should be between 0 and 100: " + percentile_);
+			}
+			if (_puzzleCount == 0) {
+				return 0;
+			}
+			long[] sorted = Arrays.copyOf(_latencies, (int)_puzzleCount);
+			Arrays.sort(sorted);
+			int rank = (int)Math.ceil(percentile_ / 100 * sorted.length);
+			return sorted[Math.max(rank, 1) - 1];
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder();
+			result.append(String.format("Cubes: %d, solved: %d, workers: %d, elapsed: %d ms, throughput: %.1f cubes/s",
+					_puzzleCount, _solvedCount, _workerCount, _elapsedNanos / 1000000, getThroughput()));
+			for (double percentile : PERCENTILES) {
+				result.append(String.format("%n p%.0f: %d us", percentile, getLatencyPercentile(percentile) / 1000));
+			}
+			return result.toString();
+		}
+	}
+}
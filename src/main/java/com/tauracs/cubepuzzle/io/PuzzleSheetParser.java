@@ -0,0 +1,228 @@
+package com.tauracs.cubepuzzle.io;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tauracs.cubepuzzle.model.Dimensions;
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+
+/**
+ * Streaming parser of puzzle sheets: ASCII files with the pieces of several cubes.
+ *
+ * The pieces are drawn side by side in bands of CUBE_EDGE_SIZE rows, every piece takes
+ * CUBE_EDGE_SIZE columns (see the README). The lines of a band can be shorter than the band,
+ * the missing characters are spaces. The bands can be separated by blank lines.
+ * The pieces are collected in the order of the bands and the columns, every PIECES_PER_CUBE
+ * pieces make one cube.
+ *
+ * Every cell of the core of a piece (the cells that are not on the border) has to be a brick,
+ * which catches the sheets whose bands are not aligned to the rows.
+ *
+ * The sheet is read line by line, only the band under parsing is kept in memory.
+ *
+ */
+public final class PuzzleSheetParser implements Closeable {
+
+	final static public int PIECES_PER_CUBE = 6;
+
+	final static public char DEFAULT_BRICK = 'o';
+
+	final static public char DEFAULT_SPACE = ' ';
+
+	final static private int EDGE = Dimensions.CUBE_EDGE_SIZE;
+
+	/**
+	 * The brick char of the layouts passed to the PuzzlePieces
+	 */
+	final static private char LAYOUT_BRICK = '*';
+
+	private final BufferedReader _reader;
+
+	private final char _brick;
+
+	private final char _space;
+
+	private final int _piecesPerCube;
+
+	/**
+	 * The parsed pieces that do not make a cube yet
+	 */
+	private final List<PuzzlePiece> _pending = new ArrayList<PuzzlePiece>();
+
+	private final String[] _band = new String[EDGE];
+
+	private long _lineNumber = 0;
+
+	private long _cubeCount = 0;
+
+	/**
+	 * Opens a sheet with the default chars in US-ASCII
+	 */
+	public PuzzleSheetParser(final Path path_) throws IOException {
+		this(path_, DEFAULT_BRICK, DEFAULT_SPACE);
+	}
+
+	/**
+	 * Opens a sheet in US-ASCII
+	 * @param path_ - the file of the sheet
+	 * @param brick_ - char of the bricks
+	 * @param space_ - char of the empty cells
+	 */
+	public PuzzleSheetParser(final Path path_, final char brick_, final char space_) throws IOException {
+		this(Files.newBufferedReader(path_, Charset.forName("US-ASCII")), brick_, space_, PIECES_PER_CUBE);
+	}
+
+	/**
+	 * @param reader_ - the source of the sheet, closed by close()
+	 * @param brick_ - char of the bricks
+	 * @param space_ - char of the empty cells
+	 * @param piecesPerCube_ - number of the pieces of a cube
+	 */
+	public PuzzleSheetParser(final Reader reader_, final char brick_, final char space_, final int piecesPerCube_) {
+		if (reader_ == null) {
+			throw new IllegalArgumentException("reader_ argument is null");
+		}
+		if (brick_ == space_) {
+			throw new IllegalArgumentException("The brick and the space chars should be different");
+		}
+		if (piecesPerCube_ < 1) {
+			throw new IllegalArgumentException("piecesPerCube_ argument should be positive: " + piecesPerCube_);
+		}
+		_reader = reader_ instanceof BufferedReader ? (BufferedReader)reader_ : new BufferedReader(reader_);
+		_brick = brick_;
+		_space = space_;
+		_piecesPerCube = piecesPerCube_;
+	}
+
+	/**
+	 * Parses the pieces of the next cube
+	 * @return the pieces of the cube, null at the end of the sheet
+	 * @throws IOException - the sheet can not be read or it is malformed
+	 */
+	public List<PuzzlePiece> next() throws IOException {
+		while (_pending.size() < _piecesPerCube) {
+			if (!readBand()) {
+				if (!_pending.isEmpty()) {
+					throw new IOException(String.format("Line %d: the sheet ends with an incomplete cube of %d pieces", _lineNumber, _pending.size()));
+				}
+				return null;
+			}
+		}
+
+		List<PuzzlePiece> result = new ArrayList<PuzzlePiece>(_pending.subList(0, _piecesPerCube));
+		_pending.subList(0, _piecesPerCube).clear();
+		_cubeCount++;
+		return result;
+	}
+
+	/**
+	 * @return Number of the cubes returned by next()
+	 */
+	public long getCubeCount() {
+		return _cubeCount;
+	}
+
+	/**
+	 * @return Number of the lines read
+	 */
+	public long getLineNumber() {
+		return _lineNumber;
+	}
+
+	public void close() throws IOException {
+		_reader.close();
+	}
+
+	/**
+	 * Reads the next band and adds its pieces to the pending ones
+	 * @return false at the end of the sheet
+	 */
+	private boolean readBand() throws IOException {
+		String line;
+		do {
+			line = readLine();
+		} while (line != null && isBlank(line));
+
+		if (line == null) {
+			return false;
+		}
+
+		int width = 0;
+		for (int y=0; y<EDGE; y++) {
+			if (y > 0) {
+				line = readLine();
+				if (line == null) {
+					throw new IOException(String.format("Line %d: the sheet ends inside a band", _lineNumber));
+				}
+			}
+			_band[y] = line;
+			width = Math.max(width, line.length());
+		}
+
+		long firstLine = _lineNumber - EDGE + 1;
+		int pieceCount = (width + EDGE - 1) / EDGE;
+		for (int piece=0; piece<pieceCount; piece++) {
+			_pending.add(parsePiece(piece * EDGE, firstLine));
+		}
+		return true;
+	}
+
+	/**
+	 * @return The next line of the sheet, null at the end
+	 */
+	private String readLine() throws IOException {
+		String result = _reader.readLine();
+		if (result != null) {
+			_lineNumber++;
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the piece of the band starting at the passed column
+	 */
+	private PuzzlePiece parsePiece(final int column_, final long firstLine_) throws IOException {
+		char[][] layout = new char[EDGE][EDGE];
+
+		for (int y=0; y<EDGE; y++) {
+			String line = _band[y];
+			for (int x=0; x<EDGE; x++) {
+				char c = column_ + x < line.length() ? line.charAt(column_ + x) : _space;
+				if (c == _brick) {
+					layout[y][x] = LAYOUT_BRICK;
+				}
+				else if (c == _space) {
+					layout[y][x] = ' ';
+				}
+				else {
+					throw new IOException(String.format("Line %d, column %d: unexpected char '%c'", firstLine_ + y, column_ + x + 1, c));
+				}
+
+				if (layout[y][x] != LAYOUT_BRICK && x > 0 && x < EDGE - 1 && y > 0 && y < EDGE - 1) {
+					throw new IOException(String.format("Line %d, column %d: the core of the piece is not complete", firstLine_ + y, column_ + x + 1));
+				}
+			}
+		}
+		return new PuzzlePiece(layout);
+	}
+
+	/**
+	 * @return true if the line is empty or it has trailing whitespace only
+	 */
+	private boolean isBlank(final String line_) {
+		for (int i=0; i<line_.length(); i++) {
+			char c = line_.charAt(i);
+			if (c != _space && !Character.isWhitespace(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,631 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.tauracs.cubepuzzle.model.interfaces.ISolutionListener;
+
+/**
+ * Depth first search over the placements of the PuzzlePieces.
+ *
+ * The placements are extracted from one Cube instance and restored when the search
+ * steps back, so the working memory is bounded by the number of pieces.
+ * Level N of the search chooses the placement of the Nth PuzzlePiece of the search order. If the pieces
+ * have more bricks than the cube has cells, a piece can be left out as well: after its placements the level
+ * tries to go on without it, provided that the pieces after it still have enough bricks for the uncovered
+ * cells. So the solutions of a surplus set do not depend on the order of the pieces.
+ *
+ * The search can be forked at any level: the fork continues with a copy of the current
+ * state, which lets independent subtrees run on different threads.
+ *
+ */
+final class BacktrackingSearch {
+
+	/**
+	 * The pieces the cube is built from
+	 */
+	private final List<PuzzlePiece> _puzzlePieces;
+
+	/**
+	 * Placement tables of the pieces
+	 */
+	private final PlacementTable[] _tables;
+
+	/**
+	 * Order of the pieces in the search - the anchor piece of the symmetry reduction comes first
+	 */
+	private final int[] _order;
+
+	/**
+	 * Number of the bricks of the pieces from the level on: [level]
+	 */
+	private final int[] _suffixBricks;
+
+	/**
+	 * Symmetry reduction of the enumeration, null if all the placements are visited
+	 */
+	private final SymmetryReduction _reduction;
+
+	/**
+	 * Forward checking of the corner and edge cells, null if the pieces do not cover the cube exactly
+	 */
+	private final CoveragePropagation _propagation;
+
+	/**
+	 * The chosen placement index of the pieces, -1 if the piece is not placed
+	 */
+	private final int[] _placements;
+
+	/**
+	 * The cube whose bricks are extracted during the search
+	 */
+	private final Cube _cube;
+
+	/**
+	 * Receiver of the enumerated solutions
+	 */
+	private ISolutionListener _listener = null;
+
+	/**
+	 * Number of the solutions passed to the listener - shared by the forks
+	 */
+	private AtomicLong _solutionCount = new AtomicLong();
+
+	/**
+	 * Flag stopping the search - shared by the forks
+	 */
+	private AtomicBoolean _stop = new AtomicBoolean();
+
+	/**
+	 * Counters of the search - shared by the forks
+	 */
+	private final SolverStats _stats;
+
+	/**
+	 * Local counters of this fork
+	 */
+	private final SolverStats.Recorder _recorder;
+
+	/**
+	 * Failed states of findFirst(), null if the states are not memoised
+	 */
+	private TranspositionTable _transpositions = null;
+
+	/**
+	 * Number of the solutions of the states of count(), null if the counts are not memoised
+	 */
+	private CountTable _counts = null;
+
+	/**
+	 * Number of the classes counted by count() by orbit size - with the symmetry reduction
+	 */
+	private long[] _classCounts = null;
+
+	/**
+	 * true if count() explores only the first placement of the first piece and multiplies
+	 */
+	private boolean _countImages = false;
+
+	/**
+	 * Zobrist keys of the placements of the pieces: [piece][placement], null if the hash is not maintained
+	 */
+	private long[][] _placementKeys;
+
+	/**
+	 * Zobrist hash and the bitmask of the remaining pieces of the current state
+	 */
+	private long _hash;
+	private long _remaining;
+
+	/**
+	 * Number of the nodes visited by findFirst() - the work of the failed subtrees
+	 */
+	private long _nodeCount;
+
+	/**
+	 * Stop and progress of findFirst(), null if the search runs to the end
+	 */
+	private SearchControl _control = null;
+
+	/**
+	 * @param puzzlePieces_ - The pieces the cube is built from
+	 * @param symmetryReduction_ - true if only the solutions unique up to rotating or mirroring in 3D should be visited
+	 * @param stats_ - Counters of the search, started by the caller
+	 */
+	BacktrackingSearch(final List<PuzzlePiece> puzzlePieces_, final boolean symmetryReduction_, final SolverStats stats_) {
+		_puzzlePieces = puzzlePieces_;
+		_stats = stats_;
+		_recorder = stats_.createRecorder();
+		_tables = new PlacementTable[puzzlePieces_.size()];
+		_placements = new int[puzzlePieces_.size()];
+		_order = new int[puzzlePieces_.size()];
+		_cube = new Cube();
+
+		for (int i=0; i<_tables.length; i++) {
+			_tables[i] = puzzlePieces_.get(i).getPlacements();
+			_placements[i] = -1;
+		}
+
+		_reduction = symmetryReduction_ ? new SymmetryReduction(_tables) : null;
+		_propagation = CoveragePropagation.isApplicable(_tables) ? new CoveragePropagation(_tables, _tables.length) : null;
+
+		int anchor = _reduction != null ? _reduction.getAnchor() : -1;
+		int position = 0;
+		if (anchor >= 0) {
+			_order[position++] = anchor;
+		}
+		for (int i=0; i<_tables.length; i++) {
+			if (i != anchor) {
+				_order[position++] = i;
+			}
+		}
+
+		_suffixBricks = new int[_tables.length + 1];
+		for (int depth=_tables.length-1; depth>=0; depth--) {
+			PlacementTable table = _tables[_order[depth]];
+			_suffixBricks[depth] = _suffixBricks[depth + 1] + Long.bitCount(table.getLow(0)) + Long.bitCount(table.getHigh(0));
+		}
+	}
+
+	/**
+	 * Creates a fork of the passed search with a copy of its current state
+	 */
+	private BacktrackingSearch(final BacktrackingSearch search_) {
+		_puzzlePieces = search_._puzzlePieces;
+		_tables = search_._tables;
+		_order = search_._order;
+		_suffixBricks = search_._suffixBricks;
+		_reduction = search_._reduction != null ? search_._reduction.copy() : null;
+		_propagation = search_._propagation != null ? search_._propagation.copy() : null;
+		_placements = search_._placements.clone();
+		_cube = (Cube)search_._cube.clone();
+		_listener = search_._listener;
+		_solutionCount = search_._solutionCount;
+		_stop = search_._stop;
+		_stats = search_._stats;
+		_recorder = _stats.createRecorder();
+		//The transposition table is not thread safe, the forks do not memoise
+	}
+
+	/**
+	 * @return A copy of the current state of the search that shares the listener, the counters and the stop flag
+	 */
+	BacktrackingSearch fork() {
+		return new BacktrackingSearch(this);
+	}
+
+	/**
+	 * Sets the receiver of the solutions of enumerate()
+	 */
+	void setListener(final ISolutionListener listener_) {
+		_listener = listener_;
+	}
+
+	/**
+	 * Sets the memory of the failed states of findFirst(), it is cleared and it must not be used by an other search.
+	 * The state of the search must be the initial one.
+	 */
+	void setTranspositionTable(final TranspositionTable transpositions_) {
+		if (transpositions_ != null && !TranspositionTable.isApplicable(_tables.length)) {
+			throw new IllegalArgumentException("Too many pieces for the transposition table: " + _tables.length);
+		}
+		_transpositions = transpositions_;
+		if (transpositions_ == null) {
+			return;
+		}
+		transpositions_.clear();
+		initHash();
+	}
+
+	/**
+	 * Sets the memory of the solution counts of count(), it is cleared and it must not be used by an other search.
+	 * The state of the search must be the initial one, the symmetry reduction can not be used.
+	 */
+	void setCountTable(final CountTable counts_) {
+		if (counts_ != null && !TranspositionTable.isApplicable(_tables.length)) {
+			throw new IllegalArgumentException("Too many pieces for the count table: " + _tables.length);
+		}
+		if (counts_ != null && _reduction != null) {
+			throw new IllegalStateException("The counts of the symmetry reduced search can not be memoised");
+		}
+		_counts = counts_;
+		if (counts_ == null) {
+			return;
+		}
+		counts_.clear();
+		initHash();
+	}
+
+	/**
+	 * Starts maintaining the Zobrist hash and the remaining pieces of the initial state
+	 */
+	private void initHash() {
+		if (_placementKeys == null) {
+			_placementKeys = new long[_tables.length][];
+			for (int piece=0; piece<_tables.length; piece++) {
+				_placementKeys[piece] = TranspositionTable.getPlacementKeys(_tables[piece]);
+			}
+		}
+		_hash = TranspositionTable.getInitialHash(_tables.length);
+		_remaining = _tables.length == Long.SIZE ? -1L : (1L << _tables.length) - 1;
+	}
+
+	/**
+	 * Sets the cooperative stop and the progress reporting of findFirst(), null if the search runs to the end
+	 */
+	void setControl(final SearchControl control_) {
+		_control = control_;
+	}
+
+	/**
+	 * Requests all the forks of the search to stop
+	 */
+	void stop() {
+		_stop.set(true);
+	}
+
+	/**
+	 * @return true if the search was stopped
+	 */
+	boolean isStopped() {
+		return _stop.get();
+	}
+
+	/**
+	 * @return Number of the solutions passed to the listener by the search and its forks
+	 */
+	long getSolutionCount() {
+		return _solutionCount.get();
+	}
+
+	/**
+	 * Adds the local counters of this fork to the shared SolverStats
+	 */
+	void flushStats() {
+		_recorder.flush();
+	}
+
+	/**
+	 * @return Number of the pieces - the depth of the search
+	 */
+	int getPieceCount() {
+		return _tables.length;
+	}
+
+	/**
+	 * Searches for the first solution
+	 * @return true if a solution was found - the placements are available via getPlacement()
+	 */
+	boolean findFirst() {
+		boolean result = findFirst(0);
+		flushStats();
+		return result;
+	}
+
+	/**
+	 * Enumerates all the solutions.
+	 *
+	 * @param listener_ - receiver of the solutions, it can stop the enumeration
+	 * @return the number of the solutions passed to the listener
+	 */
+	long enumerate(final ISolutionListener listener_) {
+		setListener(listener_);
+		enumerate(0);
+		flushStats();
+		return getSolutionCount();
+	}
+
+	/**
+	 * Counts all the solutions without creating them.
+	 *
+	 * With the symmetry reduction the classes are counted by orbit size at the leaves and every class adds
+	 * its orbit size times the permutations of its identical pieces to the total. Without it the counts
+	 * of the states are memoised (see setCountTable()) and, if every piece is placed in every solution, only
+	 * the first placement of the first piece is explored: the symmetries of the cube map these solutions
+	 * one to one onto the solutions with any other distinct placement of the piece.
+	 *
+	 * @return the number of the solutions and, with the symmetry reduction, of the classes
+	 */
+	SolutionCount count() {
+		_classCounts = _reduction != null ? new long[CubeSymmetry.COUNT + 1] : null;
+		_countImages = _reduction == null && _tables.length > 0 && isEveryPiecePlaced();
+		long solutionCount = count(0);
+		flushStats();
+		return new SolutionCount(solutionCount, _classCounts);
+	}
+
+	/**
+	 * @return true if the pieces do not have more bricks than the cube, so the cube is emptied by the last piece only
+	 */
+	private boolean isEveryPiecePlaced() {
+		int brickCount = 0;
+		for (PlacementTable table : _tables) {
+			brickCount += Long.bitCount(table.getLow(0)) + Long.bitCount(table.getHigh(0));
+		}
+		return brickCount <= Bitboard.CELL_COUNT;
+	}
+
+	/**
+	 * @return The placement index of the requested piece in the solution, -1 if the piece was not needed
+	 */
+	int getPlacement(final int pieceIdx_) {
+		return _placements[pieceIdx_];
+	}
+
+	/**
+	 * @return Copy of the placement indexes of the pieces
+	 */
+	int[] getPlacements() {
+		return _placements.clone();
+	}
+
+	/**
+	 * @return The cube with the bricks that were not covered by the placed pieces
+	 */
+	Cube getCube() {
+		return _cube;
+	}
+
+	/**
+	 * @return true if the search ends at the passed level - the cube is empty or all the pieces are placed
+	 */
+	boolean isLeaf(final int depth_) {
+		return depth_ == _tables.length || _cube.isEmpty();
+	}
+
+	/**
+	 * @return Number of the placements of the piece that is placed on the passed level
+	 */
+	int getPlacementCount(final int depth_) {
+		return _tables[_order[depth_]].size();
+	}
+
+	/**
+	 * Places the piece of the passed level if the placement fits into the cube
+	 * and the remaining pieces can still cover the corners and the edges
+	 *
+	 * @param depth_ - level of the search
+	 * @param placement_ - index of the placement
+	 * @return true if the piece was placed
+	 */
+	boolean place(final int depth_, final int placement_) {
+		int piece = _order[depth_];
+
+		if (!_tables[piece].isDistinct(placement_)) {
+			return false;
+		}
+		if (_propagation != null && !_propagation.isLive(depth_, piece, placement_)) {
+			return false;
+		}
+		if (_reduction != null && (_reduction.followsLeftOutTwin(piece, _placements) || !_reduction.isAllowed(piece, placement_, _placements))) {
+			return false;
+		}
+		_recorder.placement();
+		if (!_cube.extract(_tables[piece], placement_)) {
+			_recorder.failedExtraction();
+			return false;
+		}
+		_placements[piece] = placement_;
+		
+		if (_propagation != null && !_propagation.propagate(depth_ + 1, _cube, _placements)) {
+			_recorder.pruned();
+			_placements[piece] = -1;
+			_cube.restore(_tables[piece], placement_);
+			return false;
+		}
+		if (_placementKeys != null) {
+			_hash ^= TranspositionTable.getPieceKey(piece) ^ _placementKeys[piece][placement_];
+			_remaining &= ~(1L << piece);
+		}
+		return true;
+	}
+
+	/**
+	 * Undoes a successful place(depth_, placement_) call
+	 */
+	void unplace(final int depth_, final int placement_) {
+		int piece = _order[depth_];
+		_recorder.backtrack();
+		_placements[piece] = -1;
+		_cube.restore(_tables[piece], placement_);
+		if (_placementKeys != null) {
+			_hash ^= TranspositionTable.getPieceKey(piece) ^ _placementKeys[piece][placement_];
+			_remaining |= 1L << piece;
+		}
+	}
+
+	/**
+	 * @return true if the piece of the passed level can be left out: the pieces after it have enough bricks to cover the uncovered cells
+	 */
+	boolean canSkip(final int depth_) {
+		return _suffixBricks[depth_ + 1] >= _cube.size();
+	}
+
+	/**
+	 * Leaves out the piece of the passed level - see canSkip()
+	 */
+	void skip(final int depth_) {
+		int piece = _order[depth_];
+		if (_placementKeys != null) {
+			_hash ^= TranspositionTable.getPieceKey(piece);
+			_remaining &= ~(1L << piece);
+		}
+	}
+
+	/**
+	 * Undoes a skip(depth_) call
+	 */
+	void unskip(final int depth_) {
+		int piece = _order[depth_];
+		if (_placementKeys != null) {
+			_hash ^= TranspositionTable.getPieceKey(piece);
+			_remaining |= 1L << piece;
+		}
+	}
+
+	/**
+	 * Recursive step of the search for the first solution
+	 * @param depth_ - level of the search
+	 * @return true if the search succeeded - the state of the successful branch is kept
+	 */
+	boolean findFirst(final int depth_) {
+
+		_recorder.node(depth_);
+		if (isLeaf(depth_)) {
+			return true;
+		}
+		if (_control != null && !_control.node(depth_)) {
+			stop();
+			return false;
+		}
+		if (_transpositions != null && _transpositions.contains(_hash, _cube.getOccupancyLow(), _cube.getOccupancyHigh(), _remaining)) {
+			_recorder.transpositionHit();
+			return false;
+		}
+
+		long start = _recorder.startTiming();
+		long firstNode = _nodeCount++;
+		int count = getPlacementCount(depth_);
+		boolean result = false;
+
+		for (int i=0; i<count && !result && !_stop.get(); i++) {
+			if (!place(depth_, i)) {
+				continue;
+			}
+			if (_control != null) {
+				_control.branch(depth_, i, count);
+			}
+
+			result = findFirst(depth_ + 1);
+
+			if (!result) {
+				unplace(depth_, i);
+			}
+		}
+
+		if (!result && !_stop.get() && canSkip(depth_)) {
+			skip(depth_);
+			result = findFirst(depth_ + 1);
+			if (!result) {
+				unskip(depth_);
+			}
+		}
+
+		//A stopped subtree is not proven to fail
+		if (!result && _transpositions != null && !_stop.get()) {
+			_transpositions.store(_hash, _cube.getOccupancyLow(), _cube.getOccupancyHigh(), _remaining, _nodeCount - firstNode);
+		}
+
+		_recorder.stopTiming(depth_, start);
+		return result;
+	}
+
+	/**
+	 * Recursive step of the enumeration
+	 * @param depth_ - level of the search
+	 * @return false if the enumeration was stopped
+	 */
+	boolean enumerate(final int depth_) {
+
+		_recorder.node(depth_);
+		if (isLeaf(depth_)) {
+			int orbitSize = _reduction != null ? _reduction.getOrbitSize(_placements) : 1;
+			if (orbitSize == 0) {
+				return true;
+			}
+			//The forks deliver the solutions one by one and not after the enumeration was stopped
+			synchronized (_solutionCount) {
+				if (_stop.get()) {
+					return false;
+				}
+				_solutionCount.incrementAndGet();
+				if (!_listener.onSolution(new Solution(_puzzlePieces, _placements, orbitSize))) {
+					stop();
+				}
+			}
+			return !_stop.get();
+		}
+
+		long start = _recorder.startTiming();
+		int count = getPlacementCount(depth_);
+
+		for (int i=0; i<count && !_stop.get(); i++) {
+			if (!place(depth_, i)) {
+				continue;
+			}
+
+			enumerate(depth_ + 1);
+
+			unplace(depth_, i);
+		}
+
+		if (!_stop.get() && canSkip(depth_)) {
+			skip(depth_);
+			enumerate(depth_ + 1);
+			unskip(depth_);
+		}
+
+		_recorder.stopTiming(depth_, start);
+		return !_stop.get();
+	}
+
+	/**
+	 * Recursive step of count()
+	 * @param depth_ - level of the search
+	 * @return the number of the solutions of the subtree, the orbit sizes of the classes times the twin permutations with the symmetry reduction
+	 */
+	long count(final int depth_) {
+
+		_recorder.node(depth_);
+		if (isLeaf(depth_)) {
+			if (_reduction == null) {
+				return 1;
+			}
+			int orbitSize = _reduction.getOrbitSize(_placements);
+			if (orbitSize == 0) {
+				return 0;
+			}
+			_classCounts[orbitSize]++;
+			return orbitSize * _reduction.getTwinPermutationCount(_placements);
+		}
+		if (_counts != null) {
+			long stored = _counts.get(_hash, _cube.getOccupancyLow(), _cube.getOccupancyHigh(), _remaining);
+			if (stored >= 0) {
+				_recorder.transpositionHit();
+				return stored;
+			}
+		}
+
+		long start = _recorder.startTiming();
+		boolean images = _countImages && depth_ == 0;
+		int count = images ? 1 : getPlacementCount(depth_);
+		long result = 0;
+
+		for (int i=0; i<count; i++) {
+			if (!place(depth_, i)) {
+				continue;
+			}
+
+			result += count(depth_ + 1);
+
+			unplace(depth_, i);
+		}
+
+		if (canSkip(depth_)) {
+			skip(depth_);
+			result += count(depth_ + 1);
+			unskip(depth_);
+		}
+
+		if (images) {
+			result *= _tables[_order[0]].getDistinctCount();
+		}
+		if (_counts != null) {
+			_counts.store(_hash, _cube.getOccupancyLow(), _cube.getOccupancyHigh(), _remaining, result);
+		}
+
+		_recorder.stopTiming(depth_, start);
+		return result;
+	}
+}
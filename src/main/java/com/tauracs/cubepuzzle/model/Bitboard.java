@@ -0,0 +1,180 @@
+package com.tauracs.cubepuzzle.model;
+
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Bit index of the surface cells of the cube.
+ *
+ * Every brick that can belong to a Shape lies on the surface of the cube, so
+ * each surface cell gets a bit. The bits are assigned in z, y, x order and
+ * packed into two longs: 'low' holds bits 0..63 and 'high' holds the rest.
+ *
+ */
+public final class Bitboard {
+
+	/**
+	 * Number of the cells on the surface of the cube
+	 */
+	final static public int CELL_COUNT;
+
+	/**
+	 * Mask of the 'low' word with all the surface cells set
+	 */
+	final static public long FULL_LOW;
+
+	/**
+	 * Mask of the 'high' word with all the surface cells set
+	 */
+	final static public long FULL_HIGH;
+
+	/**
+	 * Bit index of the grid cells, -1 for the cells inside the cube
+	 */
+	final static private int[] INDEX = new int[Dimensions.CUBE_EDGE_SIZE * Dimensions.CUBE_EDGE_SIZE * Dimensions.CUBE_EDGE_SIZE];
+
+	/**
+	 * Coordinates of the surface cells by bit index
+	 */
+	final static private int[] CELL_X;
+	final static private int[] CELL_Y;
+	final static private int[] CELL_Z;
+
+	static {
+		int count = 0;
+		for (int z=0; z< Dimensions.CUBE_EDGE_SIZE; z++) {
+			for (int y=0; y< Dimensions.CUBE_EDGE_SIZE; y++) {
+				for (int x=0; x< Dimensions.CUBE_EDGE_SIZE; x++) {
+					INDEX[gridIndex(x, y, z)] = isOnSurface(x, y, z) ? count++ : -1;
+				}
+			}
+		}
+
+		CELL_COUNT = count;
+		CELL_X = new int[count];
+		CELL_Y = new int[count];
+		CELL_Z = new int[count];
+
+		long low = 0;
+		long high = 0;
+		for (int z=0; z< Dimensions.CUBE_EDGE_SIZE; z++) {
+			for (int y=0; y< Dimensions.CUBE_EDGE_SIZE; y++) {
+				for (int x=0; x< Dimensions.CUBE_EDGE_SIZE; x++) {
+					int index = INDEX[gridIndex(x, y, z)];
+					if (index >= 0) {
+						CELL_X[index] = x;
+						CELL_Y[index] = y;
+						CELL_Z[index] = z;
+						low |= lowBit(index);
+						high |= highBit(index);
+					}
+				}
+			}
+		}
+		FULL_LOW = low;
+		FULL_HIGH = high;
+	}
+
+	private Bitboard() {
+	}
+
+	private static int gridIndex(final int x_, final int y_, final int z_) {
+		return (z_ * Dimensions.CUBE_EDGE_SIZE + y_) * Dimensions.CUBE_EDGE_SIZE + x_;
+	}
+
+	/**
+	 * @return true if the passed coordinates are on one of the sides of the cube
+	 */
+	public static boolean isOnSurface(final int x_, final int y_, final int z_) {
+		return (x_ == 0 || x_ == Dimensions.MAX_COORD)
+				||
+			   (y_ == 0 || y_ == Dimensions.MAX_COORD)
+			    ||
+			   (z_ == 0 || z_ == Dimensions.MAX_COORD);
+	}
+
+	/**
+	 * Returns the bit index of the passed coordinates
+	 *
+	 * @param x_ The X coordinate
+	 * @param y_ The Y coordinate
+	 * @param z_ The Z coordinate
+	 * @return the bit index or -1 if the cell is inside the cube
+	 */
+	public static int indexOf(final int x_, final int y_, final int z_) {
+		Dimensions.validateCoords(x_, y_, z_);
+		return INDEX[gridIndex(x_, y_, z_)];
+	}
+
+	/**
+	 * @return The X coordinate of the cell with the passed bit index
+	 */
+	public static int getX(final int index_) {
+		return CELL_X[index_];
+	}
+
+	/**
+	 * @return The Y coordinate of the cell with the passed bit index
+	 */
+	public static int getY(final int index_) {
+		return CELL_Y[index_];
+	}
+
+	/**
+	 * @return The Z coordinate of the cell with the passed bit index
+	 */
+	public static int getZ(final int index_) {
+		return CELL_Z[index_];
+	}
+
+	/**
+	 * @return The bit index of the center cell of the requested side
+	 */
+	public static int getCenterIndex(final Side side_) {
+		int center = Dimensions.MAX_COORD / 2;
+		switch (side_) {
+		case FRONT: return indexOf(center, center, 0);
+		case BACK: return indexOf(center, center, Dimensions.MAX_COORD);
+		case LEFT: return indexOf(0, center, center);
+		case RIGHT: return indexOf(Dimensions.MAX_COORD, center, center);
+		case TOP: return indexOf(center, 0, center);
+		case BOTTOM: return indexOf(center, Dimensions.MAX_COORD, center);
+		default: return -1;
+		}
+	}
+
+	/**
+	 * Returns the side whose center cell is covered by the passed masks
+	 * @param low_ - occupancy bits 0..63 
+	 * @param high_ - occupancy bits 64..
+	 * @return the side or null if no center cell is covered
+	 */
+	public static Side getSide(final long low_, final long high_) {
+		for (Side side : Side.values()) {
+			if (isSet(low_, high_, getCenterIndex(side))) {
+				return side;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return The 'low' word mask of the passed bit index (0 if the bit is in the 'high' word)
+	 */
+	public static long lowBit(final int index_) {
+		return index_ < Long.SIZE ? 1L << index_ : 0L;
+	}
+
+	/**
+	 * @return The 'high' word mask of the passed bit index (0 if the bit is in the 'low' word)
+	 */
+	public static long highBit(final int index_) {
+		return index_ < Long.SIZE ? 0L : 1L << (index_ - Long.SIZE);
+	}
+
+	/**
+	 * @return true if the bit with the passed index is set in the low/high pair
+	 */
+	public static boolean isSet(final long low_, final long high_, final int index_) {
+		return (low_ & lowBit(index_)) != 0 || (high_ & highBit(index_)) != 0;
+	}
+}
@@ -0,0 +1,101 @@
+package com.tauracs.cubepuzzle.model;
+
+/**
+ * Helper methods of the multi-word occupancy masks used by CubeGeometry.
+ *
+ * A mask is a run of longs in an array: bit I is bit (I % 64) of word (I / 64).
+ * The methods take the array and the index of the first word, so the masks of a
+ * placement table can be stored in one flat array.
+ *
+ */
+public final class Bitset {
+	
+	private Bitset() {
+	}
+	
+	/**
+	 * @return Number of the longs needed for the passed number of bits
+	 */
+	public static int getWordCount(final int bitCount_) {
+		return (bitCount_ + Long.SIZE - 1) / Long.SIZE;
+	}
+	
+	public static void set(final long[] mask_, final int offset_, final int index_) {
+		mask_[offset_ + index_ / Long.SIZE] |= 1L << (index_ % Long.SIZE);
+	}
+	
+	public static boolean isSet(final long[] mask_, final int offset_, final int index_) {
+		return (mask_[offset_ + index_ / Long.SIZE] & (1L << (index_ % Long.SIZE))) != 0;
+	}
+	
+	public static void clear(final long[] mask_, final int offset_, final int wordCount_) {
+		for (int word=0; word<wordCount_; word++) {
+			mask_[offset_ + word] = 0;
+		}
+	}
+	
+	/**
+	 * @return true if no bit is set in the mask
+	 */
+	public static boolean isEmpty(final long[] mask_, final int offset_, final int wordCount_) {
+		for (int word=0; word<wordCount_; word++) {
+			if (mask_[offset_ + word] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return Number of the set bits
+	 */
+	public static int cardinality(final long[] mask_, final int offset_, final int wordCount_) {
+		int result = 0;
+		for (int word=0; word<wordCount_; word++) {
+			result += Long.bitCount(mask_[offset_ + word]);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return true if the two masks have the same bits
+	 */
+	public static boolean equals(final long[] mask1_, final int offset1_, final long[] mask2_, final int offset2_, final int wordCount_) {
+		for (int word=0; word<wordCount_; word++) {
+			if (mask1_[offset1_ + word] != mask2_[offset2_ + word]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return true if all the bits of the second mask are set in the first one
+	 */
+	public static boolean containsAll(final long[] mask_, final int offset_, final long[] other_, final int otherOffset_, final int wordCount_) {
+		for (int word=0; word<wordCount_; word++) {
+			if ((other_[otherOffset_ + word] & ~mask_[offset_ + word]) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Clears the bits of the second mask in the first one
+	 */
+	public static void andNot(final long[] mask_, final int offset_, final long[] other_, final int otherOffset_, final int wordCount_) {
+		for (int word=0; word<wordCount_; word++) {
+			mask_[offset_ + word] &= ~other_[otherOffset_ + word];
+		}
+	}
+	
+	/**
+	 * Sets the bits of the second mask in the first one
+	 */
+	public static void or(final long[] mask_, final int offset_, final long[] other_, final int otherOffset_, final int wordCount_) {
+		for (int word=0; word<wordCount_; word++) {
+			mask_[offset_ + word] |= other_[otherOffset_ + word];
+		}
+	}
+}
@@ -1,6 +1,5 @@
 package com.tauracs.cubepuzzle.model;
 
-import java.util.logging.Logger;
 import com.tauracs.cubepuzzle.model.Dimensions;
 import com.tauracs.cubepuzzle.model.enums.CoordAxis;
 import com.tauracs.cubepuzzle.model.enums.Direction;
@@ -8,10 +7,14 @@ import com.tauracs.cubepuzzle.model.enums.Side;
 import com.tauracs.cubepuzzle.model.interfaces.IBrick;
 
 /**
- * A building block of various shapes
+ * A building block of various shapes.
+ *
+ * Bricks are immutable flyweights: there is one instance per cell of the cube grid, identified
+ * by the packed index of its coordinates (see valueOf() and getIndex()). The rotations return the
+ * brick of the target cell, they are looked up in the tables of CellPermutation and never allocate.
  *
  */
-public class Brick implements IBrick {
+public final class Brick implements IBrick {
 	/**
 	 * UTF-8 marker of an empty block 
 	 */
@@ -22,33 +25,79 @@ public class Brick implements IBrick {
 	 */
 	public final static char BRICK_MARKER = '1';
 	
+	final static private int EDGE = Dimensions.CUBE_EDGE_SIZE;
+	
+	/**
+	 * Number of the cells of the grid
+	 */
+	final static public int COUNT = EDGE * EDGE * EDGE;
+	
+	/**
+	 * The instances by packed index
+	 */
+	final static private Brick[] BRICKS = new Brick[COUNT];
+	
+	static {
+		for (int z=0; z<EDGE; z++) {
+			for (int y=0; y<EDGE; y++) {
+				for (int x=0; x<EDGE; x++) {
+					BRICKS[pack(x, y, z)] = new Brick(x, y, z);
+				}
+			}
+		}
+	}
+	
 	/**
 	 * The X coordinate of the current item - 0 is Top-Front edge of the cube
 	 */
-	protected int _x;
+	private final int _x;
 	
 	/**
 	 * The Y coordinate of the current item - 0 is Left-Front edge of the cube
 	 */
-	protected int _y;
+	private final int _y;
 	
 	/**
 	 * The Z coordinate of the current item - 0 is Top-Left edge of the cube
 	 */
-	protected int _z;
+	private final int _z;
 	
 	/**
-	 * Creates a building block
+	 * Packed index of the coordinates
+	 */
+	private final int _index;
+	
+	private Brick(final int x_, final  int y_,final  int z_) {
+		_x = x_;
+		_y = y_;
+		_z = z_;
+		_index = pack(x_, y_, z_);
+	}
+	
+	private static int pack(final int x_, final int y_, final int z_) {
+		return (z_ * EDGE + y_) * EDGE + x_;
+	}
+	
+	/**
+	 * Returns the building block of the passed coordinates
 	 * 
 	 * @param x_ The X coordinate of the current item - 0 is Top-Front edge of the cube
 	 * @param y_ The Y coordinate of the current item - 0 is Left-Front edge of the cube
 	 * @param z_ The Z coordinate of the current item - 0 is Top-Left edge of the cube
 	 */
-	public Brick(final int x_, final  int y_,final  int z_) {
-		Dimensions.validateCoords(x_, y_, z_);			
-		_x = x_;
-		_y = y_;
-		_z = z_;		
+	public static Brick valueOf(final int x_, final  int y_,final  int z_) {
+		Dimensions.validateCoords(x_, y_, z_);
+		return BRICKS[pack(x_, y_, z_)];
+	}
+	
+	/**
+	 * @return The building block of the passed packed index - see getIndex()
+	 */
+	public static Brick valueOf(final int index_) {
+		if (index_ < 0 || index_ >= COUNT) {
+			throw new IllegalArgumentException(String.format("index_ arg should be btw 0 and %s", COUNT - 1));
+		}
+		return BRICKS[index_];
 	}
 	
 	/**
@@ -72,6 +121,13 @@ public class Brick implements IBrick {
 		return _z;
 	}
 	
+	/**
+	 * @return The packed index of the coordinates: (Z * edge size + Y) * edge size + X
+	 */
+	public int getIndex() {
+		return _index;
+	}
+	
 	/**
 	 * String representation of the current entity
 	 */
@@ -80,158 +136,47 @@ public class Brick implements IBrick {
 		return String.format("X:%s, Y:%s, Z:%s, ",_x,_y,_z);
 	}
 	
-
 	/**
-	 * equality check
+	 * equality check - there is one instance per cell, but the check does not depend on it
 	 */
 	@Override
 	public boolean equals(final Object obj) {
-		boolean result;		
-		try{
-			Brick other = (Brick)obj;
-			
-			if (this._x != other._x
-					||
-					this._y != other._y
-					||
-					this._z != other._z
-					) {
-				result = false;
-			}
-			else{
-				result = true;
-			}
-		}
-		catch(Exception e) {
-			result = false;
-		}
-		return result; 
+		return obj == this || (obj instanceof Brick && ((Brick)obj)._index == _index);
+	}
+	
+	@Override
+	public int hashCode() {
+		return _index;
 	}
 	
 	/**
-	 * Rotates the current prick around the passed axis_ of the parent shape
+	 * Rotates the current brick around the passed axis_ of the parent shape
 	 * 
 	 * @param axis_ The axis of the rotation
 	 * @param amount_ How many times 90°s are rotated, negative value means clockwise rotation
+	 * @return the brick of the target cell
 	 */
-	public void rotateAroundShapeAxis(final CoordAxis axis_,final int amount_) {
-		
-		String original = this.toString();
-		
-		boolean clockwise = amount_<0;
-		int i_ = Math.abs(amount_);
-		
-		for (int idx=0; idx<i_;idx++) {
-			int newX=_x;
-			int newY=_y;
-			int newZ=_z;
-			
-			switch (axis_) {
-			case Z:
-				if (clockwise) {
-					newX = Dimensions.MAX_COORD - _y;
-					newY = _x;
-				}else{
-					newX = _y;
-					newY = Dimensions.MAX_COORD - _x;
-				}		
-				break;
-				
-			case X:
-				if (clockwise) {
-					newZ = _y;
-					newY = Dimensions.MAX_COORD - _z;
-				}else{
-					newZ = Dimensions.MAX_COORD - _y;
-					newY = _z;
-				}		
-				break;
-				
-			case Y:
-				if (clockwise) {
-					newX = Dimensions.MAX_COORD - _z;
-					newZ = _x;
-				}else{
-					newX = _z;
-					newZ = Dimensions.MAX_COORD - _x;
-				}
-				break;
-	
-			default:
-				break;
-			}
-			
-			_x = newX;
-			_y = newY;
-			_z = newZ;
-		}
-		
-		Logger.getGlobal().info(String.format("Brick '%s' Rotated %s times --> '%s' side\n", original, i_, this.toString()  ));
-		
+	public Brick rotateAroundShapeAxis(final CoordAxis axis_,final int amount_) {
+		return BRICKS[CellPermutation.rotation(axis_, amount_).getTarget(_index)];
 	}
 	
-		
 	/**
-	 * Helper method that 
+	 * Rotates the current brick clockwise around the passed axis_ of the parent shape
 	 * 
 	 * @param direction_
+	 * @return the brick of the target cell
 	 */
-	public void rotateAroundShapeAxis(final CoordAxis axis_,final Direction direction_) {
-		
-		switch (direction_) {
-		case ROTATED_90:
-			this.rotateAroundShapeAxis(axis_, -1);			
-			break;
-			
-		case ROTATED_180:
-			this.rotateAroundShapeAxis(axis_, -2);
-			break;
-			
-		case ROTATED_270:
-			this.rotateAroundShapeAxis(axis_, -3);
-			break;
-
-		default:
-			break;
-		}
+	public Brick rotateAroundShapeAxis(final CoordAxis axis_,final Direction direction_) {
+		return BRICKS[CellPermutation.rotation(axis_, direction_).getTarget(_index)];
 	}
 	
-	public void moveToSideFromFront(Side side_) {
+	/**
+	 * @return the brick of the target cell when the FRONT side is moved to the passed side
+	 */
+	public Brick moveToSideFromFront(Side side_) {
 		if (this.getZ() != 0) {
 			throw new UnsupportedOperationException("The current operation  only items on the Front side of the shape(Z > 0)");
 		}
-		switch (side_) {
-		case FRONT:
-			break;
-			
-		case BACK:
-			rotateAroundShapeAxis(CoordAxis.Y, -2);
-			break;
-			
-		case LEFT:
-			rotateAroundShapeAxis(CoordAxis.Y, 1);
-			break;
-
-		case RIGHT:
-			rotateAroundShapeAxis(CoordAxis.Y, -1);
-			break;
-			
-		case TOP:
-			rotateAroundShapeAxis(CoordAxis.X, 1);
-			break;
-			
-		case BOTTOM:
-			rotateAroundShapeAxis(CoordAxis.X, -1);
-			break;
-			
-		default:
-			break;
-		}
-		
-	}
-
-	
-	public Brick clone() {
-		return new Brick(getX(), getY(), getZ());
+		return BRICKS[CellPermutation.sideMove(side_).getTarget(_index)];
 	}
 }
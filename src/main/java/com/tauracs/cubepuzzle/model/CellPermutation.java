@@ -0,0 +1,204 @@
+package com.tauracs.cubepuzzle.model;
+
+import com.tauracs.cubepuzzle.model.enums.CoordAxis;
+import com.tauracs.cubepuzzle.model.enums.Direction;
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Immutable permutation of the cells of the cube grid describing a rigid transform of the cube.
+ *
+ * The cells are identified by their packed index (see Brick.getIndex()), the surface cells by
+ * their bit index as well (see Bitboard) - the rotations map the surface onto itself.
+ * The quarter turns around the axes and the side moves of moveToSideFromFront() are precomputed,
+ * a transform made of several steps is composed into a single permutation with then().
+ *
+ */
+public final class CellPermutation {
+
+	final static private int EDGE = Dimensions.CUBE_EDGE_SIZE;
+
+	final static private int GRID_SIZE = EDGE * EDGE * EDGE;
+
+	final static private CoordAxis[] AXES = CoordAxis.values();
+
+	final static private Side[] SIDES = Side.values();
+
+	final static public CellPermutation IDENTITY;
+
+	/**
+	 * Counterclockwise rotations: [axis][number of quarter turns]
+	 */
+	final static private CellPermutation[][] ROTATIONS = new CellPermutation[AXES.length][4];
+
+	/**
+	 * Moves from the FRONT side to the side: [side]
+	 */
+	final static private CellPermutation[] SIDE_MOVES = new CellPermutation[SIDES.length];
+
+	/**
+	 * Moves from the side back to the FRONT side as the sides are printed: [side]
+	 */
+	final static private CellPermutation[] NORMALIZATIONS = new CellPermutation[SIDES.length];
+
+	/**
+	 * Placements of a layout drawn on the FRONT side: [side][direction]
+	 */
+	final static private CellPermutation[][] PLACEMENTS = new CellPermutation[SIDES.length][Direction.values().length];
+
+	static {
+		int[] identity = new int[GRID_SIZE];
+		for (int i=0; i<GRID_SIZE; i++) {
+			identity[i] = i;
+		}
+		IDENTITY = new CellPermutation(identity);
+
+		for (CoordAxis axis : AXES) {
+			int[] quarterTurn = new int[GRID_SIZE];
+			for (int z=0; z<EDGE; z++) {
+				for (int y=0; y<EDGE; y++) {
+					for (int x=0; x<EDGE; x++) {
+						switch (axis) {
+						case X:
+							quarterTurn[pack(x, y, z)] = pack(x, z, Dimensions.MAX_COORD - y);
+							break;
+						case Y:
+							quarterTurn[pack(x, y, z)] = pack(z, y, Dimensions.MAX_COORD - x);
+							break;
+						default:
+							quarterTurn[pack(x, y, z)] = pack(y, Dimensions.MAX_COORD - x, z);
+							break;
+						}
+					}
+				}
+			}
+
+			ROTATIONS[axis.ordinal()][0] = IDENTITY;
+			ROTATIONS[axis.ordinal()][1] = new CellPermutation(quarterTurn);
+			for (int turns=2; turns<4; turns++) {
+				ROTATIONS[axis.ordinal()][turns] = ROTATIONS[axis.ordinal()][turns - 1].then(ROTATIONS[axis.ordinal()][1]);
+			}
+		}
+
+		SIDE_MOVES[Side.FRONT.ordinal()] = IDENTITY;
+		SIDE_MOVES[Side.BACK.ordinal()] = rotation(CoordAxis.Y, -2);
+		SIDE_MOVES[Side.LEFT.ordinal()] = rotation(CoordAxis.Y, 1);
+		SIDE_MOVES[Side.RIGHT.ordinal()] = rotation(CoordAxis.Y, -1);
+		SIDE_MOVES[Side.TOP.ordinal()] = rotation(CoordAxis.X, 1);
+		SIDE_MOVES[Side.BOTTOM.ordinal()] = rotation(CoordAxis.X, -1);
+
+		for (Side side : SIDES) {
+			NORMALIZATIONS[side.ordinal()] = SIDE_MOVES[side.ordinal()].inverse();
+			for (Direction direction : Direction.values()) {
+				PLACEMENTS[side.ordinal()][direction.ordinal()] = rotation(CoordAxis.Z, direction).then(SIDE_MOVES[side.ordinal()]);
+			}
+		}
+	}
+
+	/**
+	 * Target of the cells by packed index
+	 */
+	private final int[] _cells;
+
+	/**
+	 * Target of the surface cells by bit index
+	 */
+	private final int[] _surfaceCells;
+
+	private CellPermutation(final int[] cells_) {
+		_cells = cells_;
+		_surfaceCells = new int[Bitboard.CELL_COUNT];
+		for (int index=0; index<Bitboard.CELL_COUNT; index++) {
+			int target = _cells[pack(Bitboard.getX(index), Bitboard.getY(index), Bitboard.getZ(index))];
+			_surfaceCells[index] = Bitboard.indexOf(target % EDGE, target / EDGE % EDGE, target / (EDGE * EDGE));
+		}
+	}
+
+	private static int pack(final int x_, final int y_, final int z_) {
+		return (z_ * EDGE + y_) * EDGE + x_;
+	}
+
+	/**
+	 * @param axis_ - axis of the rotation
+	 * @param amount_ - How many times 90 degrees are rotated, negative value means clockwise rotation
+	 * @return The rotation of the cube around the axis
+	 */
+	public static CellPermutation rotation(final CoordAxis axis_, final int amount_) {
+		return ROTATIONS[axis_.ordinal()][(amount_ % 4 + 4) % 4];
+	}
+
+	/**
+	 * @return The clockwise rotation of the cube around the axis
+	 */
+	public static CellPermutation rotation(final CoordAxis axis_, final Direction direction_) {
+		switch (direction_) {
+		case ROTATED_90:
+			return rotation(axis_, -1);
+
+		case ROTATED_180:
+			return rotation(axis_, -2);
+
+		case ROTATED_270:
+			return rotation(axis_, -3);
+
+		default:
+			return IDENTITY;
+		}
+	}
+
+	/**
+	 * @return The transform moving the FRONT side to the passed side - see PuzzlePiece.moveToSideFromFront()
+	 */
+	public static CellPermutation sideMove(final Side side_) {
+		return SIDE_MOVES[side_.ordinal()];
+	}
+
+	/**
+	 * @return The transform moving the passed side to the FRONT side - see Shape.getBricksNormalized()
+	 */
+	public static CellPermutation normalization(final Side side_) {
+		return NORMALIZATIONS[side_.ordinal()];
+	}
+
+	/**
+	 * @return The transform rotating a FRONT side layout around the Z axis and moving it to the side - see PuzzlePiece.nextState()
+	 */
+	public static CellPermutation placement(final Side side_, final Direction direction_) {
+		return PLACEMENTS[side_.ordinal()][direction_.ordinal()];
+	}
+
+	/**
+	 * @return The transform applying the current one and then the passed one
+	 */
+	public CellPermutation then(final CellPermutation next_) {
+		int[] cells = new int[GRID_SIZE];
+		for (int i=0; i<GRID_SIZE; i++) {
+			cells[i] = next_._cells[_cells[i]];
+		}
+		return new CellPermutation(cells);
+	}
+
+	/**
+	 * @return The transform reverting the current one
+	 */
+	public CellPermutation inverse() {
+		int[] cells = new int[GRID_SIZE];
+		for (int i=0; i<GRID_SIZE; i++) {
+			cells[_cells[i]] = i;
+		}
+		return new CellPermutation(cells);
+	}
+
+	/**
+	 * @return The packed index of the target of the cell with the passed packed index - see Brick.getIndex()
+	 */
+	public int getTarget(final int index_) {
+		return _cells[index_];
+	}
+
+	/**
+	 * @return The bit index of the target of the surface cell with the passed bit index - see Bitboard
+	 */
+	public int getSurfaceTarget(final int index_) {
+		return _surfaceCells[index_];
+	}
+}
@@ -0,0 +1,380 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.List;
+
+/**
+ * Depth first search that branches on the most constrained cell of the cube.
+ *
+ * Every node chooses the uncovered cell with the fewest live candidates (placements of the
+ * pieces that are not placed yet and that still fit into the cube) and tries only the candidates
+ * covering it. A node fails as soon as an uncovered cell has no live candidate left, so a set of
+ * pieces that can not cover one of the cells is refuted close to the root.
+ *
+ * The live candidates are kept in an inverted index: the candidates by cell, and per candidate
+ * the number of the placed pieces blocking it (the piece itself or a covered cell). The counters
+ * of the cells and the pieces are updated incrementally when a candidate becomes blocked or free.
+ *
+ * The search is applicable when every cell has to be covered: the pieces have at least as many
+ * bricks as the cube has cells.
+ *
+ */
+final class CellSearch {
+
+	private final PlacementTable[] _tables;
+
+	/**
+	 * The live candidates covering the cells, packed as piece index * PLACEMENT_COUNT + placement index: [cell]
+	 */
+	private final int[][] _cellCandidates = new int[Bitboard.CELL_COUNT][];
+
+	/**
+	 * The cells covered by the candidates: [packed candidate]
+	 */
+	private final int[][] _candidateCells;
+
+	/**
+	 * Number of the reasons blocking the candidates, 0 for the live ones: [packed candidate]
+	 */
+	private final int[] _blocked;
+
+	/**
+	 * Number of the live candidates covering the cells
+	 */
+	private final int[] _cellCounts = new int[Bitboard.CELL_COUNT];
+
+	/**
+	 * Number of the live candidates of the pieces
+	 */
+	private final int[] _pieceCounts;
+
+	/**
+	 * true if the pieces cover the cube exactly - every piece has to be placed
+	 */
+	private final boolean _exactCover;
+
+	/**
+	 * The chosen placement index of the pieces, -1 if the piece is not placed
+	 */
+	private final int[] _placements;
+
+	private final Cube _cube = new Cube();
+
+	private final SolverStats.Recorder _recorder;
+
+	/**
+	 * Failed states, null if the states are not memoised
+	 */
+	private TranspositionTable _transpositions = null;
+
+	/**
+	 * Zobrist keys of the placements of the pieces: [piece][placement]
+	 */
+	private long[][] _placementKeys;
+
+	/**
+	 * Zobrist hash and the bitmask of the remaining pieces of the current state
+	 */
+	private long _hash;
+	private long _remaining;
+
+	/**
+	 * Number of the visited nodes - the work of the failed subtrees
+	 */
+	private long _nodeCount;
+
+	/**
+	 * Stop and progress of the search, null if the search runs to the end
+	 */
+	private SearchControl _control = null;
+
+	private boolean _stopped = false;
+
+	/**
+	 * @param puzzlePieces_ - The pieces the cube is built from, see isApplicable()
+	 * @param stats_ - Counters of the search, started by the caller
+	 */
+	CellSearch(final List<PuzzlePiece> puzzlePieces_, final SolverStats stats_) {
+		if (!isApplicable(puzzlePieces_)) {
+			throw new IllegalArgumentException("The cell search requires pieces with at least as many bricks as the cube has cells");
+		}
+
+		_tables = new PlacementTable[puzzlePieces_.size()];
+		_placements = new int[puzzlePieces_.size()];
+		_pieceCounts = new int[puzzlePieces_.size()];
+		_candidateCells = new int[_tables.length * PlacementTable.PLACEMENT_COUNT][];
+		_blocked = new int[_tables.length * PlacementTable.PLACEMENT_COUNT];
+		_recorder = stats_.createRecorder();
+
+		int brickCount = 0;
+		for (int piece=0; piece<_tables.length; piece++) {
+			PlacementTable table = puzzlePieces_.get(piece).getPlacements();
+			_tables[piece] = table;
+			_placements[piece] = -1;
+			brickCount += Long.bitCount(table.getLow(0)) + Long.bitCount(table.getHigh(0));
+
+			for (int i=0; i<table.size(); i++) {
+				int candidate = piece * PlacementTable.PLACEMENT_COUNT + i;
+				if (!table.isDistinct(i)) {
+					//The duplicates are never live
+					_blocked[candidate] = 1;
+					continue;
+				}
+				_candidateCells[candidate] = toCells(table.getLow(i), table.getHigh(i));
+				for (int cell : _candidateCells[candidate]) {
+					_cellCounts[cell]++;
+				}
+				_pieceCounts[piece]++;
+			}
+		}
+		_exactCover = brickCount == Bitboard.CELL_COUNT;
+
+		int[] filled = new int[Bitboard.CELL_COUNT];
+		for (int cell=0; cell<Bitboard.CELL_COUNT; cell++) {
+			_cellCandidates[cell] = new int[_cellCounts[cell]];
+		}
+		for (int candidate=0; candidate<_candidateCells.length; candidate++) {
+			if (_candidateCells[candidate] != null) {
+				for (int cell : _candidateCells[candidate]) {
+					_cellCandidates[cell][filled[cell]++] = candidate;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if the pieces can be resolved with the cell search: every cell has to be covered
+	 */
+	static boolean isApplicable(final List<PuzzlePiece> puzzlePieces_) {
+		int brickCount = 0;
+		for (PuzzlePiece piece : puzzlePieces_) {
+			brickCount += Long.bitCount(piece.getOccupancyLow()) + Long.bitCount(piece.getOccupancyHigh());
+		}
+		return brickCount >= Bitboard.CELL_COUNT;
+	}
+
+	/**
+	 * @return The bit indexes set in the occupancy masks
+	 */
+	private static int[] toCells(final long low_, final long high_) {
+		int[] result = new int[Long.bitCount(low_) + Long.bitCount(high_)];
+		int count = 0;
+		for (long bits = low_; bits != 0; bits &= bits - 1) {
+			result[count++] = Long.numberOfTrailingZeros(bits);
+		}
+		for (long bits = high_; bits != 0; bits &= bits - 1) {
+			result[count++] = Long.SIZE + Long.numberOfTrailingZeros(bits);
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the memory of the failed states, it is cleared and it must not be used by an other search.
+	 * The state of the search must be the initial one.
+	 */
+	void setTranspositionTable(final TranspositionTable transpositions_) {
+		if (transpositions_ != null && !TranspositionTable.isApplicable(_tables.length)) {
+			throw new IllegalArgumentException("Too many pieces for the transposition table: " + _tables.length);
+		}
+		_transpositions = transpositions_;
+		if (transpositions_ == null) {
+			return;
+		}
+		transpositions_.clear();
+		_placementKeys = new long[_tables.length][];
+		for (int piece=0; piece<_tables.length; piece++) {
+			_placementKeys[piece] = TranspositionTable.getPlacementKeys(_tables[piece]);
+		}
+		_hash = TranspositionTable.getInitialHash(_tables.length);
+		_remaining = _tables.length == Long.SIZE ? -1L : (1L << _tables.length) - 1;
+	}
+
+	/**
+	 * Sets the cooperative stop and the progress reporting of findFirst(), null if the search runs to the end
+	 */
+	void setControl(final SearchControl control_) {
+		_control = control_;
+	}
+
+	/**
+	 * Searches for the first solution
+	 * @return true if a solution was found - the placements are available via getPlacements()
+	 */
+	boolean findFirst() {
+		boolean result = search(0);
+		_recorder.flush();
+		return result;
+	}
+
+	/**
+	 * @return Copy of the placement indexes of the pieces
+	 */
+	int[] getPlacements() {
+		return _placements.clone();
+	}
+
+	/**
+	 * @return The cube with the bricks that were not covered by the placed pieces
+	 */
+	Cube getCube() {
+		return _cube;
+	}
+
+	/**
+	 * @return The uncovered cell with the fewest live candidates, -1 if a remaining piece can not be placed any more
+	 */
+	private int chooseCell() {
+		if (_exactCover) {
+			for (int piece=0; piece<_tables.length; piece++) {
+				if (_placements[piece] < 0 && _pieceCounts[piece] == 0) {
+					return -1;
+				}
+			}
+		}
+
+		int result = -1;
+		int best = Integer.MAX_VALUE;
+		for (long bits = _cube.getOccupancyLow(); bits != 0 && best > 0; bits &= bits - 1) {
+			int cell = Long.numberOfTrailingZeros(bits);
+			if (_cellCounts[cell] < best) {
+				best = _cellCounts[cell];
+				result = cell;
+			}
+		}
+		for (long bits = _cube.getOccupancyHigh(); bits != 0 && best > 0; bits &= bits - 1) {
+			int cell = Long.SIZE + Long.numberOfTrailingZeros(bits);
+			if (_cellCounts[cell] < best) {
+				best = _cellCounts[cell];
+				result = cell;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Recursive step of the search
+	 * @param depth_ - number of the placed pieces
+	 * @return true if the search succeeded - the state of the successful branch is kept
+	 */
+	private boolean search(final int depth_) {
+
+		_recorder.node(depth_);
+		if (depth_ == _tables.length || _cube.isEmpty()) {
+			return true;
+		}
+		if (_control != null && !_control.node(depth_)) {
+			_stopped = true;
+			return false;
+		}
+		if (_transpositions != null && _transpositions.contains(_hash, _cube.getOccupancyLow(), _cube.getOccupancyHigh(), _remaining)) {
+			_recorder.transpositionHit();
+			return false;
+		}
+
+		long start = _recorder.startTiming();
+		long firstNode = _nodeCount++;
+		boolean result = false;
+
+		int cell = chooseCell();
+		if (cell < 0 || _cellCounts[cell] == 0) {
+			_recorder.pruned();
+		}
+		else {
+			int[] candidates = _cellCandidates[cell];
+			for (int c=0; c<candidates.length && !result && !_stopped; c++) {
+				if (_blocked[candidates[c]] != 0) {
+					continue;
+				}
+				int piece = candidates[c] / PlacementTable.PLACEMENT_COUNT;
+				int placement = candidates[c] % PlacementTable.PLACEMENT_COUNT;
+
+				_recorder.placement();
+				if (!_cube.extract(_tables[piece], placement)) {
+					_recorder.failedExtraction();
+					continue;
+				}
+				place(piece, placement);
+				if (_control != null) {
+					_control.branch(depth_, c, candidates.length);
+				}
+
+				result = search(depth_ + 1);
+
+				if (!result) {
+					unplace(piece, placement);
+				}
+			}
+		}
+
+		//A stopped subtree is not proven to fail
+		if (!result && _transpositions != null && !_stopped) {
+			_transpositions.store(_hash, _cube.getOccupancyLow(), _cube.getOccupancyHigh(), _remaining, _nodeCount - firstNode);
+		}
+
+		_recorder.stopTiming(depth_, start);
+		return result;
+	}
+
+	/**
+	 * Records the placement extracted from the cube and blocks the candidates colliding with it
+	 */
+	private void place(final int piece_, final int placement_) {
+		_placements[piece_] = placement_;
+		updateHash(piece_, placement_);
+
+		for (int i=0; i<PlacementTable.PLACEMENT_COUNT; i++) {
+			block(piece_ * PlacementTable.PLACEMENT_COUNT + i);
+		}
+		for (int cell : _candidateCells[piece_ * PlacementTable.PLACEMENT_COUNT + placement_]) {
+			for (int candidate : _cellCandidates[cell]) {
+				block(candidate);
+			}
+		}
+	}
+
+	/**
+	 * Undoes place(piece_, placement_) and restores the bricks of the cube
+	 */
+	private void unplace(final int piece_, final int placement_) {
+		_recorder.backtrack();
+		for (int cell : _candidateCells[piece_ * PlacementTable.PLACEMENT_COUNT + placement_]) {
+			for (int candidate : _cellCandidates[cell]) {
+				unblock(candidate);
+			}
+		}
+		for (int i=0; i<PlacementTable.PLACEMENT_COUNT; i++) {
+			unblock(piece_ * PlacementTable.PLACEMENT_COUNT + i);
+		}
+
+		updateHash(piece_, placement_);
+		_placements[piece_] = -1;
+		_cube.restore(_tables[piece_], placement_);
+	}
+
+	private void block(final int candidate_) {
+		if (_blocked[candidate_]++ == 0) {
+			for (int cell : _candidateCells[candidate_]) {
+				_cellCounts[cell]--;
+			}
+			_pieceCounts[candidate_ / PlacementTable.PLACEMENT_COUNT]--;
+		}
+	}
+
+	private void unblock(final int candidate_) {
+		if (--_blocked[candidate_] == 0) {
+			for (int cell : _candidateCells[candidate_]) {
+				_cellCounts[cell]++;
+			}
+			_pieceCounts[candidate_ / PlacementTable.PLACEMENT_COUNT]++;
+		}
+	}
+
+	/**
+	 * Toggles the placement of the piece in the hash and in the remaining pieces
+	 */
+	private void updateHash(final int piece_, final int placement_) {
+		if (_transpositions != null) {
+			_hash ^= TranspositionTable.getPieceKey(piece_) ^ _placementKeys[piece_][placement_];
+			_remaining ^= 1L << piece_;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.Arrays;
+
+/**
+ * Bounded memory of the number of the solutions of the partial states of a counting search.
+ *
+ * The number of the ways the remaining pieces can finish a state depends only on the uncovered
+ * cells and the remaining pieces, so a state reached along an other path is not explored again.
+ * The states are indexed by the Zobrist hash of the search (see TranspositionTable) and compared
+ * in full. One slot per hash, the newest state replaces the stored one. The table is cleared in
+ * constant time by starting a new generation. Not thread safe.
+ *
+ */
+final class CountTable {
+
+	/**
+	 * Default number of the remembered states
+	 */
+	final static int DEFAULT_CAPACITY = 1 << 16;
+
+	private final int _mask;
+
+	/**
+	 * The stored states: uncovered cells, remaining pieces, number of the solutions and generation
+	 */
+	private final long[] _low;
+	private final long[] _high;
+	private final long[] _pieces;
+	private final long[] _counts;
+	private final int[] _generations;
+
+	private int _generation = 1;
+
+	/**
+	 * @param capacity_ - maximum number of the stored states, rounded down to a power of two
+	 */
+	CountTable(final int capacity_) {
+		if (capacity_ < 1) {
+			throw new IllegalArgumentException("capacity_ argument is too small: " + capacity_);
+		}
+		int size = Integer.highestOneBit(capacity_);
+		_mask = size - 1;
+		_low = new long[size];
+		_high = new long[size];
+		_pieces = new long[size];
+		_counts = new long[size];
+		_generations = new int[size];
+	}
+
+	/**
+	 * @return Maximum number of the stored states
+	 */
+	int getCapacity() {
+		return _low.length;
+	}
+
+	/**
+	 * Forgets all the stored states
+	 */
+	void clear() {
+		_generation++;
+		if (_generation == 0) {
+			Arrays.fill(_generations, 0);
+			_generation = 1;
+		}
+	}
+
+	/**
+	 * @return The stored number of the solutions of the state, -1 if the state is not stored
+	 */
+	long get(final long hash_, final long low_, final long high_, final long pieces_) {
+		int slot = (int)hash_ & _mask;
+		if (_generations[slot] == _generation && _low[slot] == low_ && _high[slot] == high_ && _pieces[slot] == pieces_) {
+			return _counts[slot];
+		}
+		return -1;
+	}
+
+	/**
+	 * Stores the number of the solutions of a fully explored state
+	 */
+	void store(final long hash_, final long low_, final long high_, final long pieces_, final long count_) {
+		int slot = (int)hash_ & _mask;
+		_low[slot] = low_;
+		_high[slot] = high_;
+		_pieces[slot] = pieces_;
+		_counts[slot] = count_;
+		_generations[slot] = _generation;
+	}
+}
@@ -0,0 +1,157 @@
+package com.tauracs.cubepuzzle.model;
+
+/**
+ * Forward checking of the searches that cover the cube exactly.
+ *
+ * Every corner and edge cell of the cube has to be covered by one piece. The propagation keeps
+ * the live placements of the pieces that are not placed yet (the ones that still fit into the cube)
+ * as a 48 bit mask per piece and per level of the search. After a placement the placements colliding
+ * with it are pruned and the node fails if a piece has no live placement left or an uncovered
+ * corner / edge cell has no live placement covering it.
+ *
+ */
+final class CoveragePropagation {
+	
+	/**
+	 * Bit indexes of the corner and edge cells - cells on more than one side
+	 */
+	final static private int[] CELLS;
+	
+	static {
+		int[] cells = new int[Bitboard.CELL_COUNT];
+		int count = 0;
+		for (int index=0; index<Bitboard.CELL_COUNT; index++) {
+			int sides = 0;
+			for (int coord : new int[]{Bitboard.getX(index), Bitboard.getY(index), Bitboard.getZ(index)}) {
+				if (coord == 0 || coord == Dimensions.MAX_COORD) {
+					sides++;
+				}
+			}
+			if (sides > 1) {
+				cells[count++] = index;
+			}
+		}
+		CELLS = new int[count];
+		System.arraycopy(cells, 0, CELLS, 0, count);
+	}
+	
+	private final PlacementTable[] _tables;
+	
+	/**
+	 * The placements of the pieces covering the corner and edge cells: [piece][cell]
+	 */
+	private final long[][] _coverers;
+	
+	/**
+	 * The live placements of the pieces by level: [level][piece]
+	 */
+	private final long[][] _live;
+	
+	/**
+	 * @param tables_ - Placement tables of the pieces
+	 * @param levels_ - number of the levels of the search
+	 */
+	CoveragePropagation(final PlacementTable[] tables_, final int levels_) {
+		_tables = tables_;
+		_coverers = new long[tables_.length][CELLS.length];
+		_live = new long[levels_ + 1][tables_.length];
+		
+		for (int piece=0; piece<tables_.length; piece++) {
+			PlacementTable table = tables_[piece];
+			for (int i : table.getDistinctPlacements()) {
+				_live[0][piece] |= 1L << i;
+				for (int k=0; k<CELLS.length; k++) {
+					if (Bitboard.isSet(table.getLow(i), table.getHigh(i), CELLS[k])) {
+						_coverers[piece][k] |= 1L << i;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Creates a copy sharing the tables with the passed instance and having its own live masks
+	 */
+	private CoveragePropagation(final CoveragePropagation propagation_) {
+		_tables = propagation_._tables;
+		_coverers = propagation_._coverers;
+		_live = new long[propagation_._live.length][];
+		for (int level=0; level<_live.length; level++) {
+			_live[level] = propagation_._live[level].clone();
+		}
+	}
+	
+	/**
+	 * @return A copy with the current state that can be used by an other thread
+	 */
+	CoveragePropagation copy() {
+		return new CoveragePropagation(this);
+	}
+	
+	/**
+	 * @return true if the bricks of the pieces cover the cube exactly - the propagation is applicable
+	 */
+	static boolean isApplicable(final PlacementTable[] tables_) {
+		int brickCount = 0;
+		for (PlacementTable table : tables_) {
+			brickCount += Long.bitCount(table.getLow(0)) + Long.bitCount(table.getHigh(0));
+		}
+		return brickCount == Bitboard.CELL_COUNT;
+	}
+	
+	/**
+	 * @return true if the placement of the piece is live on the passed level
+	 */
+	boolean isLive(final int level_, final int piece_, final int placement_) {
+		return (_live[level_][piece_] & (1L << placement_)) != 0;
+	}
+	
+	/**
+	 * Computes the live placements of the next level after a piece was placed
+	 *
+	 * @param level_ - the level to compute, the live placements of the previous level are filtered
+	 * @param cube_ - the cube with the uncovered cells
+	 * @param placements_ - placements of the pieces, -1 for the pieces that are not placed
+	 * @return false if the node is dead: a piece has no live placement or a corner / edge cell can not be covered
+	 */
+	boolean propagate(final int level_, final Cube cube_, final int[] placements_) {
+		long low = cube_.getOccupancyLow();
+		long high = cube_.getOccupancyHigh();
+		long[] previous = _live[level_ - 1];
+		long[] next = _live[level_];
+		
+		for (int piece=0; piece<_tables.length; piece++) {
+			if (placements_[piece] >= 0) {
+				next[piece] = 0;
+				continue;
+			}
+			
+			PlacementTable table = _tables[piece];
+			long live = 0;
+			for (long bits = previous[piece]; bits != 0; bits &= bits - 1) {
+				int i = Long.numberOfTrailingZeros(bits);
+				if ((table.getLow(i) & ~low) == 0 && (table.getHigh(i) & ~high) == 0) {
+					live |= 1L << i;
+				}
+			}
+			if (live == 0) {
+				return false;
+			}
+			next[piece] = live;
+		}
+		
+		for (int k=0; k<CELLS.length; k++) {
+			if (!Bitboard.isSet(low, high, CELLS[k])) {
+				continue;
+			}
+			boolean covered = false;
+			for (int piece=0; piece<_tables.length && !covered; piece++) {
+				covered = (next[piece] & _coverers[piece][k]) != 0;
+			}
+			if (!covered) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
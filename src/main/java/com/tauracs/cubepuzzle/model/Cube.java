@@ -3,8 +3,7 @@
  */
 package com.tauracs.cubepuzzle.model;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import com.tauracs.cubepuzzle.model.enums.Side;
 
@@ -18,21 +17,7 @@ public class Cube extends Shape {
 	 * Constructor, creates a cube which is empty inside
 	 */
 	public Cube() {
-		for (int z=0; z< Dimensions.CUBE_EDGE_SIZE; z++) {
-			for (int y=0; y< Dimensions.CUBE_EDGE_SIZE; y++) {
-				for (int x=0; x< Dimensions.CUBE_EDGE_SIZE; x++) {
-					
-					if ( (x == 0 || x == Dimensions.MAX_COORD)
-							||
-						(y == 0 || y == Dimensions.MAX_COORD)
-						    ||
-						 (z == 0 || z == Dimensions.MAX_COORD)
-							) {
-						createBrick(x, y, z);
-					}															
-				}
-			}
-		}
+		setOccupancy(Bitboard.FULL_LOW, Bitboard.FULL_HIGH);
 	}
 	
 	/**
@@ -46,39 +31,65 @@ public class Cube extends Shape {
 		if (puzzlePiece_ == null) {
 			return true;
 		}
-		Logger.getGlobal().info(String.format("Extracting '%s' puzzle piece.", puzzlePiece_.toString()));
-		
-		Set<Brick> bricksToRemove = new HashSet<Brick>();
+		boolean trace = Logger.getGlobal().isLoggable(Level.FINE);
+		if (trace) {
+			Logger.getGlobal().fine(String.format("Extracting '%s' puzzle piece.", puzzlePiece_.toString()));
+		}
 		
-		for (Brick brickOfPuzzlePiece : puzzlePiece_) {
-			Brick brickInCube = this.getBrick(brickOfPuzzlePiece.getX(), brickOfPuzzlePiece.getY(), brickOfPuzzlePiece.getZ());
-			
-			if (brickInCube == null) {
-				return false;
-			}			
-			bricksToRemove.add(brickInCube);
+		if (!contains(puzzlePiece_)) {
+			return false;
 		}
+		removeAll(puzzlePiece_);
 		
-		for (Brick brickInCube : bricksToRemove) {
-			remove(brickInCube);
-			Logger.getGlobal().info(String.format("Brick '%s' of cube destroyed.", brickInCube.toString()));
+		if (trace) {
+			Logger.getGlobal().fine(String.format("Cube: %s ", this.toString()));
 		}
 		
-		Logger.getGlobal().info(String.format("Cube: %s ", this.toString()));
+		return true;
+	}
+	
+	/**
+	 * Extracting one placement of a puzzle piece from the current Cube instance.
+	 * 
+	 * @param placements_ the placement table of the puzzle piece
+	 * @param index_ index of the placement in the table
+	 * @return true if all the building blocks of the placement are matching the blocks of cube
+	 */
+	public boolean extract(final PlacementTable placements_, final int index_) {
+		long low = placements_.getLow(index_);
+		long high = placements_.getHigh(index_);
+		
+		if (!contains(low, high)) {
+			return false;
+		}
+		removeAll(low, high);
 		
 		return true;
 	}
 	
+	/**
+	 * Undoes a successful extract(placements_, index_) call - the bricks of the placement are put back to the cube.
+	 * 
+	 * @param placements_ the placement table of the puzzle piece
+	 * @param index_ index of the placement in the table
+	 */
+	public void restore(final PlacementTable placements_, final int index_) {
+		addAll(placements_.getLow(index_), placements_.getHigh(index_));
+	}
+	
+	/**
+	 * @return true if all the building blocks were extracted from the cube
+	 */
+	public boolean isEmpty() {
+		return getOccupancyLow() == 0 && getOccupancyHigh() == 0;
+	}
+	
 	/**
 	 * Creates a Clone from the current cube
 	 */
 	public Shape clone() {
 		Cube result = new Cube();
-		result.clear();
-		
-		for (Brick brick : this) {
-			result.createBrick(brick.getX(), brick.getY(), brick.getZ());
-		}
+		result.setOccupancy(getOccupancyLow(), getOccupancyHigh());
 		
 		return result;
 	}
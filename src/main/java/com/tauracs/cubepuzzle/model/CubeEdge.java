@@ -0,0 +1,141 @@
+package com.tauracs.cubepuzzle.model;
+
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * The 12 edges of the cube. An edge is the line of cells shared by two neighbouring sides,
+ * its end cells (the corners) belong to a third side as well.
+ *
+ * The edge profile of a mask is a small integer code: bit I is set if the Ith cell of the edge
+ * (ordered by the varying coordinate) is covered. The inner cells of the edge can only be covered
+ * by the pieces of its two sides, so the inner codes of the two pieces must be complementary
+ * when the cube is covered exactly.
+ *
+ */
+public final class CubeEdge {
+	
+	/**
+	 * Number of the edges of the cube
+	 */
+	final static public int COUNT = 12;
+	
+	/**
+	 * Number of the cells of an edge
+	 */
+	final static public int LENGTH = Dimensions.CUBE_EDGE_SIZE;
+	
+	/**
+	 * Mask of the inner cells in an edge code - the corners are the lowest and the highest bit
+	 */
+	final static public int INNER_MASK = ((1 << LENGTH) - 1) & ~1 & ~(1 << (LENGTH - 1));
+	
+	/**
+	 * The two sides of the edges
+	 */
+	final static private Side[][] SIDES = new Side[COUNT][];
+	
+	/**
+	 * Bit index of the cells of the edges
+	 */
+	final static private int[][] CELLS = new int[COUNT][LENGTH];
+	
+	/**
+	 * The 4 edges of the sides
+	 */
+	final static private int[][] EDGES_OF_SIDE = new int[Side.values().length][4];
+	
+	static {
+		Side[] sides = Side.values();
+		int[] edgeCounts = new int[sides.length];
+		int edge = 0;
+		
+		for (int a=0; a<sides.length; a++) {
+			for (int b=a+1; b<sides.length; b++) {
+				if (getAxis(sides[a]) == getAxis(sides[b])) {
+					continue;
+				}
+				SIDES[edge] = new Side[]{sides[a], sides[b]};
+				
+				for (int t=0; t<LENGTH; t++) {
+					int[] coords = {t, t, t};
+					coords[getAxis(sides[a])] = getCoord(sides[a]);
+					coords[getAxis(sides[b])] = getCoord(sides[b]);
+					CELLS[edge][t] = Bitboard.indexOf(coords[0], coords[1], coords[2]);
+				}
+				
+				EDGES_OF_SIDE[a][edgeCounts[a]++] = edge;
+				EDGES_OF_SIDE[b][edgeCounts[b]++] = edge;
+				edge++;
+			}
+		}
+	}
+	
+	private CubeEdge() {
+	}
+	
+	/**
+	 * @return The axis that is fixed on the side: 0 - X, 1 - Y, 2 - Z
+	 */
+	private static int getAxis(final Side side_) {
+		switch (side_) {
+		case LEFT: case RIGHT: return 0;
+		case TOP: case BOTTOM: return 1;
+		default: return 2;
+		}
+	}
+	
+	/**
+	 * @return The value of the fixed coordinate of the side
+	 */
+	private static int getCoord(final Side side_) {
+		return side_ == Side.FRONT || side_ == Side.LEFT || side_ == Side.TOP ? 0 : Dimensions.MAX_COORD;
+	}
+	
+	/**
+	 * @return The 4 edges of the side in ascending order
+	 */
+	public static int[] getEdges(final Side side_) {
+		return EDGES_OF_SIDE[side_.ordinal()].clone();
+	}
+	
+	/**
+	 * @return The side on the other side of the edge
+	 */
+	public static Side getOtherSide(final int edge_, final Side side_) {
+		return SIDES[edge_][0] == side_ ? SIDES[edge_][1] : SIDES[edge_][0];
+	}
+	
+	/**
+	 * @return true if the side has the edge
+	 */
+	public static boolean hasSide(final int edge_, final Side side_) {
+		return SIDES[edge_][0] == side_ || SIDES[edge_][1] == side_;
+	}
+	
+	/**
+	 * @return The bit index of the Ith cell of the edge
+	 */
+	public static int getCell(final int edge_, final int i_) {
+		return CELLS[edge_][i_];
+	}
+	
+	/**
+	 * @return The edge profile of the mask: bit I is set if the Ith cell of the edge is set in the mask
+	 */
+	public static int getCode(final int edge_, final long low_, final long high_) {
+		int code = 0;
+		for (int i=0; i<LENGTH; i++) {
+			if (Bitboard.isSet(low_, high_, CELLS[edge_][i])) {
+				code |= 1 << i;
+			}
+		}
+		return code;
+	}
+	
+	/**
+	 * @return The code of the inner cells of the edge profile, shifted to bit 0
+	 */
+	public static int getInnerCode(final int code_) {
+		return (code_ & INNER_MASK) >> 1;
+	}
+}
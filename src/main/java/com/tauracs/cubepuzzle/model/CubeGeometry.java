@@ -0,0 +1,316 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Surface cell index and symmetries of a cube with a configurable edge size.
+ *
+ * This is the size independent counterpart of Bitboard and CubeSymmetry: the surface cells
+ * are numbered in z, y, x order (so the index of the 5 * 5 geometry is the same as the one of Bitboard)
+ * and the occupancy masks are multi-word bitsets (see Bitset) of getWordCount() longs.
+ *
+ * The 48 symmetries are stored as signed permutations of the axes: coordinate I of the image is
+ * coordinate getAxis(I) of the original, mirrored to the center if the axis is negated.
+ *
+ */
+public final class CubeGeometry {
+	
+	/**
+	 * Number of the symmetries of the cube
+	 */
+	final static public int SYMMETRY_COUNT = 48;
+	
+	final static private Side[] SIDES = Side.values();
+	
+	/**
+	 * The shared instances by edge size
+	 */
+	final static private CubeGeometry[] INSTANCES = new CubeGeometry[Dimensions.MAX_EDGE_SIZE + 1];
+	
+	private final int _edgeSize;
+	
+	private final int _maxCoord;
+	
+	private final int _cellCount;
+	
+	private final int _wordCount;
+	
+	/**
+	 * Bit index of the grid cells, -1 for the cells inside the cube
+	 */
+	private final int[] _index;
+	
+	/**
+	 * Coordinates of the surface cells by bit index
+	 */
+	private final int[] _x;
+	private final int[] _y;
+	private final int[] _z;
+	
+	/**
+	 * Source axis and negation of the axes of the symmetries
+	 */
+	private final int[][] _axes;
+	private final boolean[][] _negated;
+	
+	/**
+	 * Permutations of the surface cell indexes by symmetry
+	 */
+	private final int[][] _permutations;
+	
+	private CubeGeometry(final int edgeSize_) {
+		_edgeSize = edgeSize_;
+		_maxCoord = edgeSize_ - 1;
+		_index = new int[edgeSize_ * edgeSize_ * edgeSize_];
+		
+		int count = 0;
+		for (int z=0; z<edgeSize_; z++) {
+			for (int y=0; y<edgeSize_; y++) {
+				for (int x=0; x<edgeSize_; x++) {
+					_index[gridIndex(x, y, z)] = isOnSurface(x, y, z) ? count++ : -1;
+				}
+			}
+		}
+		
+		_cellCount = count;
+		_wordCount = Bitset.getWordCount(count);
+		_x = new int[count];
+		_y = new int[count];
+		_z = new int[count];
+		for (int z=0; z<edgeSize_; z++) {
+			for (int y=0; y<edgeSize_; y++) {
+				for (int x=0; x<edgeSize_; x++) {
+					int index = _index[gridIndex(x, y, z)];
+					if (index >= 0) {
+						_x[index] = x;
+						_y[index] = y;
+						_z[index] = z;
+					}
+				}
+			}
+		}
+		
+		//Closure of the generators: quarter turns around the X and the Y axis and mirroring to the YZ plane
+		int[][] generatorAxes = {{0, 2, 1}, {2, 1, 0}, {0, 1, 2}};
+		boolean[][] generatorNegated = {{false, true, false}, {true, false, false}, {true, false, false}};
+		
+		List<int[]> axes = new ArrayList<int[]>();
+		List<boolean[]> negated = new ArrayList<boolean[]>();
+		axes.add(new int[]{0, 1, 2});
+		negated.add(new boolean[3]);
+		
+		for (int i=0; i<axes.size(); i++) {
+			for (int g=0; g<generatorAxes.length; g++) {
+				int[] composedAxes = new int[3];
+				boolean[] composedNegated = new boolean[3];
+				for (int axis=0; axis<3; axis++) {
+					composedAxes[axis] = axes.get(i)[generatorAxes[g][axis]];
+					composedNegated[axis] = generatorNegated[g][axis] ^ negated.get(i)[generatorAxes[g][axis]];
+				}
+				
+				boolean known = false;
+				for (int j=0; j<axes.size() && !known; j++) {
+					known = Arrays.equals(axes.get(j), composedAxes) && Arrays.equals(negated.get(j), composedNegated);
+				}
+				if (!known) {
+					axes.add(composedAxes);
+					negated.add(composedNegated);
+				}
+			}
+		}
+		
+		if (axes.size() != SYMMETRY_COUNT) {
+			throw new IllegalStateException(String.format("%d symmetries were generated instead of %d", axes.size(), SYMMETRY_COUNT));
+		}
+		
+		_axes = axes.toArray(new int[SYMMETRY_COUNT][]);
+		_negated = negated.toArray(new boolean[SYMMETRY_COUNT][]);
+		_permutations = new int[SYMMETRY_COUNT][count];
+		
+		int[] coords = new int[3];
+		for (int symmetry=0; symmetry<SYMMETRY_COUNT; symmetry++) {
+			for (int index=0; index<count; index++) {
+				transformCoords(symmetry, _x[index], _y[index], _z[index], _maxCoord, coords);
+				_permutations[symmetry][index] = _index[gridIndex(coords[0], coords[1], coords[2])];
+			}
+		}
+	}
+	
+	/**
+	 * Returns the geometry of the requested edge size
+	 * @param edgeSize_ - edge size between Dimensions.MIN_EDGE_SIZE and Dimensions.MAX_EDGE_SIZE
+	 */
+	public static synchronized CubeGeometry of(final int edgeSize_) {
+		if (edgeSize_ < Dimensions.MIN_EDGE_SIZE || edgeSize_ > Dimensions.MAX_EDGE_SIZE) {
+			throw new IllegalArgumentException(String.format("edgeSize_ should be btw %s and %s", Dimensions.MIN_EDGE_SIZE, Dimensions.MAX_EDGE_SIZE));
+		}
+		if (INSTANCES[edgeSize_] == null) {
+			INSTANCES[edgeSize_] = new CubeGeometry(edgeSize_);
+		}
+		return INSTANCES[edgeSize_];
+	}
+	
+	private int gridIndex(final int x_, final int y_, final int z_) {
+		return (z_ * _edgeSize + y_) * _edgeSize + x_;
+	}
+	
+	/**
+	 * @return The size of one edge of the cube
+	 */
+	public int getEdgeSize() {
+		return _edgeSize;
+	}
+	
+	/**
+	 * @return The maximal coordinate of a cell
+	 */
+	public int getMaxCoord() {
+		return _maxCoord;
+	}
+	
+	/**
+	 * @return Number of the cells on the surface of the cube
+	 */
+	public int getCellCount() {
+		return _cellCount;
+	}
+	
+	/**
+	 * @return Number of the longs of an occupancy mask
+	 */
+	public int getWordCount() {
+		return _wordCount;
+	}
+	
+	/**
+	 * @return true if the passed coordinates are on one of the sides of the cube
+	 */
+	public boolean isOnSurface(final int x_, final int y_, final int z_) {
+		return x_ == 0 || x_ == _maxCoord || y_ == 0 || y_ == _maxCoord || z_ == 0 || z_ == _maxCoord;
+	}
+	
+	/**
+	 * Returns the bit index of the passed coordinates
+	 * @return the bit index or -1 if the cell is inside the cube
+	 */
+	public int indexOf(final int x_, final int y_, final int z_) {
+		if (x_ < 0 || x_ > _maxCoord || y_ < 0 || y_ > _maxCoord || z_ < 0 || z_ > _maxCoord) {
+			throw new IllegalArgumentException(String.format("x_,y_ and z_ args should be btw 0 and %s", _maxCoord));
+		}
+		return _index[gridIndex(x_, y_, z_)];
+	}
+	
+	/**
+	 * @return The X coordinate of the cell with the passed bit index
+	 */
+	public int getX(final int index_) {
+		return _x[index_];
+	}
+	
+	/**
+	 * @return The Y coordinate of the cell with the passed bit index
+	 */
+	public int getY(final int index_) {
+		return _y[index_];
+	}
+	
+	/**
+	 * @return The Z coordinate of the cell with the passed bit index
+	 */
+	public int getZ(final int index_) {
+		return _z[index_];
+	}
+	
+	/**
+	 * @return A mask with all the surface cells set
+	 */
+	public long[] createFullMask() {
+		long[] result = new long[_wordCount];
+		for (int index=0; index<_cellCount; index++) {
+			Bitset.set(result, 0, index);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return The index of the cell the passed cell is moved to by the requested symmetry
+	 */
+	public int transform(final int symmetry_, final int index_) {
+		return _permutations[symmetry_][index_];
+	}
+	
+	/**
+	 * Applies the requested symmetry on a mask
+	 * 
+	 * @param symmetry_ - index of the symmetry (0..SYMMETRY_COUNT-1)
+	 * @param mask_ - the array of the source mask
+	 * @param offset_ - index of the first word of the source mask
+	 * @param result_ - the array receiving the transformed mask
+	 * @param resultOffset_ - index of the first word of the transformed mask
+	 */
+	public void transform(final int symmetry_, final long[] mask_, final int offset_, final long[] result_, final int resultOffset_) {
+		int[] permutation = _permutations[symmetry_];
+		Bitset.clear(result_, resultOffset_, _wordCount);
+		
+		for (int word=0; word<_wordCount; word++) {
+			for (long bits = mask_[offset_ + word]; bits != 0; bits &= bits - 1) {
+				Bitset.set(result_, resultOffset_, permutation[word * Long.SIZE + Long.numberOfTrailingZeros(bits)]);
+			}
+		}
+	}
+	
+	/**
+	 * @return The side the passed side is moved to by the requested symmetry
+	 */
+	public Side transform(final int symmetry_, final Side side_) {
+		//The centers of the sides in doubled coordinates are on the grid for every edge size
+		int max = 2 * _maxCoord;
+		int center = _maxCoord;
+		int[] coords = new int[3];
+		
+		switch (side_) {
+		case FRONT: transformCoords(symmetry_, center, center, 0, max, coords); break;
+		case BACK: transformCoords(symmetry_, center, center, max, max, coords); break;
+		case LEFT: transformCoords(symmetry_, 0, center, center, max, coords); break;
+		case RIGHT: transformCoords(symmetry_, max, center, center, max, coords); break;
+		case TOP: transformCoords(symmetry_, center, 0, center, max, coords); break;
+		case BOTTOM: transformCoords(symmetry_, center, max, center, max, coords); break;
+		default: return null;
+		}
+		
+		for (Side side : SIDES) {
+			if ((side == Side.FRONT && coords[2] == 0) || (side == Side.BACK && coords[2] == max)
+					|| (side == Side.LEFT && coords[0] == 0) || (side == Side.RIGHT && coords[0] == max)
+					|| (side == Side.TOP && coords[1] == 0) || (side == Side.BOTTOM && coords[1] == max)) {
+				return side;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @return true if the requested symmetry mirrors the cube - the pieces are flipped by it
+	 */
+	public boolean isMirroring(final int symmetry_) {
+		int[] axes = _axes[symmetry_];
+		boolean result = axes[0] > axes[1];
+		result ^= axes[0] > axes[2];
+		result ^= axes[1] > axes[2];
+		for (boolean negated : _negated[symmetry_]) {
+			result ^= negated;
+		}
+		return result;
+	}
+	
+	private void transformCoords(final int symmetry_, final int x_, final int y_, final int z_, final int max_, final int[] result_) {
+		int[] source = {x_, y_, z_};
+		for (int axis=0; axis<3; axis++) {
+			int value = source[_axes[symmetry_][axis]];
+			result_[axis] = _negated[symmetry_][axis] ? max_ - value : value;
+		}
+	}
+}
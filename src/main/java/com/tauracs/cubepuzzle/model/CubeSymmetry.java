@@ -0,0 +1,111 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The 48 symmetries of the cube (24 rotations, each optionally mirrored) 
+ * as permutations of the surface cells - see Bitboard.
+ * 
+ * Symmetry 0 is the identity.
+ *
+ */
+public final class CubeSymmetry {
+	
+	/**
+	 * Number of the symmetries of the cube
+	 */
+	final static public int COUNT = 48;
+	
+	/**
+	 * Permutations of the surface cell indexes
+	 */
+	final static private int[][] PERMUTATIONS;
+	
+	static {
+		int[][] generators = new int[3][Bitboard.CELL_COUNT];
+		int[] identity = new int[Bitboard.CELL_COUNT];
+		
+		for (int index=0; index<Bitboard.CELL_COUNT; index++) {
+			int x = Bitboard.getX(index);
+			int y = Bitboard.getY(index);
+			int z = Bitboard.getZ(index);
+			
+			identity[index] = index;
+			//Quarter turn around the X axis
+			generators[0][index] = Bitboard.indexOf(x, Dimensions.MAX_COORD - z, y);
+			//Quarter turn around the Y axis
+			generators[1][index] = Bitboard.indexOf(Dimensions.MAX_COORD - z, y, x);
+			//Mirroring to the YZ plane
+			generators[2][index] = Bitboard.indexOf(Dimensions.MAX_COORD - x, y, z);
+		}
+		
+		List<int[]> permutations = new ArrayList<int[]>();
+		permutations.add(identity);
+		
+		//Closure of the generators
+		for (int i=0; i<permutations.size(); i++) {
+			for (int[] generator : generators) {
+				int[] composed = new int[Bitboard.CELL_COUNT];
+				for (int index=0; index<Bitboard.CELL_COUNT; index++) {
+					composed[index] = generator[permutations.get(i)[index]];
+				}
+				
+				boolean known = false;
+				for (int[] permutation : permutations) {
+					if (Arrays.equals(permutation, composed)) {
+						known = true;
+						break;
+					}
+				}
+				if (!known) {
+					permutations.add(composed);
+				}
+			}
+		}
+		
+		if (permutations.size() != COUNT) {
+			throw new IllegalStateException(String.format("%d symmetries were generated instead of %d", permutations.size(), COUNT));
+		}
+		PERMUTATIONS = permutations.toArray(new int[COUNT][]);
+	}
+	
+	private CubeSymmetry() {
+	}
+	
+	/**
+	 * @return The index of the cell the passed cell is moved to by the requested symmetry
+	 */
+	public static int transform(final int symmetry_, final int index_) {
+		return PERMUTATIONS[symmetry_][index_];
+	}
+	
+	/**
+	 * Applies the requested symmetry on the passed occupancy masks
+	 * 
+	 * @param symmetry_ - index of the symmetry (0..COUNT-1)
+	 * @param low_ - occupancy bits 0..63 
+	 * @param high_ - occupancy bits 64..
+	 * @param result_ - array receiving the transformed low (0) and high (1) words 
+	 */
+	public static void transform(final int symmetry_, final long low_, final long high_, final long[] result_) {
+		int[] permutation = PERMUTATIONS[symmetry_];
+		long low = 0;
+		long high = 0;
+		
+		for (long bits = low_; bits != 0; bits &= bits - 1) {
+			int index = permutation[Long.numberOfTrailingZeros(bits)];
+			low |= Bitboard.lowBit(index);
+			high |= Bitboard.highBit(index);
+		}
+		for (long bits = high_; bits != 0; bits &= bits - 1) {
+			int index = permutation[Long.SIZE + Long.numberOfTrailingZeros(bits)];
+			low |= Bitboard.lowBit(index);
+			high |= Bitboard.highBit(index);
+		}
+		
+		result_[0] = low;
+		result_[1] = high;
+	}
+}
@@ -0,0 +1,399 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import com.tauracs.cubepuzzle.model.enums.Side;
+import com.tauracs.cubepuzzle.model.interfaces.IPuzzleResolver;
+import com.tauracs.cubepuzzle.model.interfaces.ISolutionListener;
+
+/**
+ * Class for the Cube Puzzle resolution with Knuth's Dancing Links (Algorithm X).
+ *
+ * The puzzle is an exact cover problem: the rows are the placements of the pieces,
+ * the columns are the pieces (every piece is used once) and the surface cells of the cube
+ * (every cell is covered once). The surplus rules are the same as in PuzzleResolver:
+ * if the pieces have fewer bricks than the cube has cells, the cell columns are secondary
+ * (covered at most once), if they have more bricks, the piece columns are secondary
+ * (the pieces that are not needed are left out).
+ * The search always branches on the column with the fewest rows.
+ *
+ */
+public final class DancingLinksResolver implements IPuzzleResolver {
+
+	/**
+	 * Member variable storing the result Cube
+	 */
+	private Cube _resultCube = null;
+
+	/**
+	 * HashMap storing the PuzzlePieces of the solution
+	 */
+	private HashMap<Side,PuzzlePiece> _solution = new HashMap<Side, PuzzlePiece>();
+
+	/**
+	 * Links of the nodes: node 0 is the root, nodes 1..column count are the column headers
+	 */
+	private int[] _left;
+	private int[] _right;
+	private int[] _up;
+	private int[] _down;
+
+	/**
+	 * Column header of the nodes
+	 */
+	private int[] _column;
+
+	/**
+	 * Row of the nodes
+	 */
+	private int[] _row;
+
+	/**
+	 * Number of the nodes in the columns
+	 */
+	private int[] _columnSize;
+
+	/**
+	 * Piece and placement index of the rows
+	 */
+	private int[] _rowPiece;
+	private int[] _rowPlacement;
+
+	/**
+	 * Rows of the current partial solution
+	 */
+	private int[] _chosenRows;
+
+	/**
+	 * Placement index of the pieces in the current partial solution
+	 */
+	private int[] _placements;
+
+	private List<PuzzlePiece> _puzzlePieces;
+
+	private SymmetryReduction _reduction;
+
+	private ISolutionListener _listener;
+
+	private long _solutionCount;
+
+	/**
+	 * Counters of the search
+	 */
+	private final SolverStats _stats = new SolverStats();
+
+	private SolverStats.Recorder _recorder;
+
+	/**
+	 * Getter of the result cube
+	 * @return
+	 */
+	public Cube getResultCube() {
+		return _resultCube;
+	}
+
+	/**
+	 * Getter for the solution - PuzzlePieces
+	 * @return
+	 */
+	public Iterable<PuzzlePiece> getSolution() {
+		return _solution.values();
+	}
+
+	/**
+	 * Getter of the counters of the last (or the running) search
+	 * @return
+	 */
+	public SolverStats getStats() {
+		return _stats;
+	}
+
+	/**
+	 * Tries to resolve the Cube puzzle with the passed PuzzlePices
+	 * @param puzzlePieces_ the pieces
+	 * @return
+	 */
+	public boolean resolve(final List<PuzzlePiece> puzzlePieces_) {
+		_resultCube = null;
+		_solution = new HashMap<Side, PuzzlePiece>();
+
+		//Every solution can be rotated / mirrored onto the rows of the symmetry reduction,
+		//so an unsolvable set is rejected without searching its 48 images
+		build(puzzlePieces_, true);
+		_listener = null;
+
+		_stats.start(puzzlePieces_.size());
+		_recorder = _stats.createRecorder();
+		boolean result = search(0);
+		_recorder.flush();
+		_stats.finish();
+
+		if (result) {
+			Solution solution = new Solution(puzzlePieces_, _placements, 1);
+			_solution = solution.getPieces();
+			_resultCube = new Cube();
+			for (int piece=0; piece<_placements.length; piece++) {
+				if (_placements[piece] >= 0) {
+					_resultCube.extract(puzzlePieces_.get(piece).getPlacements(), _placements[piece]);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Enumerates all the solutions of the Cube puzzle that are unique up to rotating or mirroring in 3D.
+	 * The solutions are passed to the listener as they are found, the state of the resolver is not changed.
+	 *
+	 * @param puzzlePieces_ the pieces
+	 * @param listener_ receiver of the solutions, returning false stops the enumeration
+	 * @return the number of the solutions passed to the listener
+	 */
+	public long resolveAll(final List<PuzzlePiece> puzzlePieces_, final ISolutionListener listener_) {
+		build(puzzlePieces_, true);
+		_listener = listener_;
+		_solutionCount = 0;
+
+		_stats.start(puzzlePieces_.size());
+		_recorder = _stats.createRecorder();
+		search(0);
+		_recorder.flush();
+		_stats.finish();
+
+		return _solutionCount;
+	}
+
+	/**
+	 * Generates a 360T string formatted (unfolded) string representation
+	 * @return
+	 */
+	public String to360TString() {
+		return PuzzleResolver.to360TString(_solution);
+	}
+
+	/**
+	 * Standard string representation of an instance
+	 */
+	@Override
+	public String toString() {
+		return PuzzleResolver.toString(_solution);
+	}
+
+	/**
+	 * Builds the exact cover matrix of the passed pieces
+	 *
+	 * @param puzzlePieces_ - the pieces
+	 * @param symmetryReduction_ - true if only the rows of the symmetry reduction should be added
+	 */
+	private void build(final List<PuzzlePiece> puzzlePieces_, final boolean symmetryReduction_) {
+		int pieceCount = puzzlePieces_.size();
+		PlacementTable[] tables = new PlacementTable[pieceCount];
+		int brickCount = 0;
+
+		for (int piece=0; piece<pieceCount; piece++) {
+			tables[piece] = puzzlePieces_.get(piece).getPlacements();
+			brickCount += Long.bitCount(tables[piece].getLow(0)) + Long.bitCount(tables[piece].getHigh(0));
+		}
+
+		_puzzlePieces = puzzlePieces_;
+		_reduction = symmetryReduction_ ? new SymmetryReduction(tables) : null;
+		_placements = new int[pieceCount];
+		_chosenRows = new int[pieceCount];
+
+		int columnCount = pieceCount + Bitboard.CELL_COUNT;
+		boolean primaryPieces = brickCount <= Bitboard.CELL_COUNT;
+		boolean primaryCells = brickCount >= Bitboard.CELL_COUNT;
+		int maxNodeCount = 1 + columnCount + pieceCount * PlacementTable.PLACEMENT_COUNT * (1 + Bitboard.CELL_COUNT);
+		int maxRowCount = pieceCount * PlacementTable.PLACEMENT_COUNT;
+
+		//The arrays of the previous matrix are reused if they are large enough
+		if (_left == null || _left.length < maxNodeCount) {
+			_left = new int[maxNodeCount];
+			_right = new int[maxNodeCount];
+			_up = new int[maxNodeCount];
+			_down = new int[maxNodeCount];
+			_column = new int[maxNodeCount];
+			_row = new int[maxNodeCount];
+			_columnSize = new int[columnCount + 1];
+			_rowPiece = new int[maxRowCount];
+			_rowPlacement = new int[maxRowCount];
+		}
+		Arrays.fill(_columnSize, 0);
+
+		//Root and column headers - the secondary columns are not linked to the root
+		for (int column=0; column<=columnCount; column++) {
+			_up[column] = column;
+			_down[column] = column;
+			_column[column] = column;
+			_left[column] = column;
+			_right[column] = column;
+		}
+		int lastPrimary = 0;
+		for (int column=1; column<=columnCount; column++) {
+			if (column <= pieceCount ? primaryPieces : primaryCells) {
+				_left[column] = lastPrimary;
+				_right[column] = 0;
+				_right[lastPrimary] = column;
+				_left[0] = column;
+				lastPrimary = column;
+			}
+		}
+
+		int nodeCount = columnCount + 1;
+		int rowCount = 0;
+
+		for (int piece=0; piece<pieceCount; piece++) {
+			PlacementTable table = tables[piece];
+			_placements[piece] = -1;
+
+			for (int i=0; i<table.size(); i++) {
+				//The placements covering the same bricks are added once
+				if (!table.isDistinct(i) || (_reduction != null && !_reduction.isAllowed(piece, i, _placements))) {
+					continue;
+				}
+
+				_rowPiece[rowCount] = piece;
+				_rowPlacement[rowCount] = i;
+
+				int first = nodeCount;
+				_left[first] = first;
+				_right[first] = first;
+				nodeCount = addNode(first, first, 1 + piece, rowCount);
+
+				for (long bits = table.getLow(i); bits != 0; bits &= bits - 1) {
+					nodeCount = addNode(nodeCount, first, 1 + pieceCount + Long.numberOfTrailingZeros(bits), rowCount);
+				}
+				for (long bits = table.getHigh(i); bits != 0; bits &= bits - 1) {
+					nodeCount = addNode(nodeCount, first, 1 + pieceCount + Long.SIZE + Long.numberOfTrailingZeros(bits), rowCount);
+				}
+				rowCount++;
+			}
+		}
+	}
+
+	/**
+	 * Appends a node to the bottom of the column and to the end of the row
+	 *
+	 * @return the index of the next free node
+	 */
+	private int addNode(final int node_, final int firstOfRow_, final int column_, final int row_) {
+		_column[node_] = column_;
+		_row[node_] = row_;
+
+		_down[node_] = column_;
+		_up[node_] = _up[column_];
+		_down[_up[column_]] = node_;
+		_up[column_] = node_;
+		_columnSize[column_]++;
+
+		_right[node_] = firstOfRow_;
+		_left[node_] = _left[firstOfRow_];
+		_right[_left[firstOfRow_]] = node_;
+		_left[firstOfRow_] = node_;
+
+		return node_ + 1;
+	}
+
+	private void cover(final int column_) {
+		_right[_left[column_]] = _right[column_];
+		_left[_right[column_]] = _left[column_];
+
+		for (int i=_down[column_]; i != column_; i = _down[i]) {
+			for (int j=_right[i]; j != i; j = _right[j]) {
+				_down[_up[j]] = _down[j];
+				_up[_down[j]] = _up[j];
+				_columnSize[_column[j]]--;
+			}
+		}
+	}
+
+	private void uncover(final int column_) {
+		for (int i=_up[column_]; i != column_; i = _up[i]) {
+			for (int j=_left[i]; j != i; j = _left[j]) {
+				_columnSize[_column[j]]++;
+				_down[_up[j]] = j;
+				_up[_down[j]] = j;
+			}
+		}
+
+		_right[_left[column_]] = column_;
+		_left[_right[column_]] = column_;
+	}
+
+	/**
+	 * Recursive step of Algorithm X
+	 *
+	 * @param depth_ - number of the chosen rows
+	 * @return true if the search should stop - a solution was found in first solution mode
+	 * or the listener stopped the enumeration
+	 */
+	private boolean search(final int depth_) {
+
+		_recorder.node(depth_);
+		if (_right[0] == 0) {
+			return onSolution(depth_);
+		}
+
+		//Choosing the most constrained column
+		int column = _right[0];
+		for (int j=_right[column]; j != 0; j = _right[j]) {
+			if (_columnSize[j] < _columnSize[column]) {
+				column = j;
+			}
+		}
+		if (_columnSize[column] == 0) {
+			_recorder.failedExtraction();
+			return false;
+		}
+
+		long start = _recorder.startTiming();
+		cover(column);
+
+		boolean stop = false;
+		for (int r=_down[column]; r != column && !stop; r = _down[r]) {
+			_chosenRows[depth_] = _row[r];
+			_recorder.placement();
+			for (int j=_right[r]; j != r; j = _right[j]) {
+				cover(_column[j]);
+			}
+
+			stop = search(depth_ + 1);
+
+			for (int j=_left[r]; j != r; j = _left[j]) {
+				uncover(_column[j]);
+			}
+			_recorder.backtrack();
+		}
+
+		uncover(column);
+		_recorder.stopTiming(depth_, start);
+		return stop;
+	}
+
+	/**
+	 * Processes the solution made of the chosen rows
+	 * @return true if the search should stop
+	 */
+	private boolean onSolution(final int depth_) {
+		for (int piece=0; piece<_placements.length; piece++) {
+			_placements[piece] = -1;
+		}
+		for (int i=0; i<depth_; i++) {
+			_placements[_rowPiece[_chosenRows[i]]] = _rowPlacement[_chosenRows[i]];
+		}
+
+		if (_listener == null) {
+			return true;
+		}
+
+		int orbitSize = _reduction.getOrbitSize(_placements);
+		if (orbitSize == 0) {
+			return false;
+		}
+		_solutionCount++;
+		return !_listener.onSolution(new Solution(_puzzlePieces, _placements, orbitSize));
+	}
+}
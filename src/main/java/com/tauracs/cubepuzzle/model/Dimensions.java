@@ -16,6 +16,16 @@ public final class Dimensions{
 	 */
 	final static public int MAX_COORD = CUBE_EDGE_SIZE - 1;
 	
+	/**
+	 * The smallest edge size supported by CubeGeometry
+	 */
+	final static public int MIN_EDGE_SIZE = 3;
+	
+	/**
+	 * The largest edge size supported by CubeGeometry
+	 */
+	final static public int MAX_EDGE_SIZE = 10;
+	
 	/**
 	 * Validates the passed coordinates 
 	 * @param x_ - X coordinate
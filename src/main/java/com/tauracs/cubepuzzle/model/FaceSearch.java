@@ -0,0 +1,379 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Depth first search that fills the sides of the cube one by one in the order of Side.next().
+ *
+ * The pieces can only interact along the edges of the cube: when the cube is covered exactly,
+ * the inner cells of an edge are covered either by one side or by the other one. The candidates
+ * of a side are indexed by the inner codes of the edges shared with the sides filled before it
+ * (see CubeEdge and PlacementTable.getEdgeCode()), so a level of the search only visits the 
+ * placements whose edges mate with the placed neighbours. The corners are checked by the extraction.
+ *
+ * The search is applicable to 6 pieces covering the cube exactly.
+ *
+ */
+final class FaceSearch {
+	
+	final static private int SIDE_COUNT = Side.values().length;
+	
+	/**
+	 * Number of the bits of an inner code
+	 */
+	final static private int INNER_BITS = CubeEdge.LENGTH - 2;
+	
+	final static private int INNER_CODES = 1 << INNER_BITS;
+	
+	/**
+	 * The sides in the order they are filled
+	 */
+	final static private Side[] ORDER = new Side[SIDE_COUNT];
+	
+	/**
+	 * The edges of the sides that are shared with sides filled earlier
+	 */
+	final static private int[][] MATED_EDGES = new int[SIDE_COUNT][];
+	
+	/**
+	 * The step of the side on the other side of the mated edges
+	 */
+	final static private int[][] MATED_STEPS = new int[SIDE_COUNT][];
+	
+	/**
+	 * Cells that can not be covered after the step - all their sides are filled
+	 */
+	final static private long[] DONE_LOW = new long[SIDE_COUNT];
+	final static private long[] DONE_HIGH = new long[SIDE_COUNT];
+	
+	static {
+		int step = 0;
+		for (Side side = Side.FRONT; side != null; side = side.next()) {
+			ORDER[step] = side;
+			
+			List<Integer> mated = new ArrayList<Integer>();
+			List<Integer> matedSteps = new ArrayList<Integer>();
+			for (int edge : CubeEdge.getEdges(side)) {
+				Side other = CubeEdge.getOtherSide(edge, side);
+				for (int earlier=0; earlier<step; earlier++) {
+					if (ORDER[earlier] == other) {
+						mated.add(edge);
+						matedSteps.add(earlier);
+					}
+				}
+			}
+			MATED_EDGES[step] = new int[mated.size()];
+			MATED_STEPS[step] = new int[mated.size()];
+			for (int i=0; i<mated.size(); i++) {
+				MATED_EDGES[step][i] = mated.get(i);
+				MATED_STEPS[step][i] = matedSteps.get(i);
+			}
+			step++;
+		}
+		
+		for (int index=0; index<Bitboard.CELL_COUNT; index++) {
+			//The cell is done at the step of its last side
+			int last = 0;
+			for (step=0; step<SIDE_COUNT; step++) {
+				if (isOnSide(index, ORDER[step])) {
+					last = step;
+				}
+			}
+			for (step=last; step<SIDE_COUNT; step++) {
+				DONE_LOW[step] |= Bitboard.lowBit(index);
+				DONE_HIGH[step] |= Bitboard.highBit(index);
+			}
+		}
+	}
+	
+	private final PlacementTable[] _tables;
+	
+	/**
+	 * Candidates by step and by the key of the inner codes of the mated edges,
+	 * packed as piece index * PLACEMENT_COUNT + placement index
+	 */
+	private final int[][][] _candidates = new int[SIDE_COUNT][][];
+	
+	/**
+	 * The chosen placement index of the pieces, -1 if the piece is not placed
+	 */
+	private final int[] _placements;
+	
+	/**
+	 * The placed piece of the sides by step
+	 */
+	private final int[] _stepPieces = new int[SIDE_COUNT];
+	
+	private final Cube _cube = new Cube();
+	
+	/**
+	 * Forward checking of the corner and edge cells
+	 */
+	private final CoveragePropagation _propagation;
+	
+	private final SolverStats.Recorder _recorder;
+	
+	/**
+	 * Failed states, null if the states are not memoised
+	 */
+	private TranspositionTable _transpositions = null;
+	
+	/**
+	 * Zobrist keys of the placements of the pieces: [piece][placement]
+	 */
+	private long[][] _placementKeys;
+	
+	/**
+	 * Zobrist hash and the bitmask of the remaining pieces of the current state
+	 */
+	private long _hash;
+	private long _remaining;
+	
+	/**
+	 * Number of the visited nodes - the work of the failed subtrees
+	 */
+	private long _nodeCount;
+	
+	/**
+	 * Stop and progress of the search, null if the search runs to the end
+	 */
+	private SearchControl _control = null;
+	
+	private boolean _stopped = false;
+	
+	/**
+	 * @param puzzlePieces_ - The pieces the cube is built from, see isApplicable()
+	 * @param stats_ - Counters of the search, started by the caller
+	 */
+	FaceSearch(final List<PuzzlePiece> puzzlePieces_, final SolverStats stats_) {
+		if (!isApplicable(puzzlePieces_)) {
+			throw new IllegalArgumentException("The face search requires 6 pieces covering the cube exactly");
+		}
+		
+		_tables = new PlacementTable[puzzlePieces_.size()];
+		_placements = new int[puzzlePieces_.size()];
+		_recorder = stats_.createRecorder();
+		
+		List<List<List<Integer>>> candidates = new ArrayList<List<List<Integer>>>();
+		for (int step=0; step<SIDE_COUNT; step++) {
+			List<List<Integer>> byKey = new ArrayList<List<Integer>>();
+			for (int key=0; key < 1 << (INNER_BITS * MATED_EDGES[step].length); key++) {
+				byKey.add(new ArrayList<Integer>());
+			}
+			candidates.add(byKey);
+		}
+		
+		for (int piece=0; piece<_tables.length; piece++) {
+			PlacementTable table = puzzlePieces_.get(piece).getPlacements();
+			_tables[piece] = table;
+			_placements[piece] = -1;
+			
+			for (int i=0; i<table.size(); i++) {
+				if (!table.isDistinct(i)) {
+					continue;
+				}
+				int step = getStep(table.getSide(i));
+				int key = 0;
+				for (int j=0; j<MATED_EDGES[step].length; j++) {
+					key |= CubeEdge.getInnerCode(table.getEdgeCode(i, MATED_EDGES[step][j])) << (INNER_BITS * j);
+				}
+				candidates.get(step).get(key).add(piece * PlacementTable.PLACEMENT_COUNT + i);
+			}
+		}
+		
+		_propagation = new CoveragePropagation(_tables, SIDE_COUNT);
+		
+		for (int step=0; step<SIDE_COUNT; step++) {
+			List<List<Integer>> byKey = candidates.get(step);
+			_candidates[step] = new int[byKey.size()][];
+			for (int key=0; key<byKey.size(); key++) {
+				_candidates[step][key] = new int[byKey.get(key).size()];
+				for (int i=0; i<_candidates[step][key].length; i++) {
+					_candidates[step][key][i] = byKey.get(key).get(i);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return true if the pieces can be resolved with the face search: 6 pieces covering the cube exactly
+	 */
+	static boolean isApplicable(final List<PuzzlePiece> puzzlePieces_) {
+		if (puzzlePieces_.size() != SIDE_COUNT) {
+			return false;
+		}
+		int brickCount = 0;
+		for (PuzzlePiece piece : puzzlePieces_) {
+			brickCount += Long.bitCount(piece.getOccupancyLow()) + Long.bitCount(piece.getOccupancyHigh());
+		}
+		return brickCount == Bitboard.CELL_COUNT;
+	}
+	
+	/**
+	 * @return true if the cell with the passed bit index is on the side
+	 */
+	private static boolean isOnSide(final int index_, final Side side_) {
+		switch (side_) {
+		case FRONT: return Bitboard.getZ(index_) == 0;
+		case BACK: return Bitboard.getZ(index_) == Dimensions.MAX_COORD;
+		case LEFT: return Bitboard.getX(index_) == 0;
+		case RIGHT: return Bitboard.getX(index_) == Dimensions.MAX_COORD;
+		case TOP: return Bitboard.getY(index_) == 0;
+		case BOTTOM: return Bitboard.getY(index_) == Dimensions.MAX_COORD;
+		default: return false;
+		}
+	}
+	
+	private static int getStep(final Side side_) {
+		for (int step=0; step<SIDE_COUNT; step++) {
+			if (ORDER[step] == side_) {
+				return step;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Sets the memory of the failed states, it is cleared and it must not be used by an other search.
+	 * The state of the search must be the initial one.
+	 */
+	void setTranspositionTable(final TranspositionTable transpositions_) {
+		_transpositions = transpositions_;
+		if (transpositions_ == null) {
+			return;
+		}
+		transpositions_.clear();
+		_placementKeys = new long[_tables.length][];
+		for (int piece=0; piece<_tables.length; piece++) {
+			_placementKeys[piece] = TranspositionTable.getPlacementKeys(_tables[piece]);
+		}
+		_hash = TranspositionTable.getInitialHash(_tables.length);
+		_remaining = (1L << _tables.length) - 1;
+	}
+	
+	/**
+	 * Sets the cooperative stop and the progress reporting of findFirst(), null if the search runs to the end
+	 */
+	void setControl(final SearchControl control_) {
+		_control = control_;
+	}
+	
+	/**
+	 * Searches for the first solution
+	 * @return true if a solution was found - the placements are available via getPlacements()
+	 */
+	boolean findFirst() {
+		boolean result = search(0);
+		_recorder.flush();
+		return result;
+	}
+	
+	/**
+	 * @return Copy of the placement indexes of the pieces
+	 */
+	int[] getPlacements() {
+		return _placements.clone();
+	}
+	
+	/**
+	 * @return The cube with the bricks that were not covered by the placed pieces
+	 */
+	Cube getCube() {
+		return _cube;
+	}
+	
+	/**
+	 * Recursive step of the search
+	 * @param step_ - index of the side in the filling order
+	 * @return true if the search succeeded - the state of the successful branch is kept
+	 */
+	private boolean search(final int step_) {
+		
+		_recorder.node(step_);
+		if (step_ == SIDE_COUNT) {
+			return true;
+		}
+		if (_control != null && !_control.node(step_)) {
+			_stopped = true;
+			return false;
+		}
+		if (_transpositions != null && _transpositions.contains(_hash, _cube.getOccupancyLow(), _cube.getOccupancyHigh(), _remaining)) {
+			_recorder.transpositionHit();
+			return false;
+		}
+		
+		long start = _recorder.startTiming();
+		long firstNode = _nodeCount++;
+		
+		//The inner cells of the mated edges that are not covered by the neighbours
+		int key = 0;
+		for (int j=0; j<MATED_EDGES[step_].length; j++) {
+			int edge = MATED_EDGES[step_][j];
+			int neighbour = _stepPieces[MATED_STEPS[step_][j]];
+			int covered = CubeEdge.getInnerCode(_tables[neighbour].getEdgeCode(_placements[neighbour], edge));
+			key |= (~covered & (INNER_CODES - 1)) << (INNER_BITS * j);
+		}
+		
+		boolean result = false;
+		int[] candidates = _candidates[step_][key];
+		
+		for (int c=0; c<candidates.length && !result && !_stopped; c++) {
+			int piece = candidates[c] / PlacementTable.PLACEMENT_COUNT;
+			int placement = candidates[c] % PlacementTable.PLACEMENT_COUNT;
+			if (_placements[piece] >= 0 || !_propagation.isLive(step_, piece, placement)) {
+				continue;
+			}
+			
+			_recorder.placement();
+			if (!_cube.extract(_tables[piece], placement)) {
+				_recorder.failedExtraction();
+				continue;
+			}
+			_placements[piece] = placement;
+			_stepPieces[step_] = piece;
+			
+			//The cells of the finished sides must be covered and the remaining pieces must be able to cover the corners and edges
+			if ((_cube.getOccupancyLow() & DONE_LOW[step_]) != 0 || (_cube.getOccupancyHigh() & DONE_HIGH[step_]) != 0
+					|| !_propagation.propagate(step_ + 1, _cube, _placements)) {
+				_recorder.pruned();
+			}
+			else {
+				updateHash(piece, placement);
+				if (_control != null) {
+					_control.branch(step_, c, candidates.length);
+				}
+				result = search(step_ + 1);
+				if (!result) {
+					updateHash(piece, placement);
+				}
+			}
+			
+			if (!result) {
+				_recorder.backtrack();
+				_placements[piece] = -1;
+				_cube.restore(_tables[piece], placement);
+			}
+		}
+		
+		//A stopped subtree is not proven to fail
+		if (!result && _transpositions != null && !_stopped) {
+			_transpositions.store(_hash, _cube.getOccupancyLow(), _cube.getOccupancyHigh(), _remaining, _nodeCount - firstNode);
+		}
+		
+		_recorder.stopTiming(step_, start);
+		return result;
+	}
+	
+	/**
+	 * Toggles the placement of the piece in the hash and in the remaining pieces
+	 */
+	private void updateHash(final int piece_, final int placement_) {
+		if (_transpositions != null) {
+			_hash ^= TranspositionTable.getPieceKey(piece_) ^ _placementKeys[piece_][placement_];
+			_remaining ^= 1L << piece_;
+		}
+	}
+}
@@ -0,0 +1,268 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.tauracs.cubepuzzle.model.enums.Side;
+import com.tauracs.cubepuzzle.model.interfaces.IPuzzleResolver;
+import com.tauracs.cubepuzzle.model.interfaces.ISolutionListener;
+
+/**
+ * Class for the Cube Puzzle resolution on a ForkJoinPool.
+ * 
+ * The search tree is split into independent subtrees by the placements of the first pieces. 
+ * The subtrees are split further while the pool has idle workers.
+ *
+ */
+public final class ParallelPuzzleResolver implements IPuzzleResolver {
+	
+	/**
+	 * The deepest level where the search is split
+	 */
+	final static private int MAX_SPLIT_DEPTH = 3;
+	
+	/**
+	 * The subtrees are split until the number of the queued tasks of a worker reaches this limit
+	 */
+	final static private int SURPLUS_TASK_LIMIT = 2;
+	
+	/**
+	 * The pool running the searches
+	 */
+	private final ForkJoinPool _pool;
+	
+	/**
+	 * Member variable storing the result Cube
+	 */
+	private Cube _resultCube = null;
+	
+	/**
+	 * HashMap storing the PuzzlePieces of the solution
+	 */
+	private HashMap<Side,PuzzlePiece> _solution = new HashMap<Side, PuzzlePiece>();
+	
+	/**
+	 * Counters of the search - all the tasks count into it
+	 */
+	private final SolverStats _stats = new SolverStats();
+	
+	/**
+	 * Creates a resolver running on the common pool
+	 */
+	public ParallelPuzzleResolver() {
+		this(ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * @param pool_ - The pool running the searches
+	 */
+	public ParallelPuzzleResolver(final ForkJoinPool pool_) {
+		if (pool_ == null) {
+			throw new IllegalArgumentException("pool_ argument is null");
+		}
+		_pool = pool_;
+	}
+	
+	/**
+	 * Getter of the result cube
+	 * @return
+	 */
+	public Cube getResultCube() {
+		return _resultCube;
+	}
+	
+	/**
+	 * Getter for the solution - PuzzlePieces
+	 * @return
+	 */
+	public Iterable<PuzzlePiece> getSolution() {
+		return _solution.values();
+	}
+	
+	/**
+	 * Getter of the counters of the last (or the running) search
+	 * @return
+	 */
+	public SolverStats getStats() {
+		return _stats;
+	}
+	
+	/**
+	 * Tries to resolve the Cube puzzle with the passed PuzzlePices. 
+	 * The subtrees are cancelled as soon as one of them finds a solution.
+	 * @param puzzlePieces_ the pieces 
+	 * @return
+	 */
+	public boolean resolve(final List<PuzzlePiece> puzzlePieces_) {
+		_resultCube = null;
+		_solution = new HashMap<Side, PuzzlePiece>();
+		
+		_stats.start(puzzlePieces_.size());
+		BacktrackingSearch search = _pool.invoke(new FirstSolutionTask(new BacktrackingSearch(puzzlePieces_, false, _stats), 0));
+		_stats.finish();
+		
+		if (search != null) {
+			_resultCube = search.getCube();
+			_solution = new Solution(puzzlePieces_, search.getPlacements(), 1).getPieces();
+		}
+		
+		return search != null;
+	}
+	
+	/**
+	 * Enumerates all the solutions of the Cube puzzle that are unique up to rotating or mirroring in 3D.
+	 * The listener is called from the workers of the pool, but never concurrently.
+	 * 
+	 * @param puzzlePieces_ the pieces
+	 * @param listener_ receiver of the solutions, returning false stops the enumeration 
+	 * @return the number of the solutions passed to the listener
+	 */
+	public long resolveAll(final List<PuzzlePiece> puzzlePieces_, final ISolutionListener listener_) {
+		_stats.start(puzzlePieces_.size());
+		BacktrackingSearch search = new BacktrackingSearch(puzzlePieces_, true, _stats);
+		search.setListener(listener_);
+		
+		_pool.invoke(new EnumerationTask(search, 0));
+		_stats.finish();
+		return search.getSolutionCount();
+	}
+	
+	/**
+	 * Generates a 360T string formatted (unfolded) string representation
+	 * @return
+	 */
+	public String to360TString() {
+		return PuzzleResolver.to360TString(_solution);
+	}
+	
+	/**
+	 * Standard string representation of an instance
+	 */
+	@Override
+	public String toString() {
+		return PuzzleResolver.toString(_solution);
+	}
+	
+	/**
+	 * @return true if the subtree on the passed level should be split into tasks
+	 */
+	private static boolean shouldSplit(final BacktrackingSearch search_, final int depth_) {
+		if (search_.isLeaf(depth_) || depth_ >= MAX_SPLIT_DEPTH) {
+			return false;
+		}
+		return depth_ == 0 || RecursiveTask.getSurplusQueuedTaskCount() < SURPLUS_TASK_LIMIT;
+	}
+	
+	/**
+	 * Creates forks of the search for every placement that fits on the passed level
+	 * and for leaving the piece out if it is a surplus piece
+	 */
+	private static List<BacktrackingSearch> split(final BacktrackingSearch search_, final int depth_) {
+		List<BacktrackingSearch> result = new ArrayList<BacktrackingSearch>();
+		int count = search_.getPlacementCount(depth_);
+		
+		for (int i=0; i<count; i++) {
+			if (search_.place(depth_, i)) {
+				result.add(search_.fork());
+				search_.unplace(depth_, i);
+			}
+		}
+		if (search_.canSkip(depth_)) {
+			search_.skip(depth_);
+			result.add(search_.fork());
+			search_.unskip(depth_);
+		}
+		search_.flushStats();
+		return result;
+	}
+	
+	/**
+	 * Task searching the first solution in a subtree
+	 */
+	private static final class FirstSolutionTask extends RecursiveTask<BacktrackingSearch> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final BacktrackingSearch _search;
+		
+		private final int _depth;
+		
+		FirstSolutionTask(final BacktrackingSearch search_, final int depth_) {
+			_search = search_;
+			_depth = depth_;
+		}
+
+		/**
+		 * @return the search in the state of the solution or null
+		 */
+		@Override
+		protected BacktrackingSearch compute() {
+			if (_search.isStopped()) {
+				return null;
+			}
+			
+			if (!shouldSplit(_search, _depth)) {
+				boolean found = _search.findFirst(_depth);
+				_search.flushStats();
+				if (found) {
+					_search.stop();
+					return _search;
+				}
+				return null;
+			}
+			
+			List<FirstSolutionTask> tasks = new ArrayList<FirstSolutionTask>();
+			for (BacktrackingSearch fork : split(_search, _depth)) {
+				tasks.add(new FirstSolutionTask(fork, _depth + 1));
+			}
+			
+			BacktrackingSearch result = null;
+			for (FirstSolutionTask task : invokeAll(tasks)) {
+				if (result == null) {
+					result = task.join();
+				}
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * Task enumerating the solutions of a subtree
+	 */
+	private static final class EnumerationTask extends RecursiveTask<Void> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final BacktrackingSearch _search;
+		
+		private final int _depth;
+		
+		EnumerationTask(final BacktrackingSearch search_, final int depth_) {
+			_search = search_;
+			_depth = depth_;
+		}
+
+		@Override
+		protected Void compute() {
+			if (_search.isStopped()) {
+				return null;
+			}
+			
+			if (!shouldSplit(_search, _depth)) {
+				_search.enumerate(_depth);
+				_search.flushStats();
+				return null;
+			}
+			
+			List<EnumerationTask> tasks = new ArrayList<EnumerationTask>();
+			for (BacktrackingSearch fork : split(_search, _depth)) {
+				tasks.add(new EnumerationTask(fork, _depth + 1));
+			}
+			invokeAll(tasks);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.Arrays;
+
+import com.tauracs.cubepuzzle.model.enums.Direction;
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Immutable table of all the placements of a PuzzlePiece on the cube.
+ *
+ * A placement is one state of the PuzzlePiece: the side of the cube, the direction
+ * and whether the piece is flipped. The table stores the occupancy masks (see Bitboard)
+ * and the state of every placement in the order the states are visited by
+ * PuzzlePiece.nextState() and PuzzlePiece.flip().
+ *
+ */
+public final class PlacementTable {
+
+	/**
+	 * Number of the placements of a piece: 6 sides * 4 directions * 2 (flipped or not)
+	 */
+	final static public int PLACEMENT_COUNT = 6 * 4 * 2;
+
+	/**
+	 * Number of the codes of the packed states - see encodeOrientation
+	 */
+	final static public int ORIENTATION_CODES = 1 << 6;
+
+	final static private Side[] SIDES = Side.values();
+
+	final static private Direction[] DIRECTIONS = Direction.values();
+
+	/**
+	 * Occupancy bits 0..63 of the placements
+	 */
+	private final long[] _low;
+
+	/**
+	 * Occupancy bits 64.. of the placements
+	 */
+	private final long[] _high;
+
+	/**
+	 * Packed state of the placements - see encodeOrientation
+	 */
+	private final byte[] _orientations;
+
+	/**
+	 * Index of the placements by packed state, -1 for the unused codes
+	 */
+	private final byte[] _byOrientation;
+
+	/**
+	 * Number of the placements covering the same bricks as the placement
+	 */
+	private final byte[] _multiplicities;
+
+	/**
+	 * Flag of the placements whose bricks are not covered by an earlier placement
+	 */
+	private final boolean[] _distinct;
+
+	/**
+	 * Index of the distinct placements
+	 */
+	private final int[] _distinctPlacements;
+
+	/**
+	 * Edge profiles of the placements by cube edge - see CubeEdge
+	 */
+	private final byte[] _edgeCodes;
+
+	/**
+	 * Creates the table by walking through all the states of the passed layout
+	 * @param layout_ - Char array representation of the (not flipped) PuzzlePiece
+	 */
+	PlacementTable(final char[][] layout_) {
+		_low = new long[PLACEMENT_COUNT];
+		_high = new long[PLACEMENT_COUNT];
+		_orientations = new byte[PLACEMENT_COUNT];
+		_edgeCodes = new byte[PLACEMENT_COUNT * CubeEdge.COUNT];
+
+		PuzzlePiece piece = new PuzzlePiece(layout_);
+		int count = 0;
+
+		for (int flip=0; flip<2; flip++) {
+			if (flip == 1) {
+				piece.flip();
+			}
+
+			do {
+				_low[count] = piece.getOccupancyLow();
+				_high[count] = piece.getOccupancyHigh();
+				_orientations[count] = encodeOrientation(piece.getSide(), piece.getDirection(), piece.isFlipped());
+				for (int edge : CubeEdge.getEdges(piece.getSide())) {
+					_edgeCodes[count * CubeEdge.COUNT + edge] = (byte)CubeEdge.getCode(edge, _low[count], _high[count]);
+				}
+				count++;
+			} while(piece.nextState());
+		}
+
+		_byOrientation = new byte[ORIENTATION_CODES];
+		Arrays.fill(_byOrientation, (byte)-1);
+		for (int i=0; i<PLACEMENT_COUNT; i++) {
+			_byOrientation[_orientations[i]] = (byte)i;
+		}
+
+		//Symmetric pieces cover the same bricks in several states
+		_multiplicities = new byte[PLACEMENT_COUNT];
+		_distinct = new boolean[PLACEMENT_COUNT];
+		int distinctCount = 0;
+		for (int i=0; i<PLACEMENT_COUNT; i++) {
+			_distinct[i] = true;
+			for (int j=0; j<PLACEMENT_COUNT; j++) {
+				if (_low[j] == _low[i] && _high[j] == _high[i]) {
+					_multiplicities[i]++;
+					_distinct[i] &= j >= i;
+				}
+			}
+			if (_distinct[i]) {
+				distinctCount++;
+			}
+		}
+
+		_distinctPlacements = new int[distinctCount];
+		distinctCount = 0;
+		for (int i=0; i<PLACEMENT_COUNT; i++) {
+			if (_distinct[i]) {
+				_distinctPlacements[distinctCount++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Packs the state of a placement into one byte
+	 *
+	 * @param side_ - Side of the cube
+	 * @param direction_ - Direction on the side
+	 * @param flipped_ - true if the piece is flipped
+	 * @return the packed state: side ordinal in bits 3..5, direction ordinal in bits 1..2 and the flip in bit 0
+	 */
+	public static byte encodeOrientation(final Side side_, final Direction direction_, final boolean flipped_) {
+		return (byte)((side_.ordinal() << 3) | (direction_.ordinal() << 1) | (flipped_ ? 1 : 0));
+	}
+
+	/**
+	 * @return Number of the placements in the table
+	 */
+	public int size() {
+		return _low.length;
+	}
+
+	/**
+	 * @return Occupancy bits 0..63 of the requested placement
+	 */
+	public long getLow(final int index_) {
+		return _low[index_];
+	}
+
+	/**
+	 * @return Occupancy bits 64.. of the requested placement
+	 */
+	public long getHigh(final int index_) {
+		return _high[index_];
+	}
+
+	/**
+	 * @return true if no earlier placement covers the same bricks - the searches visit the distinct placements only
+	 */
+	public boolean isDistinct(final int index_) {
+		return _distinct[index_];
+	}
+
+	/**
+	 * @return Number of the placements (including the requested one) that cover the same bricks
+	 */
+	public int getMultiplicity(final int index_) {
+		return _multiplicities[index_];
+	}
+
+	/**
+	 * @return Number of the placements covering different bricks
+	 */
+	public int getDistinctCount() {
+		return _distinctPlacements.length;
+	}
+
+	/**
+	 * @return Index of the placements covering different bricks, in ascending order
+	 */
+	public int[] getDistinctPlacements() {
+		return _distinctPlacements.clone();
+	}
+
+	/**
+	 * @return Size of the 2D symmetry group of the piece: the number of the rotated / flipped 
+	 * images of the piece that are identical to it (1 - asymmetric, 8 - fully symmetric)
+	 */
+	public int getSymmetryCount() {
+		return PLACEMENT_COUNT / _distinctPlacements.length;
+	}
+
+	/**
+	 * @return The packed state of the requested placement - see encodeOrientation
+	 */
+	public byte getOrientation(final int index_) {
+		return _orientations[index_];
+	}
+
+	/**
+	 * @return The index of the placement with the passed packed state, -1 if the code is not a valid state
+	 */
+	public int indexOfOrientation(final int orientation_) {
+		if (orientation_ < 0 || orientation_ >= ORIENTATION_CODES) {
+			return -1;
+		}
+		return _byOrientation[orientation_];
+	}
+
+	/**
+	 * @return The edge profile of the requested placement on the passed cube edge - see CubeEdge,
+	 * 0 for the edges of the other sides
+	 */
+	public int getEdgeCode(final int index_, final int edge_) {
+		return _edgeCodes[index_ * CubeEdge.COUNT + edge_];
+	}
+
+	/**
+	 * @return The side of the cube covered by the requested placement
+	 */
+	public Side getSide(final int index_) {
+		return SIDES[_orientations[index_] >> 3];
+	}
+
+	/**
+	 * @return The direction of the requested placement
+	 */
+	public Direction getDirection(final int index_) {
+		return DIRECTIONS[(_orientations[index_] >> 1) & 3];
+	}
+
+	/**
+	 * @return true if the piece is flipped in the requested placement
+	 */
+	public boolean isFlipped(final int index_) {
+		return (_orientations[index_] & 1) != 0;
+	}
+}
@@ -2,6 +2,7 @@
  * 
  */
 package com.tauracs.cubepuzzle.model;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import com.tauracs.cubepuzzle.model.enums.*;
 
@@ -10,6 +11,25 @@ import com.tauracs.cubepuzzle.model.enums.*;
  */
 public class PuzzlePiece extends Shape {
 	
+	/**
+	 * Occupancy masks of the FRONT side (Z=0) - see Bitboard
+	 */
+	final static private long FRONT_LOW;
+	final static private long FRONT_HIGH;
+	
+	static {
+		long low = 0;
+		long high = 0;
+		for (int index=0; index<Bitboard.CELL_COUNT; index++) {
+			if (Bitboard.getZ(index) == 0) {
+				low |= Bitboard.lowBit(index);
+				high |= Bitboard.highBit(index);
+			}
+		}
+		FRONT_LOW = low;
+		FRONT_HIGH = high;
+	}
+	
 	/**
 	 * Side of the cube that is matched 
 	 * in the current state of the PuzzlePiece
@@ -19,11 +39,26 @@ public class PuzzlePiece extends Shape {
 	
 	Direction _direction = Direction.ROTATED_0;
 	
+	/**
+	 * true if the PuzzlePiece is flipped compared to the original layout
+	 */
+	boolean _flipped = false;
+	
 	/**
 	 * Char array representation of the puzzle
 	 */
 	char[][] _layout = null;
 	
+	/**
+	 * Char array representation of the puzzle as it was passed to the constructor
+	 */
+	char[][] _sourceLayout = null;
+	
+	/**
+	 * Lazily computed table of all the placements - shared between the clones
+	 */
+	PlacementTable _placements = null;
+	
 	/**
 	 * Constructor taking a string representation of the Puzzle
 	 * @param layoutString_ - String representation of the PuzzlePeace layout
@@ -40,6 +75,7 @@ public class PuzzlePiece extends Shape {
 	public PuzzlePiece(final char[][] layout_) {
 		validate(layout_);		
 		_layout = layout_;
+		_sourceLayout = layout_;
 		reset();
 	}
 	
@@ -132,19 +168,56 @@ public class PuzzlePiece extends Shape {
 	public Side getSide() {
 		return _side;
 	}
+	
+	/**
+	 * @return Returns the direction of the PuzzlePiece on its current side
+	 */
+	public Direction getDirection() {
+		return _direction;
+	}
+	
+	/**
+	 * @return true if the PuzzlePiece is flipped compared to the original layout
+	 */
+	public boolean isFlipped() {
+		return _flipped;
+	}
+	
+	/**
+	 * Returns the table of all the placements of the PuzzlePiece. 
+	 * The table is computed on the first call and does not depend on the current state.
+	 */
+	public PlacementTable getPlacements() {
+		if (_placements == null) {
+			_placements = new PlacementTable(_sourceLayout);
+		}
+		return _placements;
+	}
+	
+	/**
+	 * Sets the state of the PuzzlePiece to the requested placement 
+	 * @param index_ - index of the placement in the table returned by getPlacements()
+	 */
+	public void applyPlacement(final int index_) {
+		PlacementTable placements = getPlacements();
+		
+		_flipped = placements.isFlipped(index_);
+		_layout = _flipped ? mirror(_sourceLayout) : _sourceLayout;
+		_side = placements.getSide(index_);
+		_direction = placements.getDirection(index_);
+		setOccupancy(placements.getLow(index_), placements.getHigh(index_));
+	}
 
 	public void moveToSideFromFront(final Side side_) {
-		try{
-			Logger.getGlobal().info(String.format("Moveing Puzzle Piece from '%s' side to '%s' side\n", getSide().toString(), side_.toString()));
-			
-			for (Brick brick : this) {			
-				brick.moveToSideFromFront(side_);
-			}
-			_side = side_;
+		if (Logger.getGlobal().isLoggable(Level.FINE)) {
+			Logger.getGlobal().fine(String.format("Moveing Puzzle Piece from '%s' side to '%s' side\n", getSide().toString(), side_.toString()));
 		}
-		catch(UnsupportedOperationException ex) {
-			throw new UnsupportedOperationException("Only Panes of the Front side (Z=0) can be moved.", ex);
+		if ((getOccupancyLow() & ~FRONT_LOW) != 0 || (getOccupancyHigh() & ~FRONT_HIGH) != 0) {
+			throw new UnsupportedOperationException("Only Panes of the Front side (Z=0) can be moved.");
 		}
+		
+		transform(CellPermutation.sideMove(side_));
+		_side = side_;
 	}
 	
 	/**
@@ -152,14 +225,22 @@ public class PuzzlePiece extends Shape {
 	 */
 	public void flip() {
 		reset();
+		_layout = mirror(_layout);
+		_flipped = !_flipped;
+		createBricksFromLayout();
+	}
+	
+	/**
+	 * Creates the mirrored copy of the passed layout
+	 */
+	private static char[][] mirror(final char[][] layout_) {
 		char[][] layout = new char[Dimensions.CUBE_EDGE_SIZE][Dimensions.CUBE_EDGE_SIZE];
 		for (int y=0;y<Dimensions.CUBE_EDGE_SIZE;y++) {
 			for (int x=0;x<Dimensions.CUBE_EDGE_SIZE;x++) {
-				layout[y][Dimensions.MAX_COORD-x] = _layout[y][x];
+				layout[y][Dimensions.MAX_COORD-x] = layout_[y][x];
 			}			
 		}
-		_layout = layout;
-		createBricksFromLayout();
+		return layout;
 	}
 	
 	
@@ -167,7 +248,9 @@ public class PuzzlePiece extends Shape {
 	@Override
 	protected void rotateAroundAxis(final CoordAxis axis_,final Direction direction_) {
 		
-		Logger.getGlobal().info(String.format("Rotating  Puzzle Piece from '%s' to '%s' side\n", _direction.toString(), direction_.toString()));
+		if (Logger.getGlobal().isLoggable(Level.FINE)) {
+			Logger.getGlobal().fine(String.format("Rotating  Puzzle Piece from '%s' to '%s' side\n", _direction.toString(), direction_.toString()));
+		}
 		
 		Side side = getSide();
 		_direction = direction_;
@@ -175,13 +258,9 @@ public class PuzzlePiece extends Shape {
 		//Step 1 - Re creation of the original brick set-up - Front side
 		createBricksFromLayout();
 	
-		//Step 2 - Rotation - Front side
-		super.rotateAroundAxis(axis_, direction_);
-		
-		//Step 3 - Shiftin  Puzzle Piece to the prev side
-		if (side != Side.FRONT) {
-			moveToSideFromFront(side);			
-		}
+		//Step 2 - Rotation on the Front side and shifting the Puzzle Piece to the prev side in one pass
+		transform(axis_ == CoordAxis.Z ? CellPermutation.placement(side, direction_)
+				: CellPermutation.rotation(axis_, direction_).then(CellPermutation.sideMove(side)));
 	}
 	
 	
@@ -212,7 +291,7 @@ public class PuzzlePiece extends Shape {
 	public boolean nextState() {
 		boolean result = false;
 		
-		String prevBlock = this.toString();
+		String prevBlock = Logger.getGlobal().isLoggable(Level.FINE) ? this.toString() : null;
 		Side side = getSide();
 		
 		Direction newDirection = _direction.next();
@@ -236,8 +315,8 @@ public class PuzzlePiece extends Shape {
 			}
 		}
 		
-		if (result) {
-			Logger.getGlobal().info(String.format(" Puzzle Piece '%s' state changed: '%s'", prevBlock, this.toString()));
+		if (result && prevBlock != null) {
+			Logger.getGlobal().fine(String.format(" Puzzle Piece '%s' state changed: '%s'", prevBlock, this.toString()));
 		}
 		
 		return result;
@@ -245,16 +324,17 @@ public class PuzzlePiece extends Shape {
 	
 	@Override
 	public Shape clone() {
-		PuzzlePiece result = new PuzzlePiece(_layout);		
+		PuzzlePiece result = new PuzzlePiece(_sourceLayout);		
+		result._layout = this._layout;
 		result._direction = this._direction;
 		result._side = this._side;		
-		result.clear();
-		
-		for (Brick brick : this) {				
-			result.createBrick(brick.getX(), brick.getY(), brick.getZ());
-		}
+		result._flipped = this._flipped;
+		result._placements = this._placements;
+		result.setOccupancy(getOccupancyLow(), getOccupancyHigh());
 		
-		Logger.getGlobal().info(String.format(" Puzzle Piece '%s' cloned: '%s'", this.toString(), result.toString()));		
+		if (Logger.getGlobal().isLoggable(Level.FINE)) {
+			Logger.getGlobal().fine(String.format(" Puzzle Piece '%s' cloned: '%s'", this.toString(), result.toString()));
+		}		
 		return result;
 	}
 }
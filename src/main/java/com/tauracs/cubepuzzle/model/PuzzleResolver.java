@@ -1,18 +1,28 @@
 
 package com.tauracs.cubepuzzle.model;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
+import com.tauracs.cubepuzzle.model.enums.EvictionPolicy;
+import com.tauracs.cubepuzzle.model.enums.ResolveStatus;
 import com.tauracs.cubepuzzle.model.enums.Side;
+import com.tauracs.cubepuzzle.model.interfaces.IProgressListener;
+import com.tauracs.cubepuzzle.model.interfaces.IPuzzleResolver;
+import com.tauracs.cubepuzzle.model.interfaces.ISolutionListener;
 
 /**
  * Class for the Cube Puzzle resolution
  *
  */
-public final class PuzzleResolver {
+public final class PuzzleResolver implements IPuzzleResolver {
 	/**
 	 * Member variable storing the result Cube
 	 */
@@ -23,6 +33,30 @@ public final class PuzzleResolver {
 	 */
 	HashMap<Side,PuzzlePiece> _solution = new HashMap<Side, PuzzlePiece>();
 	
+	/**
+	 * Counters of the search
+	 */
+	private final SolverStats _stats = new SolverStats();
+	
+	/**
+	 * Default number of the failed states remembered by resolve()
+	 */
+	final static public int DEFAULT_TRANSPOSITION_TABLE_SIZE = 1 << 14;
+	
+	private int _transpositionTableSize = DEFAULT_TRANSPOSITION_TABLE_SIZE;
+	
+	private EvictionPolicy _evictionPolicy = EvictionPolicy.PREFER_LARGER_SUBTREE;
+	
+	/**
+	 * Failed states of resolve(), reused by the calls and cleared by the searches
+	 */
+	private TranspositionTable _transpositions = null;
+	
+	/**
+	 * Solution counts of the states of count(), reused by the calls
+	 */
+	private CountTable _counts = null;
+	
 	/**
 	 * Getter of the result cube
 	 * @return
@@ -39,190 +73,254 @@ public final class PuzzleResolver {
 		return _solution.values();
 	}
 	
+	/**
+	 * Getter of the counters of the last (or the running) search
+	 * @return
+	 */
+	public SolverStats getStats() {
+		return _stats;
+	}
+	
+	/**
+	 * Sets the number of the failed partial states remembered by resolve(), rounded down to a power of two.
+	 * 0 disables the transposition table.
+	 */
+	public synchronized void setTranspositionTableSize(final int size_) {
+		if (size_ < 0 || size_ == 1) {
+			throw new IllegalArgumentException("Invalid transposition table size: " + size_);
+		}
+		_transpositionTableSize = size_;
+		_transpositions = null;
+	}
+	
+	public int getTranspositionTableSize() {
+		return _transpositionTableSize;
+	}
+	
+	/**
+	 * Sets which failed state is kept when two states collide in the transposition table
+	 */
+	public synchronized void setEvictionPolicy(final EvictionPolicy evictionPolicy_) {
+		if (evictionPolicy_ == null) {
+			throw new IllegalArgumentException("evictionPolicy_ argument is null");
+		}
+		_evictionPolicy = evictionPolicy_;
+		_transpositions = null;
+	}
+	
+	public EvictionPolicy getEvictionPolicy() {
+		return _evictionPolicy;
+	}
+	
 	/**
 	 * Tries to resolve the Cube puzzle with the passed PuzzlePices
 	 * @param puzzlePieces_ the pieces 
 	 * @return
 	 */
 	public boolean resolve( final List<PuzzlePiece> puzzlePieces_) {
-		_resultCube = null;
-		_solution = new HashMap<Side, PuzzlePiece>();
-		
-		HashSet<PuzzlePiece> tempSolution = new HashSet<PuzzlePiece>();
-		
-		boolean result = resolve(new Cube(), puzzlePieces_, tempSolution);
-		
-		if (!result) {
-			_resultCube = null;
-			_solution = new HashMap<Side, PuzzlePiece>();
+		return resolve(puzzlePieces_, null) != null;
+	}
+	
+	/**
+	 * Resolves the Cube puzzle in the background.
+	 * 
+	 * The search checks the cancellation of the returned future, the deadline and the node budget
+	 * cooperatively and it stops with the corresponding status. The resolver runs one search at a time:
+	 * the searches of concurrent calls wait for each other (the deadline keeps running meanwhile),
+	 * and the state of the resolver (getSolution(), getStats()...) is updated as by resolve().
+	 * 
+	 * @param puzzlePieces_ the pieces
+	 * @param timeoutMillis_ time allowed from the call, including the time in the queue of the executor - 0 for no limit
+	 * @param nodeBudget_ number of the nodes allowed to visit - 0 for no limit
+	 * @param listener_ receiver of the progress reports, called from the thread of the search - can be null
+	 * @param executor_ runs the search
+	 * @return the future of the result, cancelling it stops the search
+	 */
+	public CompletableFuture<ResolveResult> resolveAsync(final List<PuzzlePiece> puzzlePieces_, final long timeoutMillis_, final long nodeBudget_,
+			final IProgressListener listener_, final Executor executor_) {
+		if (puzzlePieces_ == null) {
+			throw new IllegalArgumentException("puzzlePieces_ argument is null");
 		}
-		else{
-			for (PuzzlePiece piece : tempSolution) {
-				_solution.put(piece.getSide(), piece);
-			}
+		if (executor_ == null) {
+			throw new IllegalArgumentException("executor_ argument is null");
 		}
+		final SearchControl control = new SearchControl(TimeUnit.MILLISECONDS.toNanos(timeoutMillis_), nodeBudget_, listener_, puzzlePieces_.size());
+		
+		CompletableFuture<ResolveResult> result = CompletableFuture.supplyAsync(new Supplier<ResolveResult>() {
+			public ResolveResult get() {
+				long start = System.nanoTime();
+				Solution solution;
+				synchronized (PuzzleResolver.this) {
+					solution = resolve(puzzlePieces_, control);
+					control.finish();
+				}
+				
+				ResolveStatus status = control.getStopReason();
+				if (solution != null) {
+					status = ResolveStatus.SOLVED;
+				}
+				else if (status == null) {
+					status = ResolveStatus.UNSOLVABLE;
+				}
+				return new ResolveResult(status, solution, control.getNodeCount(), System.nanoTime() - start);
+			}
+		}, executor_);
 		
+		//Cancelling or completing the future from outside stops the search
+		result.whenComplete(new BiConsumer<ResolveResult, Throwable>() {
+			public void accept(final ResolveResult result_, final Throwable error_) {
+				control.cancel();
+			}
+		});
 		return result;
 	}
 	
 	/**
-	 * Generates a 360T string formatted (unfolded) string representation
-	 * @return
+	 * Resolves the Cube puzzle in the common pool - see resolveAsync(List, long, long, IProgressListener, Executor)
 	 */
-	public String to360TString() {
-		return toString().replace(Brick.EMPTY_BLOCK_MARKER, ' ').replace(Brick.BRICK_MARKER, 'o');
+	public CompletableFuture<ResolveResult> resolveAsync(final List<PuzzlePiece> puzzlePieces_, final long timeoutMillis_, final long nodeBudget_,
+			final IProgressListener listener_) {
+		return resolveAsync(puzzlePieces_, timeoutMillis_, nodeBudget_, listener_, ForkJoinPool.commonPool());
 	}
 	
 	/**
-	 * Standard string representation of an instance
+	 * Runs the first solution search suiting the pieces. The searches share the state of the resolver,
+	 * so they run one at a time.
+	 * @param control_ - stop and progress of the search, null if the search runs to the end
+	 * @return the solution, null if there is none or the search was stopped
 	 */
-	@Override
-	public String toString() {
-		StringBuilder sb = new StringBuilder();
-		String string = null;
+	private synchronized Solution resolve(final List<PuzzlePiece> puzzlePieces_, final SearchControl control_) {
+		_resultCube = null;
+		_solution = new HashMap<Side, PuzzlePiece>();
 		
-		for (int i=0; i<Dimensions.CUBE_EDGE_SIZE; i++) {
-			string ="";			
-			string = generateRow(_solution.get(Side.LEFT), i, string);
-			string = generateRow(_solution.get(Side.FRONT), i, string);
-			string = generateRow(_solution.get(Side.RIGHT), i, string);
-			sb.append(string);
-			sb.append("\n");
-		}
+		_stats.start(puzzlePieces_.size());
+		boolean result;
+		Cube cube;
+		int[] placements;
 		
-		for (int i=Dimensions.CUBE_EDGE_SIZE; i<2*Dimensions.CUBE_EDGE_SIZE; i++) {
-			string = getIndentRow();
-			string = generateRow(_solution.get(Side.BOTTOM), i, string);
-			sb.append(string);
-			sb.append("\n");
+		//Pieces covering the cube exactly are placed side by side with the edge index
+		if (FaceSearch.isApplicable(puzzlePieces_)) {
+			FaceSearch search = new FaceSearch(puzzlePieces_, _stats);
+			search.setTranspositionTable(getTranspositionTable(puzzlePieces_.size()));
+			search.setControl(control_);
+			result = search.findFirst();
+			cube = search.getCube();
+			placements = search.getPlacements();
 		}
-		
-		for (int i=2*Dimensions.CUBE_EDGE_SIZE; i<3*Dimensions.CUBE_EDGE_SIZE; i++) {
-			string = getIndentRow();
-			string = generateRow(_solution.get(Side.BACK), i, string);
-			sb.append(string);
-			sb.append("\n");
+		//Pieces that have to cover every cell branch on the most constrained cell
+		else if (CellSearch.isApplicable(puzzlePieces_)) {
+			CellSearch search = new CellSearch(puzzlePieces_, _stats);
+			search.setTranspositionTable(getTranspositionTable(puzzlePieces_.size()));
+			search.setControl(control_);
+			result = search.findFirst();
+			cube = search.getCube();
+			placements = search.getPlacements();
 		}
+		else {
+			BacktrackingSearch search = new BacktrackingSearch(puzzlePieces_, false, _stats);
+			search.setTranspositionTable(getTranspositionTable(puzzlePieces_.size()));
+			search.setControl(control_);
+			result = search.findFirst();
+			cube = search.getCube();
+			placements = search.getPlacements();
+		}
+		_stats.finish();
 		
-		for (int i=3*Dimensions.CUBE_EDGE_SIZE; i<4*Dimensions.CUBE_EDGE_SIZE; i++) {
-			string = getIndentRow();
-			string = generateRow(_solution.get(Side.TOP), i, string);
-			sb.append(string);
-			sb.append("\n");
+		if (!result) {
+			return null;
 		}
-				
-		return sb.toString();
+		
+		Solution solution = new Solution(puzzlePieces_, placements, 1);
+		_resultCube = cube;
+		_solution = solution.getPieces();
+		return solution;
 	}
 	
-	
 	/**
-	 * Generates one string row for the passed puzzle piece
-	 * 
-	 * @param piece_ - puzzle piece 
-	 * @param lineIdx_ - line number of 
-	 * @param prefix_ - previously generated content for the row
-	 * @return
+	 * @return The transposition table of a search with the passed number of pieces, null if it is disabled or not applicable
 	 */
-	private static String generateRow(final PuzzlePiece piece_, final int lineIdx_, final String prefix_) {
-		String result = null;
-		if (piece_ != null) {
-			result = String.format("%s%s", prefix_, piece_.to360TString().split("\n")[lineIdx_ % Dimensions.CUBE_EDGE_SIZE]);
+	private TranspositionTable getTranspositionTable(final int pieceCount_) {
+		if (_transpositionTableSize == 0 || !TranspositionTable.isApplicable(pieceCount_)) {
+			return null;
 		}
-		else{
-			result = String.format("%s%s", prefix_, getIndentRow());
+		if (_transpositions == null) {
+			_transpositions = new TranspositionTable(_transpositionTableSize, _evictionPolicy);
 		}
-		return result;
+		return _transpositions;
 	}
-
+	
 	/**
-	 * Generates indentation string
+	 * Enumerates all the solutions of the Cube puzzle that are unique up to rotating or mirroring in 3D.
+	 * The solutions are passed to the listener as they are found, the state of the resolver is not changed.
+	 * 
+	 * @param puzzlePieces_ the pieces
+	 * @param listener_ receiver of the solutions, returning false stops the enumeration 
+	 * @return the number of the solutions passed to the listener
 	 */
-	private static String getIndentRow() {
-		String indentBlock = "";
-		
-			for (int i=0;i<Dimensions.CUBE_EDGE_SIZE;i++) {
-				indentBlock=String.format(" %s", indentBlock);
-			}
-			indentBlock=String.format("%s", indentBlock);
-			
-		return indentBlock;
+	public synchronized long resolveAll(final List<PuzzlePiece> puzzlePieces_, final ISolutionListener listener_) {
+		_stats.start(puzzlePieces_.size());
+		long result = new BacktrackingSearch(puzzlePieces_, true, _stats).enumerate(listener_);
+		_stats.finish();
+		return result;
 	}
-
 	
 	/**
-	 * Puzzle Resolver recursive function
+	 * Counts the solutions of the Cube puzzle without creating them, the state of the resolver is not changed.
+	 * Without the split the counts of the partial states reached along several paths are reused,
+	 * with it the classes of the solutions are counted as resolveAll() visits them.
+	 * Identical pieces count as distinct pieces in the total: swapping two of them gives an other solution.
+	 * The classes are unique up to rotating or mirroring and swapping identical pieces, like in resolveAll(),
+	 * so both modes return the same total.
 	 * 
-	 * @param cube_ - The helper Cube instance whose (and its clones) building blocks are eliminated
-	 * @param puzzlePieces_ - The set of puzzlePieces_ that should be used for the resolution
-	 * @param solution_ - Set containing the list of the various puzzle pieces 
-	 * @return true if the solution was successful - solution_ contains the puzzlePieces_
-	 */
-	private boolean resolve(final Cube cube_, final List<PuzzlePiece> puzzlePieces_,final HashSet<PuzzlePiece> solution_)
-	{
-		boolean result = false;
-		
-		//Recursion ends when cube is empty or there are no puzzle elements
-		if (cube_.size() == 0
-				||
-			puzzlePieces_.isEmpty()) {
-			_resultCube = cube_;
-			return true;
-		}
-		
-		for (PuzzlePiece piece : puzzlePieces_) {
-			// Checking puzzle pieces from the list			 
-			boolean extraction=cube_.extract(piece);
-			boolean mirrored = false;
-			
-			// Checking until extraction was successful or all the states of the PuzzlePiece were visited
-			 
-			while(!extraction)
-			{
-				if (piece.nextState()) {
-					extraction = cube_.extract(piece);
-				}
-				else{
-					if (mirrored) {
-						break;
-					}else{
-						piece.flip();
-						mirrored = true;
-					}
-				}
-			}
-			
-			/**
-			 * If there was Puzzle state found that was extracted 
-			 */
-			if (extraction) {
-				//Adding the Piece to the solution
-				solution_.add(piece);
-				
-				//Composing a clone list from the remaining puzzle pieces
-				List<PuzzlePiece> list = new ArrayList<PuzzlePiece>();				
-				for (PuzzlePiece b : puzzlePieces_) {
-					if (b == piece)
-						continue;
-					
-					PuzzlePiece clonePuzzlePiece = (PuzzlePiece)b.clone();
-					list.add(clonePuzzlePiece);
-				}
-				
-				//Creating a clone cube
-				Cube cloneCube = (Cube)cube_.clone();
-				
-				//Trying the resolution with the clones recursively
-				extraction = resolve(cloneCube, list, solution_);
-				if (!extraction) {					
-					//if there was an issue with the sub extract - the current piece should be removed					
-					solution_.remove(piece);
-				}
-				
-				return extraction;
+	 * @param puzzlePieces_ the pieces
+	 * @param bySymmetryClass_ true if the solutions should be counted by symmetry class as well
+	 * @return the number of the solutions
+	 */
+	public synchronized SolutionCount count(final List<PuzzlePiece> puzzlePieces_, final boolean bySymmetryClass_) {
+		_stats.start(puzzlePieces_.size());
+		BacktrackingSearch search = new BacktrackingSearch(puzzlePieces_, bySymmetryClass_, _stats);
+		if (!bySymmetryClass_ && TranspositionTable.isApplicable(puzzlePieces_.size())) {
+			if (_counts == null) {
+				_counts = new CountTable(CountTable.DEFAULT_CAPACITY);
 			}
+			search.setCountTable(_counts);
 		}
-		
+		SolutionCount result = search.count();
+		_stats.finish();
 		return result;
 	}
-
+	
+	/**
+	 * Generates a 360T string formatted (unfolded) string representation
+	 * @return
+	 */
+	public String to360TString() {
+		return to360TString(_solution);
+	}
+	
+	/**
+	 * Standard string representation of an instance
+	 */
+	@Override
+	public String toString() {
+		return toString(_solution);
+	}
+	
+	/**
+	 * Generates a 360T string formatted (unfolded) string representation of the passed solution
+	 * @param solution_ - PuzzlePieces of the solution by side
+	 * @return
+	 */
+	static String to360TString(final Map<Side,PuzzlePiece> solution_) {
+		return SolutionRenderer.toString(solution_, 'o', ' ');
+	}
+	
+	/**
+	 * Generates the unfolded string representation of the passed solution
+	 * @param solution_ - PuzzlePieces of the solution by side
+	 * @return
+	 */
+	static String toString(final Map<Side,PuzzlePiece> solution_) {
+		return SolutionRenderer.toString(solution_, Brick.BRICK_MARKER, Brick.EMPTY_BLOCK_MARKER);
+	}
 }
@@ -0,0 +1,58 @@
+package com.tauracs.cubepuzzle.model;
+
+import com.tauracs.cubepuzzle.model.enums.ResolveStatus;
+
+/**
+ * Result of an asynchronous resolution - see PuzzleResolver.resolveAsync()
+ *
+ */
+public final class ResolveResult {
+
+	private final ResolveStatus _status;
+
+	private final Solution _solution;
+
+	private final long _nodeCount;
+
+	private final long _elapsedNanos;
+
+	ResolveResult(final ResolveStatus status_, final Solution solution_, final long nodeCount_, final long elapsedNanos_) {
+		_status = status_;
+		_solution = solution_;
+		_nodeCount = nodeCount_;
+		_elapsedNanos = elapsedNanos_;
+	}
+
+	/**
+	 * @return How the search ended
+	 */
+	public ResolveStatus getStatus() {
+		return _status;
+	}
+
+	/**
+	 * @return The solution, null unless the status is SOLVED
+	 */
+	public Solution getSolution() {
+		return _solution;
+	}
+
+	/**
+	 * @return Number of the visited nodes
+	 */
+	public long getNodeCount() {
+		return _nodeCount;
+	}
+
+	/**
+	 * @return Time of the search, without the time spent in the queue of the executor
+	 */
+	public long getElapsedNanos() {
+		return _elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s, nodes: %d, elapsed: %d us", _status, _nodeCount, _elapsedNanos / 1000);
+	}
+}
@@ -0,0 +1,166 @@
+package com.tauracs.cubepuzzle.model;
+
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Immutable table of all the placements of a puzzle piece on a cube of any edge size.
+ *
+ * The piece is put on the FRONT side (layout cell [y][x] is the cell (x, y, 0)) and the
+ * placements are the images of this mask by the 48 symmetries of the cube (see CubeGeometry):
+ * 6 sides * 4 directions * 2 (flipped or not). No Brick instances are created, the masks are
+ * multi-word bitsets stored in one flat array.
+ *
+ */
+public final class ScalablePlacementTable {
+	
+	private final CubeGeometry _geometry;
+	
+	/**
+	 * Masks of the placements, placement I starts at word I * getWordCount()
+	 */
+	private final long[] _masks;
+	
+	private final Side[] _sides;
+	
+	private final boolean[] _flipped;
+	
+	/**
+	 * Flag of the placements whose bricks are not covered by an earlier placement
+	 */
+	private final boolean[] _distinct;
+	
+	/**
+	 * Number of the placements covering the same bricks as the placement
+	 */
+	private final int[] _multiplicities;
+	
+	private final int _brickCount;
+	
+	/**
+	 * @param geometry_ - geometry of the cube
+	 * @param layout_ - Char array representation of the piece (edge size * edge size), the space characters are empty cells
+	 */
+	public ScalablePlacementTable(final CubeGeometry geometry_, final char[][] layout_) {
+		int edgeSize = geometry_.getEdgeSize();
+		if (layout_ == null || layout_.length != edgeSize) {
+			throw new IllegalArgumentException(String.format("layout_ should be an %s * %s matrix", edgeSize, edgeSize));
+		}
+		
+		_geometry = geometry_;
+		int words = geometry_.getWordCount();
+		long[] front = new long[words];
+		
+		for (int y=0; y<edgeSize; y++) {
+			if (layout_[y] == null || layout_[y].length != edgeSize) {
+				throw new IllegalArgumentException(String.format("layout_ should be an %s * %s matrix", edgeSize, edgeSize));
+			}
+			for (int x=0; x<edgeSize; x++) {
+				if (!Character.isSpaceChar(layout_[y][x])) {
+					Bitset.set(front, 0, geometry_.indexOf(x, y, 0));
+				}
+			}
+		}
+		
+		_brickCount = Bitset.cardinality(front, 0, words);
+		_masks = new long[CubeGeometry.SYMMETRY_COUNT * words];
+		_sides = new Side[CubeGeometry.SYMMETRY_COUNT];
+		_flipped = new boolean[CubeGeometry.SYMMETRY_COUNT];
+		_distinct = new boolean[CubeGeometry.SYMMETRY_COUNT];
+		_multiplicities = new int[CubeGeometry.SYMMETRY_COUNT];
+		
+		for (int i=0; i<CubeGeometry.SYMMETRY_COUNT; i++) {
+			geometry_.transform(i, front, 0, _masks, i * words);
+			_sides[i] = geometry_.transform(i, Side.FRONT);
+			_flipped[i] = geometry_.isMirroring(i);
+			
+			_distinct[i] = true;
+			_multiplicities[i] = 1;
+			for (int j=0; j<i; j++) {
+				if (Bitset.equals(_masks, i * words, _masks, j * words, words)) {
+					_multiplicities[i]++;
+					_multiplicities[j]++;
+					_distinct[i] = false;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return The geometry of the cube
+	 */
+	public CubeGeometry getGeometry() {
+		return _geometry;
+	}
+	
+	/**
+	 * @return Number of the placements in the table
+	 */
+	public int size() {
+		return _sides.length;
+	}
+	
+	/**
+	 * @return Number of the longs of a mask
+	 */
+	public int getWordCount() {
+		return _geometry.getWordCount();
+	}
+	
+	/**
+	 * @return Number of the bricks of the piece
+	 */
+	public int getBrickCount() {
+		return _brickCount;
+	}
+	
+	/**
+	 * @return The index of the first word of the requested placement in getMasks()
+	 */
+	public int getOffset(final int index_) {
+		return index_ * _geometry.getWordCount();
+	}
+	
+	/**
+	 * @return The flat array of the masks - it must not be modified
+	 */
+	long[] getMasks() {
+		return _masks;
+	}
+	
+	/**
+	 * @return Copy of the mask of the requested placement
+	 */
+	public long[] getMask(final int index_) {
+		long[] result = new long[_geometry.getWordCount()];
+		System.arraycopy(_masks, getOffset(index_), result, 0, result.length);
+		return result;
+	}
+	
+	/**
+	 * @return The side of the cube covered by the requested placement
+	 */
+	public Side getSide(final int index_) {
+		return _sides[index_];
+	}
+	
+	/**
+	 * @return true if the piece is flipped in the requested placement
+	 */
+	public boolean isFlipped(final int index_) {
+		return _flipped[index_];
+	}
+	
+	/**
+	 * @return true if no earlier placement covers the same bricks
+	 */
+	public boolean isDistinct(final int index_) {
+		return _distinct[index_];
+	}
+	
+	/**
+	 * @return Number of the placements (including the requested one) that cover the same bricks
+	 */
+	public int getMultiplicity(final int index_) {
+		return _multiplicities[index_];
+	}
+}
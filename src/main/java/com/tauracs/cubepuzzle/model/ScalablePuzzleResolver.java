@@ -0,0 +1,196 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.List;
+
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Class for the resolution of Cube puzzles with a configurable edge size.
+ *
+ * The search is the make/unmake depth first search of PuzzleResolver over multi-word
+ * masks: level N chooses the placement of the Nth piece, the placements are extracted from
+ * one working mask and restored when the search steps back. If the pieces have more bricks than
+ * the cube has cells, a level can leave its piece out as well, provided that the pieces after it still
+ * have enough bricks for the uncovered cells - like BacktrackingSearch.
+ *
+ */
+public final class ScalablePuzzleResolver {
+	
+	private final CubeGeometry _geometry;
+	
+	/**
+	 * Counters of the search
+	 */
+	private final SolverStats _stats = new SolverStats();
+	
+	private SolverStats.Recorder _recorder;
+	
+	private ScalablePlacementTable[] _tables = new ScalablePlacementTable[0];
+	
+	/**
+	 * The chosen placement index of the pieces, -1 if the piece is not placed
+	 */
+	private int[] _placements = new int[0];
+	
+	/**
+	 * The surface cells that are not covered by the placed pieces
+	 */
+	private long[] _cube;
+	
+	/**
+	 * Number of the uncovered cells
+	 */
+	private int _uncovered;
+	
+	/**
+	 * Number of the bricks of the pieces from the level on: [level]
+	 */
+	private int[] _suffixBricks = new int[1];
+	
+	private boolean _resolved = false;
+	
+	/**
+	 * @param edgeSize_ - edge size of the cube between Dimensions.MIN_EDGE_SIZE and Dimensions.MAX_EDGE_SIZE
+	 */
+	public ScalablePuzzleResolver(final int edgeSize_) {
+		_geometry = CubeGeometry.of(edgeSize_);
+	}
+	
+	/**
+	 * Getter of the geometry of the cube
+	 * @return
+	 */
+	public CubeGeometry getGeometry() {
+		return _geometry;
+	}
+	
+	/**
+	 * Getter of the counters of the last (or the running) search
+	 * @return
+	 */
+	public SolverStats getStats() {
+		return _stats;
+	}
+	
+	/**
+	 * Tries to resolve the Cube puzzle with the passed pieces
+	 * @param layouts_ - Char array representation of the pieces (edge size * edge size)
+	 * @return true if a solution was found - see getPlacement()
+	 */
+	public boolean resolve(final List<char[][]> layouts_) {
+		_tables = new ScalablePlacementTable[layouts_.size()];
+		_placements = new int[layouts_.size()];
+		for (int i=0; i<_tables.length; i++) {
+			_tables[i] = new ScalablePlacementTable(_geometry, layouts_.get(i));
+			_placements[i] = -1;
+		}
+		_cube = _geometry.createFullMask();
+		_uncovered = _geometry.getCellCount();
+		_suffixBricks = new int[_tables.length + 1];
+		for (int i=_tables.length-1; i>=0; i--) {
+			_suffixBricks[i] = _suffixBricks[i + 1] + _tables[i].getBrickCount();
+		}
+		
+		_stats.start(_tables.length);
+		_recorder = _stats.createRecorder();
+		_resolved = search(0);
+		_recorder.flush();
+		_stats.finish();
+		
+		return _resolved;
+	}
+	
+	/**
+	 * @return The placement index of the requested piece in the last solution, -1 if the piece was not needed
+	 */
+	public int getPlacement(final int pieceIdx_) {
+		return _placements[pieceIdx_];
+	}
+	
+	/**
+	 * @return The placement table of the requested piece of the last resolve() call
+	 */
+	public ScalablePlacementTable getPlacements(final int pieceIdx_) {
+		return _tables[pieceIdx_];
+	}
+	
+	/**
+	 * @return The side covered by the requested piece in the last solution, null if the piece was not needed
+	 */
+	public Side getSide(final int pieceIdx_) {
+		return _placements[pieceIdx_] >= 0 ? _tables[pieceIdx_].getSide(_placements[pieceIdx_]) : null;
+	}
+	
+	/**
+	 * @return The cells that are not covered by the last solution, null if there was no solution
+	 */
+	public long[] getResultCube() {
+		return _resolved ? _cube.clone() : null;
+	}
+	
+	/**
+	 * Recursive step of the search
+	 * @param depth_ - level of the search
+	 * @return true if the search succeeded - the state of the successful branch is kept
+	 */
+	private boolean search(final int depth_) {
+		int words = _geometry.getWordCount();
+		
+		_recorder.node(depth_);
+		if (depth_ == _tables.length || Bitset.isEmpty(_cube, 0, words)) {
+			return true;
+		}
+		
+		long start = _recorder.startTiming();
+		ScalablePlacementTable table = _tables[depth_];
+		long[] masks = table.getMasks();
+		boolean result = false;
+		
+		for (int i=0; i<table.size() && !result; i++) {
+			if (!table.isDistinct(i)) {
+				continue;
+			}
+			
+			_recorder.placement();
+			int offset = table.getOffset(i);
+			if (!Bitset.containsAll(_cube, 0, masks, offset, words)) {
+				_recorder.failedExtraction();
+				continue;
+			}
+			Bitset.andNot(_cube, 0, masks, offset, words);
+			_uncovered -= table.getBrickCount();
+			_placements[depth_] = i;
+			
+			result = search(depth_ + 1);
+			
+			if (!result) {
+				_recorder.backtrack();
+				_placements[depth_] = -1;
+				_uncovered += table.getBrickCount();
+				Bitset.or(_cube, 0, masks, offset, words);
+			}
+		}
+		
+		//The piece is left out if the pieces after it can still cover the uncovered cells
+		if (!result && _suffixBricks[depth_ + 1] >= _uncovered) {
+			result = search(depth_ + 1);
+		}
+		
+		_recorder.stopTiming(depth_, start);
+		return result;
+	}
+	
+	/**
+	 * Standard string representation of an instance: the sides and the placements of the pieces
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (int piece=0; piece<_placements.length; piece++) {
+			result.append(String.format("Piece %d: %s\n", piece, _placements[piece] >= 0 
+					? String.format("%s side, placement %d%s", getSide(piece), _placements[piece], _tables[piece].isFlipped(_placements[piece]) ? ", flipped" : "")
+					: "not placed"));
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,168 @@
+package com.tauracs.cubepuzzle.model;
+
+import com.tauracs.cubepuzzle.model.enums.ResolveStatus;
+import com.tauracs.cubepuzzle.model.interfaces.IProgressListener;
+
+/**
+ * Cooperative stop and progress reporting of a search.
+ *
+ * The search reports every node with node() and the position of the current branch with branch().
+ * The node budget is checked at every node; the cancellation, the deadline and the progress
+ * listener only at every CHECK_INTERVAL nodes, so the clock is rarely read. Once node() returned
+ * false the search has to unwind without storing its failed states, they are not proven.
+ *
+ * The estimated fraction done is the part of the search tree left behind by the current path,
+ * assuming that the sibling subtrees are of equal size.
+ *
+ */
+final class SearchControl {
+
+	/**
+	 * Number of the nodes between two checks of the clock and the cancellation
+	 */
+	final static private int CHECK_INTERVAL = 1024;
+
+	/**
+	 * Minimum time between two progress reports
+	 */
+	final static private long PROGRESS_INTERVAL_NANOS = 100L * 1000 * 1000;
+
+	private final boolean _hasDeadline;
+
+	/**
+	 * Deadline in System.nanoTime() - valid if _hasDeadline
+	 */
+	private final long _deadline;
+
+	private final long _nodeBudget;
+
+	private final IProgressListener _listener;
+
+	/**
+	 * Position of the current branch and the number of the branches by depth
+	 */
+	private final int[] _positions;
+	private final int[] _counts;
+
+	private volatile boolean _cancelled = false;
+
+	private volatile ResolveStatus _stopReason = null;
+
+	private long _nodeCount = 0;
+
+	/**
+	 * Nodes until the next check - the first node is checked
+	 */
+	private int _countdown = 1;
+
+	private long _nextProgress;
+
+	/**
+	 * @param timeoutNanos_ - time allowed from now, 0 or negative for no deadline
+	 * @param nodeBudget_ - number of the nodes allowed, 0 or negative for no budget
+	 * @param listener_ - receiver of the progress reports, can be null
+	 * @param depthCount_ - maximum depth of the search
+	 */
+	SearchControl(final long timeoutNanos_, final long nodeBudget_, final IProgressListener listener_, final int depthCount_) {
+		long now = System.nanoTime();
+		_hasDeadline = timeoutNanos_ > 0;
+		_deadline = now + timeoutNanos_;
+		_nodeBudget = nodeBudget_ > 0 ? nodeBudget_ : Long.MAX_VALUE;
+		_listener = listener_;
+		_positions = new int[depthCount_ + 1];
+		_counts = new int[depthCount_ + 1];
+		_nextProgress = now + PROGRESS_INTERVAL_NANOS;
+	}
+
+	/**
+	 * Requests the search to stop, it can be called from any thread
+	 */
+	void cancel() {
+		_cancelled = true;
+	}
+
+	/**
+	 * @return The reason of the stop, null if the search was not stopped
+	 */
+	ResolveStatus getStopReason() {
+		return _stopReason;
+	}
+
+	/**
+	 * @return Number of the nodes reported by the search
+	 */
+	long getNodeCount() {
+		return _nodeCount;
+	}
+
+	/**
+	 * Counts a node of the search
+	 * @param depth_ - depth of the node
+	 * @return false if the search has to stop
+	 */
+	boolean node(final int depth_) {
+		if (_stopReason != null) {
+			return false;
+		}
+		if (_nodeCount == _nodeBudget) {
+			_stopReason = ResolveStatus.BUDGET_EXCEEDED;
+			return false;
+		}
+		_nodeCount++;
+		if (--_countdown > 0) {
+			return true;
+		}
+		_countdown = CHECK_INTERVAL;
+
+		if (_cancelled) {
+			_stopReason = ResolveStatus.CANCELLED;
+			return false;
+		}
+		long now = System.nanoTime();
+		if (_hasDeadline && now - _deadline >= 0) {
+			_stopReason = ResolveStatus.TIMED_OUT;
+			return false;
+		}
+		if (_listener != null && now - _nextProgress >= 0) {
+			_nextProgress = now + PROGRESS_INTERVAL_NANOS;
+			_listener.onProgress(_nodeCount, depth_, getFraction(depth_));
+		}
+		return true;
+	}
+
+	/**
+	 * Records the branch of the node that is entered
+	 * @param depth_ - depth of the node
+	 * @param position_ - index of the branch
+	 * @param count_ - number of the branches of the node
+	 */
+	void branch(final int depth_, final int position_, final int count_) {
+		_positions[depth_] = position_;
+		_counts[depth_] = count_;
+	}
+
+	/**
+	 * @return The estimated fraction of the search tree that is done when the node at the passed depth is visited
+	 */
+	double getFraction(final int depth_) {
+		double result = 0;
+		double weight = 1;
+		for (int depth=0; depth<depth_ && depth<_counts.length; depth++) {
+			if (_counts[depth] == 0) {
+				break;
+			}
+			result += weight * _positions[depth] / _counts[depth];
+			weight /= _counts[depth];
+		}
+		return result;
+	}
+
+	/**
+	 * Sends the final progress report of a search that was not stopped
+	 */
+	void finish() {
+		if (_listener != null && _stopReason == null) {
+			_listener.onProgress(_nodeCount, 0, 1.0);
+		}
+	}
+}
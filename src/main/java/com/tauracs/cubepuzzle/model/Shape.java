@@ -1,9 +1,9 @@
 package com.tauracs.cubepuzzle.model;
 
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.NoSuchElementException;
 import com.tauracs.cubepuzzle.model.enums.CoordAxis;
 import com.tauracs.cubepuzzle.model.enums.Direction;
 import com.tauracs.cubepuzzle.model.enums.Side;
@@ -15,16 +15,52 @@ import com.tauracs.cubepuzzle.model.interfaces.IBrick;
  */
 public abstract class Shape implements Iterable<Brick>  {
 	
+	final static private int EDGE = Dimensions.CUBE_EDGE_SIZE;
+	
+	final static private Side[] SIDES = Side.values();
+	
+	/**
+	 * Face mask bit of the surface cells: [side][bit index], 0 if the cell is not on the side.
+	 * Bit y * EDGE + x of a face mask is the brick (x, y) of the side as it is printed - see getBricksNormalized()
+	 */
+	final static private int[][] FACE_BITS = new int[SIDES.length][Bitboard.CELL_COUNT];
+	
+	/**
+	 * Bit index of the surface cell of the face mask bits: [side][face bit]
+	 */
+	final static private int[][] FACE_CELLS = new int[SIDES.length][EDGE * EDGE];
+	
+	static {
+		for (Side side : SIDES) {
+			CellPermutation normalization = CellPermutation.normalization(side);
+			for (int index=0; index<Bitboard.CELL_COUNT; index++) {
+				if (isOnSide(Bitboard.getX(index), Bitboard.getY(index), Bitboard.getZ(index), side)) {
+					Brick normalized = Brick.valueOf(normalization.getTarget(Brick.valueOf(Bitboard.getX(index), Bitboard.getY(index), Bitboard.getZ(index)).getIndex()));
+					int bit = normalized.getY() * EDGE + normalized.getX();
+					FACE_BITS[side.ordinal()][index] = 1 << bit;
+					FACE_CELLS[side.ordinal()][bit] = index;
+				}
+			}
+		}
+	}
 	
 	/**
-	 * Set containing all the brick instances  
+	 * Occupancy of the surface cells (bits 0..63) - see Bitboard
 	 */
-	private Set<Brick> _brickSet = new LinkedHashSet<Brick>();
+	private long _low = 0;
 	
 	/**
-	 * Array based 'index' for the bricks of current shape
+	 * Occupancy of the surface cells (bits 64..) - see Bitboard
 	 */
-	private Brick[][][] _bricks = new Brick[Dimensions.CUBE_EDGE_SIZE][Dimensions.CUBE_EDGE_SIZE][Dimensions.CUBE_EDGE_SIZE];
+	private long _high = 0;
+	
+	/**
+	 * Face masks of the sides by ordinal - see FACE_BITS. 
+	 * Maintained by the single brick operations and the transforms, rebuilt on demand after the bulk updates.
+	 */
+	private int[] _faces = new int[SIDES.length];
+	
+	private boolean _facesValid = true;
 
 	/**
 	 * Creates brick on the give coordinates.
@@ -36,17 +72,21 @@ public abstract class Shape implements Iterable<Brick>  {
 	 */
 	protected Brick createBrick(int x_, int y_, int z_) {
 		
-		Brick result = new Brick(x_, y_, z_);
-		Brick brickInArray = _bricks[x_][y_][z_];
+		int index = Bitboard.indexOf(x_, y_, z_);
 		
-		if (brickInArray != null) {
-			_brickSet.remove(brickInArray);
+		if (index < 0) {
+			throw new IllegalArgumentException("Bricks can be created only on the surface of the cube");
 		}
 		
-		_bricks[x_][y_][z_] =  result;		
-		_brickSet.add(result);
+		_low |= Bitboard.lowBit(index);
+		_high |= Bitboard.highBit(index);
+		if (_facesValid) {
+			for (int side=0; side<SIDES.length; side++) {
+				_faces[side] |= FACE_BITS[side][index];
+			}
+		}
 		
-		return result;
+		return Brick.valueOf(x_, y_, z_);
 	}
 	
 	/**
@@ -55,21 +95,31 @@ public abstract class Shape implements Iterable<Brick>  {
 	 * @return true if the operation was successful
 	 */
 	public boolean remove(IBrick brick_) {
-		boolean result = _brickSet.remove(brick_);
+		int index = Bitboard.indexOf(brick_.getX(), brick_.getY(), brick_.getZ());
 		
-		if (result) {
-			_bricks[brick_.getX()][brick_.getY()][brick_.getZ()] =  null;
+		if (index < 0 || !Bitboard.isSet(_low, _high, index)) {
+			return false;
 		}
 		
-		return result;
+		_low &= ~Bitboard.lowBit(index);
+		_high &= ~Bitboard.highBit(index);
+		if (_facesValid) {
+			for (int side=0; side<SIDES.length; side++) {
+				_faces[side] &= ~FACE_BITS[side][index];
+			}
+		}
+		
+		return true;
 	}
 	
 	/**
 	 * Removes all the building blocks from the current shape
 	 */
 	public void clear() {
-		_bricks = new Brick[Dimensions.CUBE_EDGE_SIZE][Dimensions.CUBE_EDGE_SIZE][Dimensions.CUBE_EDGE_SIZE];
-		_brickSet.clear();
+		_low = 0;
+		_high = 0;
+		_faces = new int[SIDES.length];
+		_facesValid = true;
 	}
 	
 	/**
@@ -80,16 +130,128 @@ public abstract class Shape implements Iterable<Brick>  {
 	 * @return
 	 */
 	public Brick getBrick(final int x_,final int y_,final int z_) {
-		Dimensions.validateCoords(x_, y_, z_);
-		return _bricks[x_][y_][z_];		
+		int index = Bitboard.indexOf(x_, y_, z_);
+		
+		if (index < 0 || !Bitboard.isSet(_low, _high, index)) {
+			return null;
+		}
+		return Brick.valueOf(x_, y_, z_);		
 	}
 	
+	/**
+	 * Iterates through the bricks of the shape in bit index order. 
+	 * The iterator works on a snapshot of the occupancy taken at creation. 
+	 */
 	public Iterator<Brick> iterator() {
-		return _brickSet.iterator();	
+		return new Iterator<Brick>() {
+			
+			private long _remainingLow = _low;
+			private long _remainingHigh = _high;
+			private int _lastIndex = -1;
+			
+			public boolean hasNext() {
+				return _remainingLow != 0 || _remainingHigh != 0;
+			}
+			
+			public Brick next() {
+				if (_remainingLow != 0) {
+					_lastIndex = Long.numberOfTrailingZeros(_remainingLow);
+					_remainingLow &= _remainingLow - 1;
+				}
+				else if (_remainingHigh != 0) {
+					_lastIndex = Long.SIZE + Long.numberOfTrailingZeros(_remainingHigh);
+					_remainingHigh &= _remainingHigh - 1;
+				}
+				else{
+					throw new NoSuchElementException();
+				}
+				return Brick.valueOf(Bitboard.getX(_lastIndex), Bitboard.getY(_lastIndex), Bitboard.getZ(_lastIndex));
+			}
+			
+			public void remove() {
+				if (_lastIndex < 0) {
+					throw new IllegalStateException();
+				}
+				Shape.this.remove(Brick.valueOf(Bitboard.getX(_lastIndex), Bitboard.getY(_lastIndex), Bitboard.getZ(_lastIndex)));
+				_lastIndex = -1;
+			}
+		};	
 	}
 	
 	public int size() {
-		return _brickSet.size();
+		return Long.bitCount(_low) + Long.bitCount(_high);
+	}
+	
+	/**
+	 * @return Occupancy bits 0..63 of the shape - see Bitboard
+	 */
+	public long getOccupancyLow() {
+		return _low;
+	}
+	
+	/**
+	 * @return Occupancy bits 64.. of the shape - see Bitboard
+	 */
+	public long getOccupancyHigh() {
+		return _high;
+	}
+	
+	/**
+	 * Replaces the occupancy of the shape
+	 */
+	protected void setOccupancy(final long low_, final long high_) {
+		_low = low_;
+		_high = high_;
+		_facesValid = false;
+	}
+	
+	/**
+	 * Checks whether all the bricks of the passed shape are present in the current one
+	 * @param shape_ - the shape to check
+	 * @return true if the passed shape fits into the current one
+	 */
+	public boolean contains(final Shape shape_) {
+		return contains(shape_._low, shape_._high);
+	}
+	
+	/**
+	 * Checks whether all the bricks of the passed occupancy masks are present in the current shape
+	 * @param low_ - occupancy bits 0..63 
+	 * @param high_ - occupancy bits 64..
+	 * @return true if the passed bricks fit into the current shape
+	 */
+	public boolean contains(final long low_, final long high_) {
+		return (low_ & ~_low) == 0 && (high_ & ~_high) == 0;
+	}
+	
+	/**
+	 * Eliminates all the bricks of the passed shape from the current one
+	 * @param shape_ - the shape whose bricks are eliminated
+	 */
+	protected void removeAll(final Shape shape_) {
+		removeAll(shape_._low, shape_._high);
+	}
+	
+	/**
+	 * Eliminates all the bricks of the passed occupancy masks from the current shape
+	 * @param low_ - occupancy bits 0..63 
+	 * @param high_ - occupancy bits 64..
+	 */
+	protected void removeAll(final long low_, final long high_) {
+		_low &= ~low_;
+		_high &= ~high_;
+		_facesValid = false;
+	}
+	
+	/**
+	 * Adds all the bricks of the passed occupancy masks to the current shape
+	 * @param low_ - occupancy bits 0..63 
+	 * @param high_ - occupancy bits 64..
+	 */
+	protected void addAll(final long low_, final long high_) {
+		_low |= low_;
+		_high |= high_;
+		_facesValid = false;
 	}
 	
 	public abstract Shape clone();
@@ -102,12 +264,7 @@ public abstract class Shape implements Iterable<Brick>  {
 	 * 
 	 */
 	protected void rotateAroundAxis(final CoordAxis axis_,final int direction_) {
-		
-		_bricks = new Brick[Dimensions.CUBE_EDGE_SIZE][Dimensions.CUBE_EDGE_SIZE][Dimensions.CUBE_EDGE_SIZE];
-		for (Brick brick : this) {
-			brick.rotateAroundShapeAxis(axis_, direction_);
-			_bricks[brick.getX()][brick.getY()][brick.getZ()] = brick;
-		}
+		transform(CellPermutation.rotation(axis_, direction_));
 	}
 	
 	/**
@@ -120,13 +277,74 @@ public abstract class Shape implements Iterable<Brick>  {
 		if (direction_ == Direction.ROTATED_0) {					
 			return;
 		}
-		
-		_bricks = new Brick[Dimensions.CUBE_EDGE_SIZE][Dimensions.CUBE_EDGE_SIZE][Dimensions.CUBE_EDGE_SIZE];
-		for (Brick brick : this) {
-			brick.rotateAroundShapeAxis(axis_, direction_);			
-			//Updating the state 
-			_bricks[brick.getX()][brick.getY()][brick.getZ()] = brick;
+		transform(CellPermutation.rotation(axis_, direction_));
+	}
+	
+	/**
+	 * Moves the bricks of the shape to the targets of the passed permutation in one pass over the occupancy bits
+	 * @param permutation_ - the transform, several steps can be composed with CellPermutation.then()
+	 */
+	protected void transform(final CellPermutation permutation_) {
+		long low = 0;
+		long high = 0;
+		int[] faces = new int[SIDES.length];
+		for (long bits = _low; bits != 0; bits &= bits - 1) {
+			int target = permutation_.getSurfaceTarget(Long.numberOfTrailingZeros(bits));
+			low |= Bitboard.lowBit(target);
+			high |= Bitboard.highBit(target);
+			addFaceBits(faces, target);
+		}
+		for (long bits = _high; bits != 0; bits &= bits - 1) {
+			int target = permutation_.getSurfaceTarget(Long.SIZE + Long.numberOfTrailingZeros(bits));
+			low |= Bitboard.lowBit(target);
+			high |= Bitboard.highBit(target);
+			addFaceBits(faces, target);
+		}
+		_low = low;
+		_high = high;
+		_faces = faces;
+		_facesValid = true;
+	}
+	
+	private static void addFaceBits(final int[] faces_, final int index_) {
+		for (int side=0; side<SIDES.length; side++) {
+			faces_[side] |= FACE_BITS[side][index_];
+		}
+	}
+	
+	/**
+	 * @return true if the passed coordinates are on the requested side of the cube - see getBricks(Side)
+	 */
+	private static boolean isOnSide(final int x_, final int y_, final int z_, final Side side_) {
+		switch (side_) {
+		case FRONT: return z_ == 0;
+		case BACK: return z_ == Dimensions.MAX_COORD;
+		case LEFT: return x_ == 0;
+		case RIGHT: return x_ == Dimensions.MAX_COORD;
+		case TOP: return y_ == 0;
+		case BOTTOM: return y_ == Dimensions.MAX_COORD;
+		default: return false;
+		}
+	}
+	
+	/**
+	 * Returns the bricks of the requested side as a bit mask
+	 * @param side_ - The side of the shape
+	 * @return bit y * CUBE_EDGE_SIZE + x is set if the brick (x, y) of the side shifted back to the FRONT is present - see getBricksNormalized()
+	 */
+	public int getFaceMask(final Side side_) {
+		if (!_facesValid) {
+			int[] faces = new int[SIDES.length];
+			for (long bits = _low; bits != 0; bits &= bits - 1) {
+				addFaceBits(faces, Long.numberOfTrailingZeros(bits));
+			}
+			for (long bits = _high; bits != 0; bits &= bits - 1) {
+				addFaceBits(faces, Long.SIZE + Long.numberOfTrailingZeros(bits));
+			}
+			_faces = faces;
+			_facesValid = true;
 		}
+		return _faces[side_.ordinal()];
 	}
 	
 	/**
@@ -138,36 +356,9 @@ public abstract class Shape implements Iterable<Brick>  {
 		
 		IBrick[][] result = new IBrick[Dimensions.CUBE_EDGE_SIZE][Dimensions.CUBE_EDGE_SIZE];
 		
-		for (IBrick brick : getBricks(side_)) {
-			Brick clone = ((Brick)brick).clone();
-			switch (side_) {
-				case FRONT: 					
-					break;
-				
-				case BACK:
-					clone.rotateAroundShapeAxis(CoordAxis.Y, 2);
-					break;
-					
-				case LEFT:
-					clone.rotateAroundShapeAxis(CoordAxis.Y, -1);
-					break;
-				
-				case RIGHT:
-					clone.rotateAroundShapeAxis(CoordAxis.Y, 1);
-					break;
-					
-				case TOP:
-					clone.rotateAroundShapeAxis(CoordAxis.X, -1);
-					break;
-					
-				case BOTTOM:
-					clone.rotateAroundShapeAxis(CoordAxis.X, 1);
-					break;
-	
-				default:
-					break;
-			}			
-			result[clone.getX()][clone.getY()] = (IBrick)clone;
+		for (int bits = getFaceMask(side_); bits != 0; bits &= bits - 1) {
+			int bit = Integer.numberOfTrailingZeros(bits);
+			result[bit % EDGE][bit / EDGE] = Brick.valueOf(bit % EDGE, bit / EDGE, 0);
 		}
 		
 		return result;
@@ -179,36 +370,11 @@ public abstract class Shape implements Iterable<Brick>  {
 	 * @return
 	 */
 	public Iterable<IBrick> getBricks(Side side_) {
-		Iterable<IBrick> result = null;
-		switch (side_) {
-		case FRONT:
-			result = getBricks(CoordAxis.Z, 0);
-			break;
-		
-		case BACK:
-			result = getBricks(CoordAxis.Z, Dimensions.MAX_COORD);
-			break;
-			
-		case LEFT:
-			result = getBricks(CoordAxis.X, 0);
-			break;
-		
-		case RIGHT:
-			result = getBricks(CoordAxis.X, Dimensions.MAX_COORD);
-			break;
-			
-		case TOP:
-			result = getBricks(CoordAxis.Y, 0);
-			break;
-			
-		case BOTTOM:
-			result = getBricks(CoordAxis.Y, Dimensions.MAX_COORD);
-			break;
-
-		default:
-			break;
+		List<IBrick> result = new ArrayList<IBrick>();
+		for (int bits = getFaceMask(side_); bits != 0; bits &= bits - 1) {
+			int index = FACE_CELLS[side_.ordinal()][Integer.numberOfTrailingZeros(bits)];
+			result.add(Brick.valueOf(Bitboard.getX(index), Bitboard.getY(index), Bitboard.getZ(index)));
 		}
-		
 		return result;
 	}
 	
@@ -223,7 +389,7 @@ public abstract class Shape implements Iterable<Brick>  {
 	 */	
 	public Iterable<IBrick> getBricks(final CoordAxis axis_,final int amount_) {
 		
-		TreeMap<String, IBrick> result =  new TreeMap<String, IBrick>();
+		List<IBrick> result =  new ArrayList<IBrick>();
 		
 		for (Brick brickInCube : this) {
 			if (
@@ -233,11 +399,11 @@ public abstract class Shape implements Iterable<Brick>  {
 					||
 					(axis_ == CoordAxis.Z && brickInCube.getZ() == amount_)
 			  ) {
-				result.put(brickInCube.toString(), brickInCube);
+				result.add(brickInCube);
 			}
 		}
 		
-		return result.values();
+		return result;
 	}
 	
 	/**
@@ -258,25 +424,19 @@ public abstract class Shape implements Iterable<Brick>  {
 	 */
 	public String toString(final Side side_, final boolean printSideLabel_ ) {
 		
-		String result = "";
+		StringBuilder result = new StringBuilder();
 		
 		if (printSideLabel_) {
-			result = String.format("Side: %s\n\n", side_);
+			result.append(String.format("Side: %s\n\n", side_));
 		}
 		
-		IBrick[][] var =  getBricksNormalized(side_);
-				
-		for (int y=0; y< Dimensions.CUBE_EDGE_SIZE; y++) {
-			for (int x=0; x< Dimensions.CUBE_EDGE_SIZE; x++) {
-				
-				char currentNode = Brick.EMPTY_BLOCK_MARKER;
-				if (var[x][y] != null) {
-					currentNode=Brick.BRICK_MARKER;
-				}
-				result = String.format("%s%c", result, currentNode);
+		int face = getFaceMask(side_);
+		for (int bit=0; bit< EDGE * EDGE; bit++) {
+			result.append((face & (1 << bit)) != 0 ? Brick.BRICK_MARKER : Brick.EMPTY_BLOCK_MARKER);
+			if (bit % EDGE == EDGE - 1) {
+				result.append('\n');
 			}
-			result = String.format("%s\n", result);
 		}
-		return result;
+		return result.toString();
 	}
 }
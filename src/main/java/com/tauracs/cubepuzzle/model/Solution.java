@@ -0,0 +1,103 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.HashMap;
+import java.util.List;
+
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * One solution of the Cube puzzle: the placement of every PuzzlePiece
+ *
+ */
+public final class Solution {
+	
+	/**
+	 * The pieces the solution is built from
+	 */
+	private final List<PuzzlePiece> _puzzlePieces;
+	
+	/**
+	 * Placement index of the pieces, -1 if the piece is not part of the solution
+	 */
+	private final int[] _placements;
+	
+	/**
+	 * Number of the solutions that are equivalent to the current one by rotating or mirroring in 3D
+	 */
+	private final int _orbitSize;
+	
+	/**
+	 * @param puzzlePieces_ - The pieces the solution is built from
+	 * @param placements_ - Placement index of the pieces (see PuzzlePiece.getPlacements()), -1 if the piece is not part of the solution
+	 * @param orbitSize_ - Number of the equivalent solutions
+	 */
+	public Solution(final List<PuzzlePiece> puzzlePieces_, final int[] placements_, final int orbitSize_) {
+		if (puzzlePieces_.size() != placements_.length) {
+			throw new IllegalArgumentException("A placement should be passed for every piece");
+		}
+		_puzzlePieces = puzzlePieces_;
+		_placements = placements_.clone();
+		_orbitSize = orbitSize_;
+	}
+	
+	/**
+	 * @return The placement index of the requested piece, -1 if the piece is not part of the solution
+	 */
+	public int getPlacement(final int pieceIdx_) {
+		return _placements[pieceIdx_];
+	}
+	
+	/**
+	 * @return The requested piece in its original state
+	 */
+	public PuzzlePiece getPuzzlePiece(final int pieceIdx_) {
+		return _puzzlePieces.get(pieceIdx_);
+	}
+	
+	/**
+	 * @return Number of the pieces (placed or not)
+	 */
+	public int size() {
+		return _placements.length;
+	}
+	
+	/**
+	 * @return Number of the solutions that are equivalent to the current one by rotating or mirroring in 3D
+	 */
+	public int getOrbitSize() {
+		return _orbitSize;
+	}
+	
+	/**
+	 * @return Number of the states of the pieces (see PuzzlePiece.nextState() and flip()) that give the
+	 * same solution: the product of the multiplicities of the placements of the symmetric pieces
+	 */
+	public long getMultiplicity() {
+		long result = 1;
+		for (int i=0; i<_placements.length; i++) {
+			if (_placements[i] >= 0) {
+				result *= _puzzlePieces.get(i).getPlacements().getMultiplicity(_placements[i]);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Creates the PuzzlePieces of the solution
+	 * @return clones of the placed pieces by the side they are covering
+	 */
+	public HashMap<Side, PuzzlePiece> getPieces() {
+		HashMap<Side, PuzzlePiece> result = new HashMap<Side, PuzzlePiece>();
+		
+		for (int i=0; i<_placements.length; i++) {
+			if (_placements[i] < 0) {
+				continue;
+			}
+			PuzzlePiece piece = (PuzzlePiece)_puzzlePieces.get(i).clone();
+			piece.applyPlacement(_placements[i]);
+			result.put(piece.getSide(), piece);
+		}
+		
+		return result;
+	}
+}
@@ -0,0 +1,89 @@
+package com.tauracs.cubepuzzle.model;
+
+/**
+ * Number of the solutions of the Cube puzzle - see PuzzleResolver.count()
+ *
+ */
+public final class SolutionCount {
+
+	/**
+	 * Number of all the solutions, the rotated / mirrored ones and the ones with swapped identical pieces included
+	 */
+	private final long _solutionCount;
+
+	/**
+	 * Number of the classes of the solutions by orbit size, null if the count was not split by symmetry class
+	 */
+	private final long[] _classCounts;
+
+	/**
+	 * @param solutionCount_ - Number of all the solutions
+	 * @param classCounts_ - Number of the classes by orbit size (indexed by the orbit size), null if the count was not split
+	 */
+	SolutionCount(final long solutionCount_, final long[] classCounts_) {
+		_solutionCount = solutionCount_;
+		_classCounts = classCounts_ != null ? classCounts_.clone() : null;
+	}
+
+	/**
+	 * @return Number of all the solutions, the rotated / mirrored ones and the ones with swapped identical pieces included -
+	 * with the split the sum of the orbit sizes of the classes times the permutations of their identical pieces
+	 */
+	public long getSolutionCount() {
+		return _solutionCount;
+	}
+
+	/**
+	 * @return true if the solutions were counted by symmetry class
+	 */
+	public boolean hasClassCounts() {
+		return _classCounts != null;
+	}
+
+	/**
+	 * @return Number of the solutions that are unique up to rotating or mirroring in 3D and swapping identical pieces - as enumerated by resolveAll()
+	 */
+	public long getClassCount() {
+		checkClassCounts();
+		long result = 0;
+		for (long count : _classCounts) {
+			result += count;
+		}
+		return result;
+	}
+
+	/**
+	 * @return Number of the classes with the passed orbit size (see Solution.getOrbitSize())
+	 */
+	public long getClassCount(final int orbitSize_) {
+		checkClassCounts();
+		if (orbitSize_ < 0 || orbitSize_ >= _classCounts.length) {
+			return 0;
+		}
+		return _classCounts[orbitSize_];
+	}
+
+	private void checkClassCounts() {
+		if (_classCounts == null) {
+			throw new IllegalStateException("The solutions were not counted by symmetry class");
+		}
+	}
+
+	/**
+	 * Standard string representation of an instance
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		result.append("solutions=").append(_solutionCount);
+		if (_classCounts != null) {
+			result.append(" classes=").append(getClassCount());
+			for (int orbitSize=0; orbitSize<_classCounts.length; orbitSize++) {
+				if (_classCounts[orbitSize] != 0) {
+					result.append(' ').append(orbitSize).append(':').append(_classCounts[orbitSize]);
+				}
+			}
+		}
+		return result.toString();
+	}
+}
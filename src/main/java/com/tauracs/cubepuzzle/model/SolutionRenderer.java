@@ -0,0 +1,312 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+
+import com.tauracs.cubepuzzle.model.enums.CoordAxis;
+import com.tauracs.cubepuzzle.model.enums.Side;
+import com.tauracs.cubepuzzle.model.interfaces.ISolutionListener;
+
+/**
+ * Streaming renderer of the unfolded (360T) representation of the solutions.
+ *
+ * The net is rendered straight from the occupancy masks of the placements into a reusable char buffer:
+ * the layout of every side is a precomputed table of cell indexes, so no piece is cloned, rotated or
+ * formatted. The buffer holds several solutions and is written to the target when it is full
+ * and on flush().
+ *
+ * The renderer can be passed to resolveAll() as a listener. An IOException of the target stops the
+ * enumeration and it is thrown by the next flush().
+ * Not thread safe - the resolvers never call the listener concurrently.
+ *
+ */
+public final class SolutionRenderer implements ISolutionListener, Flushable {
+
+	final static private int EDGE = Dimensions.CUBE_EDGE_SIZE;
+
+	final static private int SIDE_COUNT = Side.values().length;
+
+	/**
+	 * The sides of the net by band and column, null where the band is indented
+	 */
+	final static private Side[][] NET = new Side[][]{
+		{Side.LEFT, Side.FRONT, Side.RIGHT},
+		{null, Side.BOTTOM},
+		{null, Side.BACK},
+		{null, Side.TOP}
+	};
+
+	/**
+	 * Number of the chars of a rendered net - the upper limit of a solution
+	 */
+	final static public int NET_LENGTH;
+
+	/**
+	 * Cell index of the rows of the sides: [side][y * EDGE + x], as printed by PuzzlePiece.to360TString()
+	 */
+	final static private int[][] CELLS = new int[SIDE_COUNT][EDGE * EDGE];
+
+	static {
+		int length = 0;
+		for (Side[] band : NET) {
+			length += EDGE * (band.length * EDGE + 1);
+		}
+		NET_LENGTH = length;
+
+		//The same transformations as PuzzlePiece.to360TString() and Shape.getBricksNormalized()
+		CellPermutation[] normalizations = new CellPermutation[SIDE_COUNT];
+		for (Side side : Side.values()) {
+			normalizations[side.ordinal()] = side == Side.BACK
+					? CellPermutation.rotation(CoordAxis.Z, 2).then(CellPermutation.rotation(CoordAxis.Y, 2))
+					: CellPermutation.normalization(side);
+		}
+
+		for (int index=0; index<Bitboard.CELL_COUNT; index++) {
+			for (Side side : Side.values()) {
+				Brick brick = Brick.valueOf(Bitboard.getX(index), Bitboard.getY(index), Bitboard.getZ(index));
+				if (!isOnSide(brick, side)) {
+					continue;
+				}
+				brick = Brick.valueOf(normalizations[side.ordinal()].getTarget(brick.getIndex()));
+				CELLS[side.ordinal()][brick.getY() * EDGE + brick.getX()] = index;
+			}
+		}
+	}
+
+	/**
+	 * Default number of the nets buffered before writing to the target
+	 */
+	final static public int DEFAULT_BATCH_SIZE = 64;
+
+	private final char _brickMarker;
+
+	private final char _emptyMarker;
+
+	private final Writer _writer;
+
+	private final WritableByteChannel _channel;
+
+	private final char[] _buffer;
+
+	private final ByteBuffer _bytes;
+
+	private int _length = 0;
+
+	/**
+	 * Working masks of the net by side
+	 */
+	private final long[] _low = new long[SIDE_COUNT];
+	private final long[] _high = new long[SIDE_COUNT];
+	private final boolean[] _present = new boolean[SIDE_COUNT];
+
+	private IOException _error = null;
+
+	private long _solutionCount = 0;
+
+	/**
+	 * Creates a renderer writing 360T formatted nets ('o' bricks) to the writer
+	 */
+	public SolutionRenderer(final Writer writer_) {
+		this(writer_, 'o', ' ', DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param writer_ - the target
+	 * @param brickMarker_ - char of the bricks
+	 * @param emptyMarker_ - char of the empty cells of the pieces
+	 * @param batchSize_ - number of the nets buffered before writing
+	 */
+	public SolutionRenderer(final Writer writer_, final char brickMarker_, final char emptyMarker_, final int batchSize_) {
+		this(writer_, null, brickMarker_, emptyMarker_, batchSize_);
+		if (writer_ == null) {
+			throw new IllegalArgumentException("writer_ argument is null");
+		}
+	}
+
+	/**
+	 * Creates a renderer writing 360T formatted nets ('o' bricks) as ASCII bytes to the channel
+	 */
+	public SolutionRenderer(final WritableByteChannel channel_) {
+		this(channel_, 'o', ' ', DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param channel_ - the target, the chars are written as single bytes
+	 * @param brickMarker_ - char of the bricks
+	 * @param emptyMarker_ - char of the empty cells of the pieces
+	 * @param batchSize_ - number of the nets buffered before writing
+	 */
+	public SolutionRenderer(final WritableByteChannel channel_, final char brickMarker_, final char emptyMarker_, final int batchSize_) {
+		this(null, channel_, brickMarker_, emptyMarker_, batchSize_);
+		if (channel_ == null) {
+			throw new IllegalArgumentException("channel_ argument is null");
+		}
+	}
+
+	private SolutionRenderer(final Writer writer_, final WritableByteChannel channel_, final char brickMarker_, final char emptyMarker_, final int batchSize_) {
+		if (batchSize_ < 1) {
+			throw new IllegalArgumentException("batchSize_ argument should be positive: " + batchSize_);
+		}
+		_writer = writer_;
+		_channel = channel_;
+		_brickMarker = brickMarker_;
+		_emptyMarker = emptyMarker_;
+		_buffer = new char[batchSize_ * (NET_LENGTH + 1)];
+		_bytes = channel_ != null ? ByteBuffer.allocate(_buffer.length) : null;
+	}
+
+	private static boolean isOnSide(final Brick brick_, final Side side_) {
+		switch (side_) {
+		case FRONT: return brick_.getZ() == 0;
+		case BACK: return brick_.getZ() == Dimensions.MAX_COORD;
+		case LEFT: return brick_.getX() == 0;
+		case RIGHT: return brick_.getX() == Dimensions.MAX_COORD;
+		case TOP: return brick_.getY() == 0;
+		case BOTTOM: return brick_.getY() == Dimensions.MAX_COORD;
+		default: return false;
+		}
+	}
+
+	/**
+	 * Renders the unfolded representation of the pieces by side
+	 *
+	 * @param solution_ - PuzzlePieces by the side they are covering
+	 * @param brickMarker_ - char of the bricks
+	 * @param emptyMarker_ - char of the empty cells of the pieces
+	 * @return
+	 */
+	public static String toString(final Map<Side,PuzzlePiece> solution_, final char brickMarker_, final char emptyMarker_) {
+		long[] low = new long[SIDE_COUNT];
+		long[] high = new long[SIDE_COUNT];
+		boolean[] present = new boolean[SIDE_COUNT];
+		for (Map.Entry<Side, PuzzlePiece> entry : solution_.entrySet()) {
+			int side = entry.getKey().ordinal();
+			present[side] = true;
+			low[side] = entry.getValue().getOccupancyLow();
+			high[side] = entry.getValue().getOccupancyHigh();
+		}
+
+		char[] buffer = new char[NET_LENGTH];
+		int length = render(low, high, present, brickMarker_, emptyMarker_, buffer, 0);
+		return new String(buffer, 0, length);
+	}
+
+	/**
+	 * Renders the net of the passed masks into the buffer
+	 * @return the offset after the rendered net
+	 */
+	private static int render(final long[] low_, final long[] high_, final boolean[] present_,
+			final char brickMarker_, final char emptyMarker_, final char[] buffer_, final int offset_) {
+		int position = offset_;
+		for (Side[] band : NET) {
+			for (int y=0; y<EDGE; y++) {
+				for (Side side : band) {
+					if (side == null || !present_[side.ordinal()]) {
+						for (int x=0; x<EDGE; x++) {
+							buffer_[position++] = ' ';
+						}
+						continue;
+					}
+					int[] cells = CELLS[side.ordinal()];
+					long low = low_[side.ordinal()];
+					long high = high_[side.ordinal()];
+					for (int x=0; x<EDGE; x++) {
+						buffer_[position++] = Bitboard.isSet(low, high, cells[y * EDGE + x]) ? brickMarker_ : emptyMarker_;
+					}
+				}
+				buffer_[position++] = '\n';
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Appends the net of the solution followed by an empty line to the buffer, the buffer is written when it is full
+	 */
+	public void write(final Solution solution_) throws IOException {
+		for (int side=0; side<SIDE_COUNT; side++) {
+			_present[side] = false;
+		}
+		for (int piece=0; piece<solution_.size(); piece++) {
+			int placement = solution_.getPlacement(piece);
+			if (placement < 0) {
+				continue;
+			}
+			PlacementTable table = solution_.getPuzzlePiece(piece).getPlacements();
+			int side = table.getSide(placement).ordinal();
+			_present[side] = true;
+			_low[side] = table.getLow(placement);
+			_high[side] = table.getHigh(placement);
+		}
+
+		if (_buffer.length - _length < NET_LENGTH + 1) {
+			writeBuffer();
+		}
+		_length = render(_low, _high, _present, _brickMarker, _emptyMarker, _buffer, _length);
+		_buffer[_length++] = '\n';
+		_solutionCount++;
+	}
+
+	/**
+	 * Writes the solution, an IOException stops the enumeration
+	 */
+	public boolean onSolution(final Solution solution_) {
+		try {
+			write(solution_);
+			return true;
+		} catch (IOException e) {
+			_error = e;
+			return false;
+		}
+	}
+
+	/**
+	 * @return Number of the rendered solutions
+	 */
+	public long getSolutionCount() {
+		return _solutionCount;
+	}
+
+	/**
+	 * Writes the buffered nets and flushes the target
+	 * @throws IOException - the error of the target, including the one that stopped an enumeration
+	 */
+	public void flush() throws IOException {
+		if (_error != null) {
+			IOException error = _error;
+			_error = null;
+			throw error;
+		}
+		writeBuffer();
+		if (_writer != null) {
+			_writer.flush();
+		}
+	}
+
+	/**
+	 * Writes the buffered chars to the target
+	 */
+	private void writeBuffer() throws IOException {
+		if (_length == 0) {
+			return;
+		}
+		if (_writer != null) {
+			_writer.write(_buffer, 0, _length);
+		}
+		else {
+			_bytes.clear();
+			for (int i=0; i<_length; i++) {
+				_bytes.put((byte)_buffer[i]);
+			}
+			_bytes.flip();
+			while (_bytes.hasRemaining()) {
+				_channel.write(_bytes);
+			}
+		}
+		_length = 0;
+	}
+}
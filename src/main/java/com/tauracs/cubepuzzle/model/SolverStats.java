@@ -0,0 +1,280 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the search of a resolver.
+ * 
+ * The searches count into local Recorder instances, which are flushed into the shared
+ * counters periodically and at the end of the search. The counters can be read during
+ * the search (they are behind by at most one flush interval per search thread) and after it.
+ * The time per depth is measured only if timing is enabled, as it costs two clock reads per node.
+ *
+ */
+public final class SolverStats {
+	
+	/**
+	 * Number of the nodes a Recorder counts before it flushes
+	 */
+	final static private int FLUSH_INTERVAL = 4096;
+	
+	private final LongAdder _nodeCount = new LongAdder();
+	private final LongAdder _placementCount = new LongAdder();
+	private final LongAdder _failedExtractionCount = new LongAdder();
+	private final LongAdder _backtrackCount = new LongAdder();
+	private final LongAdder _prunedCount = new LongAdder();
+	private final LongAdder _transpositionHitCount = new LongAdder();
+	private final AtomicInteger _maxDepth = new AtomicInteger();
+	
+	/**
+	 * Nanoseconds spent in the subtrees rooted at each depth
+	 */
+	private volatile AtomicLongArray _depthNanos = new AtomicLongArray(0);
+	
+	private volatile boolean _timingEnabled = false;
+	
+	private volatile long _startNanos = 0;
+	private volatile long _endNanos = 0;
+	
+	/**
+	 * Enables the measuring of the time per depth for the next searches
+	 */
+	public void setTimingEnabled(final boolean timingEnabled_) {
+		_timingEnabled = timingEnabled_;
+	}
+	
+	/**
+	 * @return true if the time per depth is measured
+	 */
+	public boolean isTimingEnabled() {
+		return _timingEnabled;
+	}
+	
+	/**
+	 * @return Number of the visited nodes of the search tree
+	 */
+	public long getNodeCount() {
+		return _nodeCount.sum();
+	}
+	
+	/**
+	 * @return Number of the placements tried against the cube
+	 */
+	public long getPlacementCount() {
+		return _placementCount.sum();
+	}
+	
+	/**
+	 * @return Number of the placements that did not fit into the cube
+	 */
+	public long getFailedExtractionCount() {
+		return _failedExtractionCount.sum();
+	}
+	
+	/**
+	 * @return Number of the placements that were taken back
+	 */
+	public long getBacktrackCount() {
+		return _backtrackCount.sum();
+	}
+	
+	/**
+	 * @return Number of the placements that fit into the cube but were rejected by the propagation
+	 */
+	public long getPrunedCount() {
+		return _prunedCount.sum();
+	}
+	
+	/**
+	 * @return Number of the nodes skipped because their state was already proven to fail
+	 */
+	public long getTranspositionHitCount() {
+		return _transpositionHitCount.sum();
+	}
+	
+	/**
+	 * @return The deepest level reached by the search
+	 */
+	public int getMaxDepth() {
+		return _maxDepth.get();
+	}
+	
+	/**
+	 * @return Number of the levels of the search
+	 */
+	public int getDepthCount() {
+		return _depthNanos.length();
+	}
+	
+	/**
+	 * @return Nanoseconds spent in the subtrees rooted at the passed level, 0 if timing is disabled
+	 */
+	public long getTimeAtDepth(final int depth_) {
+		return _depthNanos.get(depth_);
+	}
+	
+	/**
+	 * @return Nanoseconds since the start of the search - the total time if the search is finished
+	 */
+	public long getElapsedNanos() {
+		if (_startNanos == 0) {
+			return 0;
+		}
+		return (_endNanos != 0 ? _endNanos : System.nanoTime()) - _startNanos;
+	}
+	
+	/**
+	 * Resets the counters at the start of a search
+	 * @param depthCount_ - number of the levels of the search
+	 */
+	void start(final int depthCount_) {
+		_nodeCount.reset();
+		_placementCount.reset();
+		_failedExtractionCount.reset();
+		_backtrackCount.reset();
+		_prunedCount.reset();
+		_transpositionHitCount.reset();
+		_maxDepth.set(0);
+		_depthNanos = new AtomicLongArray(depthCount_ + 1);
+		_endNanos = 0;
+		_startNanos = System.nanoTime();
+	}
+	
+	/**
+	 * Marks the end of the search
+	 */
+	void finish() {
+		_endNanos = System.nanoTime();
+	}
+	
+	/**
+	 * @return A new local counter set of one search thread
+	 */
+	Recorder createRecorder() {
+		return new Recorder(this);
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		result.append(String.format("Nodes: %d, placements: %d, failed extractions: %d, backtracks: %d, pruned: %d, transposition hits: %d, max depth: %d, elapsed: %d us",
+				getNodeCount(), getPlacementCount(), getFailedExtractionCount(), getBacktrackCount(), getPrunedCount(), getTranspositionHitCount(), getMaxDepth(), getElapsedNanos() / 1000));
+		if (_timingEnabled) {
+			for (int depth=0; depth<getDepthCount(); depth++) {
+				result.append(String.format("\n depth %d: %d us", depth, getTimeAtDepth(depth) / 1000));
+			}
+		}
+		return result.toString();
+	}
+	
+	/**
+	 * Local counters of one search thread. Not thread safe.
+	 */
+	static final class Recorder {
+		
+		private final SolverStats _stats;
+		
+		private final boolean _timing;
+		
+		private long _nodeCount;
+		private long _placementCount;
+		private long _failedExtractionCount;
+		private long _backtrackCount;
+		private long _prunedCount;
+		private long _transpositionHitCount;
+		private int _maxDepth;
+		private long[] _depthNanos;
+		
+		private int _pending;
+		
+		private Recorder(final SolverStats stats_) {
+			_stats = stats_;
+			_timing = stats_._timingEnabled;
+			_depthNanos = new long[stats_.getDepthCount()];
+		}
+		
+		/**
+		 * Counts a visited node on the passed level
+		 */
+		void node(final int depth_) {
+			_nodeCount++;
+			if (depth_ > _maxDepth) {
+				_maxDepth = depth_;
+			}
+			if (++_pending >= FLUSH_INTERVAL) {
+				flush();
+			}
+		}
+		
+		void placement() {
+			_placementCount++;
+		}
+		
+		void failedExtraction() {
+			_failedExtractionCount++;
+		}
+		
+		void backtrack() {
+			_backtrackCount++;
+		}
+		
+		void pruned() {
+			_prunedCount++;
+		}
+		
+		void transpositionHit() {
+			_transpositionHitCount++;
+		}
+		
+		/**
+		 * @return The start time of a node to pass to stopTiming(), 0 if timing is disabled
+		 */
+		long startTiming() {
+			return _timing ? System.nanoTime() : 0;
+		}
+		
+		/**
+		 * Adds the time since the passed start time to the level
+		 */
+		void stopTiming(final int depth_, final long start_) {
+			if (_timing && depth_ < _depthNanos.length) {
+				_depthNanos[depth_] += System.nanoTime() - start_;
+			}
+		}
+		
+		/**
+		 * Adds the local counters to the shared ones
+		 */
+		void flush() {
+			_stats._nodeCount.add(_nodeCount);
+			_stats._placementCount.add(_placementCount);
+			_stats._failedExtractionCount.add(_failedExtractionCount);
+			_stats._backtrackCount.add(_backtrackCount);
+			_stats._prunedCount.add(_prunedCount);
+			_stats._transpositionHitCount.add(_transpositionHitCount);
+			
+			int max = _stats._maxDepth.get();
+			while (_maxDepth > max && !_stats._maxDepth.compareAndSet(max, _maxDepth)) {
+				max = _stats._maxDepth.get();
+			}
+			
+			AtomicLongArray depthNanos = _stats._depthNanos;
+			for (int depth=0; depth<_depthNanos.length && depth<depthNanos.length(); depth++) {
+				if (_depthNanos[depth] != 0) {
+					depthNanos.addAndGet(depth, _depthNanos[depth]);
+					_depthNanos[depth] = 0;
+				}
+			}
+			
+			_nodeCount = 0;
+			_placementCount = 0;
+			_failedExtractionCount = 0;
+			_backtrackCount = 0;
+			_prunedCount = 0;
+			_transpositionHitCount = 0;
+			_pending = 0;
+		}
+	}
+}
@@ -0,0 +1,405 @@
+package com.tauracs.cubepuzzle.model;
+
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Helper of the search that enumerates only one solution of every class of solutions
+ * that can be transformed into each other by rotating or mirroring the cube in 3D.
+ *
+ * The reduction is built from three rules:
+ *  - the anchor piece (the one with the fewest own symmetries) is fixed to its first placement,
+ *    every solution can be rotated / mirrored into such a position
+ *  - from the placements that cover the same bricks only the first one is used
+ *  - identical pieces (twins) are placed on sides in the order of the pieces, and if some of them
+ *    are left out (surplus pieces), the first ones are placed
+ *
+ * The anchor is the first of its twins. If it is left out, no piece of its shape is placed and
+ * the search is not restricted by the first rule, so every image of the solution is visited.
+ *
+ * The remaining duplicates are filtered at the leaves of the search by comparing
+ * the solution to its transformed images. The leaf check verifies the order of the 
+ * identical pieces as well, so searches that can not apply the rules during the 
+ * search (e.g. Dancing Links) get the same result.
+ *
+ * The solutions are compared by the pieces on the sides, which needs a brick in the center of every piece.
+ * If a piece has no center brick, the first and the third rule are not applied: every image of a solution
+ * is visited and compared at the leaves by the sorted list of its pieces, the identical pieces are expected
+ * in the order of their bricks.
+ *
+ */
+final class SymmetryReduction {
+
+	/**
+	 * Number of the key entries of one side: shape id, high and low word of the placement
+	 */
+	private final static int KEY_STRIDE = 3;
+
+	private final static int SIDE_COUNT = 6;
+
+	/**
+	 * Placement tables of the pieces
+	 */
+	private final PlacementTable[] _tables;
+
+	/**
+	 * Shape id of the pieces, identical pieces (up to rotation / mirroring) have the same id
+	 */
+	private final int[] _shapeIds;
+
+	/**
+	 * Index of the previous identical piece, -1 if there is none
+	 */
+	private final int[] _previousTwin;
+
+	/**
+	 * Number of the identical pieces of the piece and the rank of the piece among them
+	 */
+	private final int[] _twinCount;
+	private final int[] _twinRank;
+
+	/**
+	 * Index of the piece that is fixed to its first placement
+	 */
+	private final int _anchor;
+
+	/**
+	 * True if a piece has no brick in the center: the solutions are compared at the leaves only
+	 */
+	private final boolean _leafOnly;
+
+	/**
+	 * Working arrays of the leaf check
+	 */
+	private final long[] _key;
+	private final long[] _transformedKey;
+	private final long[] _masks = new long[2];
+
+	/**
+	 * @param tables_ - Placement tables of the pieces
+	 */
+	SymmetryReduction(final PlacementTable[] tables_) {
+		_tables = tables_;
+		_shapeIds = new int[tables_.length];
+		_previousTwin = new int[tables_.length];
+		_twinCount = new int[tables_.length];
+		_twinRank = new int[tables_.length];
+
+		int anchor = -1;
+		int anchorDistinctCount = 0;
+		boolean leafOnly = false;
+
+		for (int piece=0; piece<tables_.length; piece++) {
+			PlacementTable table = tables_[piece];
+			
+			leafOnly |= !Bitboard.isSet(table.getLow(0), table.getHigh(0), Bitboard.getCenterIndex(table.getSide(0)));
+
+			int distinctCount = table.getDistinctCount();
+
+			//Pieces are identical if they have a common placement
+			_shapeIds[piece] = piece;
+			_previousTwin[piece] = -1;
+			for (int other=piece-1; other>=0; other--) {
+				if (indexOfMask(tables_[other], table.getLow(0), table.getHigh(0)) >= 0) {
+					_shapeIds[piece] = _shapeIds[other];
+					_previousTwin[piece] = other;
+					_twinRank[piece] = _twinRank[other] + 1;
+					break;
+				}
+			}
+			_twinCount[_shapeIds[piece]]++;
+
+			if (distinctCount > anchorDistinctCount) {
+				anchor = piece;
+				anchorDistinctCount = distinctCount;
+			}
+		}
+
+		for (int piece=0; piece<tables_.length; piece++) {
+			_twinCount[piece] = _twinCount[_shapeIds[piece]];
+		}
+
+		_leafOnly = leafOnly;
+		_anchor = leafOnly ? -1 : anchor;
+		_key = new long[getKeyLength()];
+		_transformedKey = new long[getKeyLength()];
+	}
+
+	/**
+	 * Creates a copy sharing the tables with the passed instance and having its own working arrays
+	 */
+	private SymmetryReduction(final SymmetryReduction reduction_) {
+		_tables = reduction_._tables;
+		_shapeIds = reduction_._shapeIds;
+		_previousTwin = reduction_._previousTwin;
+		_twinCount = reduction_._twinCount;
+		_twinRank = reduction_._twinRank;
+		_leafOnly = reduction_._leafOnly;
+		_anchor = reduction_._anchor;
+		_key = new long[getKeyLength()];
+		_transformedKey = new long[getKeyLength()];
+	}
+	
+	/**
+	 * @return Length of the comparable keys: one entry per side, one entry per piece in the leaf only mode
+	 */
+	private int getKeyLength() {
+		return (_leafOnly ? _tables.length : SIDE_COUNT) * KEY_STRIDE;
+	}
+	
+	/**
+	 * @return A copy that can be used by an other thread
+	 */
+	SymmetryReduction copy() {
+		return new SymmetryReduction(this);
+	}
+
+	/**
+	 * @return the index of the first placement in the table that covers the passed bricks or -1
+	 */
+	private static int indexOfMask(final PlacementTable table_, final long low_, final long high_) {
+		for (int i=0; i<table_.size(); i++) {
+			if (table_.getLow(i) == low_ && table_.getHigh(i) == high_) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return Index of the piece that is fixed to its first placement, -1 if there are no pieces or a piece has no center brick
+	 */
+	int getAnchor() {
+		return _anchor;
+	}
+
+	/**
+	 * Checks whether the placement should be visited by the search
+	 *
+	 * @param piece_ - index of the piece
+	 * @param placement_ - index of the placement
+	 * @param placements_ - current placements of the pieces, -1 for the pieces that are not placed yet
+	 * @return true if the placement is the representative of its equivalents
+	 */
+	boolean isAllowed(final int piece_, final int placement_, final int[] placements_) {
+		if (piece_ == _anchor) {
+			return placement_ == 0;
+		}
+
+		if (!_tables[piece_].isDistinct(placement_)) {
+			return false;
+		}
+		if (_leafOnly) {
+			return true;
+		}
+
+		int twin = _previousTwin[piece_];
+		if (twin >= 0 && placements_[twin] >= 0) {
+			return _tables[piece_].getSide(placement_).ordinal() > _tables[twin].getSide(placements_[twin]).ordinal();
+		}
+		return true;
+	}
+
+	/**
+	 * Checks the placement of a piece whose previous twin is decided already
+	 * @return true if the previous twin was left out - the piece has to be left out as well
+	 */
+	boolean followsLeftOutTwin(final int piece_, final int[] placements_) {
+		int twin = _previousTwin[piece_];
+		return twin >= 0 && placements_[twin] < 0;
+	}
+
+	/**
+	 * Checks the found solution against its transformed images
+	 *
+	 * @param placements_ - placements of the pieces, -1 for the pieces that are not placed
+	 * @return the number of the distinct solutions in the class of the solution or 0 if
+	 * the solution is not the representative of its class
+	 */
+	int getOrbitSize(final int[] placements_) {
+		
+		if (_leafOnly) {
+			return getLeafOrbitSize(placements_);
+		}
+		if (_anchor < 0) {
+			return 1;
+		}
+		
+		//Identical pieces are expected on sides in the order of the pieces, the left out ones last
+		for (int piece=0; piece<placements_.length; piece++) {
+			int twin = _previousTwin[piece];
+			if (twin < 0 || placements_[piece] < 0) {
+				continue;
+			}
+			if (placements_[twin] < 0
+					|| _tables[piece].getSide(placements_[piece]).ordinal() < _tables[twin].getSide(placements_[twin]).ordinal()) {
+				return 0;
+			}
+		}
+
+		createKey(0, placements_, _key);
+
+		long anchorLow = _tables[_anchor].getLow(0);
+		long anchorHigh = _tables[_anchor].getHigh(0);
+		int frontOffset = Side.FRONT.ordinal() * KEY_STRIDE;
+		boolean anchorPlaced = placements_[_anchor] >= 0;
+		int stabilizer = 1;
+
+		for (int symmetry=1; symmetry<CubeSymmetry.COUNT; symmetry++) {
+			createKey(symmetry, placements_, _transformedKey);
+			int comparison = compare(_transformedKey, _key);
+
+			if (comparison == 0) {
+				stabilizer++;
+			}
+			else if (comparison < 0 && (!anchorPlaced
+					|| _transformedKey[frontOffset] == _shapeIds[_anchor]
+					&& _transformedKey[frontOffset + 1] == anchorHigh
+					&& _transformedKey[frontOffset + 2] == anchorLow)) {
+				//An image that is visited by the search is smaller
+				return 0;
+			}
+		}
+
+		return CubeSymmetry.COUNT / stabilizer;
+	}
+
+	/**
+	 * The leaf check of the pieces without center brick: every image of the solution is visited,
+	 * the solution is the representative if none of its images has a smaller key
+	 * @see #getOrbitSize(int[])
+	 */
+	private int getLeafOrbitSize(final int[] placements_) {
+
+		//Identical pieces are expected in the order of their bricks, the left out ones last
+		for (int piece=0; piece<placements_.length; piece++) {
+			int twin = _previousTwin[piece];
+			if (twin < 0 || placements_[piece] < 0) {
+				continue;
+			}
+			if (placements_[twin] < 0
+					|| compare(_tables[piece].getHigh(placements_[piece]), _tables[twin].getHigh(placements_[twin])) < 0
+					|| _tables[piece].getHigh(placements_[piece]) == _tables[twin].getHigh(placements_[twin])
+					&& compare(_tables[piece].getLow(placements_[piece]), _tables[twin].getLow(placements_[twin])) < 0) {
+				return 0;
+			}
+		}
+
+		createSortedKey(0, placements_, _key);
+		int stabilizer = 1;
+
+		for (int symmetry=1; symmetry<CubeSymmetry.COUNT; symmetry++) {
+			createSortedKey(symmetry, placements_, _transformedKey);
+			int comparison = compare(_transformedKey, _key);
+
+			if (comparison == 0) {
+				stabilizer++;
+			}
+			else if (comparison < 0) {
+				return 0;
+			}
+		}
+
+		return CubeSymmetry.COUNT / stabilizer;
+	}
+
+	/**
+	 * Counts the ways the identical pieces can swap their places in a representative solution:
+	 * k placed pieces of n identical ones can be chosen and ordered in n! / (n-k)! ways.
+	 *
+	 * @param placements_ - placements of the pieces, -1 for the pieces that are not placed
+	 * @return the number of the solutions that differ from the passed one only in the identical pieces, the passed one included
+	 */
+	long getTwinPermutationCount(final int[] placements_) {
+		long result = 1;
+		for (int piece=0; piece<placements_.length; piece++) {
+			//The placed twins are the first ones (see getOrbitSize())
+			if (placements_[piece] >= 0) {
+				result *= _twinCount[piece] - _twinRank[piece];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the comparable key of a transformed solution.
+	 * The key lists the shape id and the masks of the pieces by side.
+	 */
+	private void createKey(final int symmetry_, final int[] placements_, final long[] key_) {
+		for (int i=0; i<key_.length; i++) {
+			key_[i] = i % KEY_STRIDE == 0 ? -1 : 0;
+		}
+
+		for (int piece=0; piece<placements_.length; piece++) {
+			if (placements_[piece] < 0) {
+				continue;
+			}
+			PlacementTable table = _tables[piece];
+			CubeSymmetry.transform(symmetry_, table.getLow(placements_[piece]), table.getHigh(placements_[piece]), _masks);
+
+			int offset = Bitboard.getSide(_masks[0], _masks[1]).ordinal() * KEY_STRIDE;
+			key_[offset] = _shapeIds[piece];
+			key_[offset + 1] = _masks[1];
+			key_[offset + 2] = _masks[0];
+		}
+	}
+
+	/**
+	 * Creates the comparable key of a transformed solution without the sides of the pieces.
+	 * The key lists the shape id and the masks of the placed pieces in ascending order,
+	 * the entries of the pieces that are not placed are at the end.
+	 */
+	private void createSortedKey(final int symmetry_, final int[] placements_, final long[] key_) {
+		int end = 0;
+		for (int piece=0; piece<placements_.length; piece++) {
+			if (placements_[piece] < 0) {
+				continue;
+			}
+			PlacementTable table = _tables[piece];
+			CubeSymmetry.transform(symmetry_, table.getLow(placements_[piece]), table.getHigh(placements_[piece]), _masks);
+
+			//Insertion into the sorted entries
+			int offset = end;
+			while (offset > 0 && compareEntry(key_, offset - KEY_STRIDE, _shapeIds[piece], _masks[1], _masks[0]) > 0) {
+				System.arraycopy(key_, offset - KEY_STRIDE, key_, offset, KEY_STRIDE);
+				offset -= KEY_STRIDE;
+			}
+			key_[offset] = _shapeIds[piece];
+			key_[offset + 1] = _masks[1];
+			key_[offset + 2] = _masks[0];
+			end += KEY_STRIDE;
+		}
+
+		for (int i=end; i<key_.length; i++) {
+			key_[i] = i % KEY_STRIDE == 0 ? -1 : 0;
+		}
+	}
+
+	private static int compareEntry(final long[] key_, final int offset_, final long shapeId_, final long high_, final long low_) {
+		if (key_[offset_] != shapeId_) {
+			return compare(key_[offset_], shapeId_);
+		}
+		if (key_[offset_ + 1] != high_) {
+			return compare(key_[offset_ + 1], high_);
+		}
+		return compare(key_[offset_ + 2], low_);
+	}
+
+	private static int compare(final long[] key1_, final long[] key2_) {
+		for (int i=0; i<key1_.length; i++) {
+			if (key1_[i] != key2_[i]) {
+				return compare(key1_[i], key2_[i]);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Unsigned comparison of two words
+	 */
+	private static int compare(final long value1_, final long value2_) {
+		if (value1_ == value2_) {
+			return 0;
+		}
+		return value1_ + Long.MIN_VALUE < value2_ + Long.MIN_VALUE ? -1 : 1;
+	}
+}
@@ -0,0 +1,191 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.tauracs.cubepuzzle.model.enums.EvictionPolicy;
+
+/**
+ * Bounded memory of the partial states that are proven to have no solution.
+ *
+ * A state of the search is the set of the remaining pieces and the uncovered cells of the cube.
+ * The same state is reached along many paths (e.g. two pieces swapping their sides), the table
+ * lets the search skip the subtrees that already failed. The states are indexed by a Zobrist hash
+ * that the searches maintain incrementally: placing a piece XORs the key of the piece and the key
+ * of the placement (the XOR of the keys of its cells) into the hash.
+ *
+ * The table is made of two slot buckets, the stored states are compared in full, so a hash collision
+ * never prunes a live subtree. The table is cleared in constant time by starting a new generation.
+ * Not thread safe.
+ *
+ */
+final class TranspositionTable {
+
+	/**
+	 * The maximum number of the pieces - the remaining pieces are stored in one long
+	 */
+	final static int MAX_PIECE_COUNT = Long.SIZE;
+
+	final static private int BUCKET_SIZE = 2;
+
+	final static private long SEED = 0x5DEECE66DL;
+
+	/**
+	 * Zobrist keys of the surface cells and of the pieces
+	 */
+	final static private long[] CELL_KEYS = new long[Bitboard.CELL_COUNT];
+	final static private long[] PIECE_KEYS = new long[MAX_PIECE_COUNT];
+
+	static {
+		Random random = new Random(SEED);
+		for (int i=0; i<CELL_KEYS.length; i++) {
+			CELL_KEYS[i] = random.nextLong();
+		}
+		for (int i=0; i<PIECE_KEYS.length; i++) {
+			PIECE_KEYS[i] = random.nextLong();
+		}
+	}
+
+	private final EvictionPolicy _policy;
+
+	private final int _mask;
+
+	/**
+	 * The stored states: uncovered cells, remaining pieces, number of the nodes of the failed subtree and generation
+	 */
+	private final long[] _low;
+	private final long[] _high;
+	private final long[] _pieces;
+	private final long[] _work;
+	private final int[] _generations;
+
+	private int _generation = 1;
+
+	/**
+	 * @param capacity_ - maximum number of the stored states, rounded down to a power of two
+	 * @param policy_ - replacement rule of the buckets
+	 */
+	TranspositionTable(final int capacity_, final EvictionPolicy policy_) {
+		if (capacity_ < BUCKET_SIZE) {
+			throw new IllegalArgumentException("capacity_ argument is too small: " + capacity_);
+		}
+		if (policy_ == null) {
+			throw new IllegalArgumentException("policy_ argument is null");
+		}
+		int size = Integer.highestOneBit(capacity_);
+		_policy = policy_;
+		_mask = size / BUCKET_SIZE - 1;
+		_low = new long[size];
+		_high = new long[size];
+		_pieces = new long[size];
+		_work = new long[size];
+		_generations = new int[size];
+	}
+
+	/**
+	 * @return true if the table can be used with the passed number of the pieces
+	 */
+	static boolean isApplicable(final int pieceCount_) {
+		return pieceCount_ <= MAX_PIECE_COUNT;
+	}
+
+	/**
+	 * @return The Zobrist key of the piece
+	 */
+	static long getPieceKey(final int piece_) {
+		return PIECE_KEYS[piece_];
+	}
+
+	/**
+	 * @return The Zobrist keys of the placements of the table: the XOR of the keys of the covered cells
+	 */
+	static long[] getPlacementKeys(final PlacementTable table_) {
+		long[] result = new long[table_.size()];
+		for (int i=0; i<result.length; i++) {
+			for (long bits = table_.getLow(i); bits != 0; bits &= bits - 1) {
+				result[i] ^= CELL_KEYS[Long.numberOfTrailingZeros(bits)];
+			}
+			for (long bits = table_.getHigh(i); bits != 0; bits &= bits - 1) {
+				result[i] ^= CELL_KEYS[Long.SIZE + Long.numberOfTrailingZeros(bits)];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The Zobrist hash of the full cube with all the pieces remaining
+	 */
+	static long getInitialHash(final int pieceCount_) {
+		long result = 0;
+		for (int i=0; i<CELL_KEYS.length; i++) {
+			result ^= CELL_KEYS[i];
+		}
+		for (int i=0; i<pieceCount_; i++) {
+			result ^= PIECE_KEYS[i];
+		}
+		return result;
+	}
+
+	/**
+	 * @return Maximum number of the stored states
+	 */
+	int getCapacity() {
+		return _low.length;
+	}
+
+	EvictionPolicy getPolicy() {
+		return _policy;
+	}
+
+	/**
+	 * Forgets all the stored states
+	 */
+	void clear() {
+		_generation++;
+		if (_generation == 0) {
+			Arrays.fill(_generations, 0);
+			_generation = 1;
+		}
+	}
+
+	/**
+	 * @return true if the state is stored as failed
+	 */
+	boolean contains(final long hash_, final long low_, final long high_, final long pieces_) {
+		int slot = (int)hash_ & _mask;
+		for (int i=slot * BUCKET_SIZE; i<(slot + 1) * BUCKET_SIZE; i++) {
+			if (_generations[i] == _generation && _low[i] == low_ && _high[i] == high_ && _pieces[i] == pieces_) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stores a failed state
+	 * @param work_ - number of the nodes of the failed subtree, the cost of proving the state again
+	 */
+	void store(final long hash_, final long low_, final long high_, final long pieces_, final long work_) {
+		int first = ((int)hash_ & _mask) * BUCKET_SIZE;
+		int second = first + 1;
+
+		if (_policy == EvictionPolicy.PREFER_LARGER_SUBTREE && _generations[first] == _generation && _work[first] > work_) {
+			set(second, low_, high_, pieces_, work_);
+			return;
+		}
+
+		//The new state takes the first slot, the state it replaces gets a second chance
+		if (_generations[first] == _generation) {
+			set(second, _low[first], _high[first], _pieces[first], _work[first]);
+		}
+		set(first, low_, high_, pieces_, work_);
+	}
+
+	private void set(final int index_, final long low_, final long high_, final long pieces_, final long work_) {
+		_low[index_] = low_;
+		_high[index_] = high_;
+		_pieces[index_] = pieces_;
+		_work[index_] = work_;
+		_generations[index_] = _generation;
+	}
+}
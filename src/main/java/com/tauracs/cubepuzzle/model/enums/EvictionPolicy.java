@@ -0,0 +1,14 @@
+package com.tauracs.cubepuzzle.model.enums;
+
+/**
+ * Replacement rule of the transposition table when a new state collides with the stored ones
+ * 
+ * ALWAYS_REPLACE - the newest state is kept, the older one moves to the second slot of the bucket
+ * PREFER_LARGER_SUBTREE - the state whose proof took the most nodes is kept, the new one
+ *  goes to the second slot if its subtree was smaller
+ *
+ */
+public enum EvictionPolicy{
+	ALWAYS_REPLACE,
+	PREFER_LARGER_SUBTREE;
+}
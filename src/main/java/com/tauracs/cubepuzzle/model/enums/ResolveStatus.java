@@ -0,0 +1,19 @@
+package com.tauracs.cubepuzzle.model.enums;
+
+/**
+ * Outcome of an asynchronous resolution
+ * 
+ * SOLVED - a solution was found
+ * UNSOLVABLE - the whole search space was visited without a solution
+ * TIMED_OUT - the search was stopped at the deadline
+ * BUDGET_EXCEEDED - the search was stopped after visiting the allowed number of nodes
+ * CANCELLED - the search was stopped by cancelling its future
+ *
+ */
+public enum ResolveStatus {
+	SOLVED,
+	UNSOLVABLE,
+	TIMED_OUT,
+	BUDGET_EXCEEDED,
+	CANCELLED;
+}
@@ -0,0 +1,15 @@
+package com.tauracs.cubepuzzle.model.interfaces;
+
+/**
+ * Interface receiving the progress of an asynchronous resolution
+ */
+public interface IProgressListener {
+	/**
+	 * Called periodically from the thread of the search and once when the search finishes
+	 * 
+	 * @param nodeCount_ - number of the visited nodes
+	 * @param depth_ - depth of the current node
+	 * @param fraction_ - estimated fraction of the search space done, 0..1
+	 */
+	void onProgress(long nodeCount_, int depth_, double fraction_);
+}
@@ -0,0 +1,48 @@
+package com.tauracs.cubepuzzle.model.interfaces;
+
+import java.util.List;
+
+import com.tauracs.cubepuzzle.model.Cube;
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+import com.tauracs.cubepuzzle.model.SolverStats;
+
+/**
+ * Interface of the Cube puzzle solving engines
+ */
+public interface IPuzzleResolver {
+	/**
+	 * Tries to resolve the Cube puzzle with the passed PuzzlePices
+	 * @param puzzlePieces_ the pieces 
+	 * @return true if a solution was found - see getSolution()
+	 */
+	boolean resolve(List<PuzzlePiece> puzzlePieces_);
+	
+	/**
+	 * Enumerates all the solutions of the Cube puzzle that are unique up to rotating or mirroring in 3D.
+	 * 
+	 * @param puzzlePieces_ the pieces
+	 * @param listener_ receiver of the solutions, returning false stops the enumeration 
+	 * @return the number of the solutions passed to the listener
+	 */
+	long resolveAll(List<PuzzlePiece> puzzlePieces_, ISolutionListener listener_);
+	
+	/**
+	 * @return The PuzzlePieces of the last solution found by resolve()
+	 */
+	Iterable<PuzzlePiece> getSolution();
+	
+	/**
+	 * @return The bricks of the cube that are not covered by the last solution, null if there was no solution
+	 */
+	Cube getResultCube();
+	
+	/**
+	 * @return 360T string formatted (unfolded) string representation of the last solution
+	 */
+	String to360TString();
+	
+	/**
+	 * @return Counters of the last (or the running) resolve() or resolveAll() call
+	 */
+	SolverStats getStats();
+}
@@ -0,0 +1,16 @@
+package com.tauracs.cubepuzzle.model.interfaces;
+
+import com.tauracs.cubepuzzle.model.Solution;
+
+/**
+ * Interface receiving the solutions of an enumeration
+ */
+public interface ISolutionListener {
+	/**
+	 * Called for every solution found
+	 * 
+	 * @param solution_ - the solution 
+	 * @return false if the enumeration should be stopped
+	 */
+	boolean onSolution(Solution solution_);
+}
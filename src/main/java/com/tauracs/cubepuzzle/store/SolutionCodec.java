@@ -0,0 +1,149 @@
+package com.tauracs.cubepuzzle.store;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.tauracs.cubepuzzle.model.PlacementTable;
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+import com.tauracs.cubepuzzle.model.Solution;
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Fixed width binary encoding of a Solution.
+ *
+ * A record is made of two bytes per Side in the order of the ordinals:
+ *  - the index of the piece covering the side, NO_PIECE if the side is not covered
+ *  - the packed state of the placement (see PlacementTable.encodeOrientation) in bits 0..5
+ * The orbit size of the solution is stored in the unused bits 6..7 of the state bytes,
+ * side K holds the bits 2K and 2K+1.
+ *
+ * The pieces are not part of the record, a record can be decoded with the list of the pieces
+ * the solution was built from.
+ *
+ */
+public final class SolutionCodec {
+
+	final static private Side[] SIDES = Side.values();
+
+	final static public int SIDE_COUNT = SIDES.length;
+
+	/**
+	 * Number of the bytes of a record
+	 */
+	final static public int RECORD_SIZE = 2 * SIDE_COUNT;
+
+	/**
+	 * Piece index of the sides that are not covered
+	 */
+	final static public int NO_PIECE = 0xFF;
+
+	/**
+	 * The largest piece list that can be encoded
+	 */
+	final static public int MAX_PIECE_COUNT = NO_PIECE;
+
+	final static private int ORIENTATION_BITS = 6;
+
+	final static private int ORIENTATION_MASK = (1 << ORIENTATION_BITS) - 1;
+
+	/**
+	 * The largest orbit size that fits into the spare bits
+	 */
+	final static public int MAX_ORBIT_SIZE = (1 << (2 * SIDE_COUNT)) - 1;
+
+	private SolutionCodec() {
+	}
+
+	/**
+	 * Writes the record of the solution into the buffer, the position of the buffer is not changed
+	 *
+	 * @param solution_ - the solution, at most one piece per side
+	 * @param buffer_ - the target
+	 * @param offset_ - absolute index of the first byte
+	 */
+	public static void encode(final Solution solution_, final ByteBuffer buffer_, final int offset_) {
+		if (solution_.size() > MAX_PIECE_COUNT) {
+			throw new IllegalArgumentException("Too many pieces to encode: " + solution_.size());
+		}
+		if (solution_.getOrbitSize() < 0 || solution_.getOrbitSize() > MAX_ORBIT_SIZE) {
+			throw new IllegalArgumentException("Orbit size out of range: " + solution_.getOrbitSize());
+		}
+
+		for (int side=0; side<SIDE_COUNT; side++) {
+			buffer_.put(offset_ + 2 * side, (byte)NO_PIECE);
+			buffer_.put(offset_ + 2 * side + 1, (byte)(((solution_.getOrbitSize() >> (2 * side)) & 3) << ORIENTATION_BITS));
+		}
+
+		for (int piece=0; piece<solution_.size(); piece++) {
+			int placement = solution_.getPlacement(piece);
+			if (placement < 0) {
+				continue;
+			}
+			PlacementTable table = solution_.getPuzzlePiece(piece).getPlacements();
+			int position = offset_ + 2 * table.getSide(placement).ordinal();
+			if ((buffer_.get(position) & 0xFF) != NO_PIECE) {
+				throw new IllegalArgumentException("More than one piece on side " + table.getSide(placement));
+			}
+			buffer_.put(position, (byte)piece);
+			buffer_.put(position + 1, (byte)(buffer_.get(position + 1) | table.getOrientation(placement)));
+		}
+	}
+
+	/**
+	 * Reads a record from the buffer, the position of the buffer is not changed
+	 *
+	 * @param puzzlePieces_ - the pieces the solution was built from
+	 * @param buffer_ - the source
+	 * @param offset_ - absolute index of the first byte
+	 * @return
+	 */
+	public static Solution decode(final List<PuzzlePiece> puzzlePieces_, final ByteBuffer buffer_, final int offset_) {
+		int[] placements = new int[puzzlePieces_.size()];
+		for (int piece=0; piece<placements.length; piece++) {
+			placements[piece] = -1;
+		}
+
+		for (int side=0; side<SIDE_COUNT; side++) {
+			int piece = getPieceIndex(buffer_, offset_, SIDES[side]);
+			if (piece == NO_PIECE) {
+				continue;
+			}
+			if (piece >= placements.length || placements[piece] >= 0) {
+				throw new IllegalArgumentException("Invalid piece index in the record: " + piece);
+			}
+			PlacementTable table = puzzlePieces_.get(piece).getPlacements();
+			int placement = table.indexOfOrientation(getOrientation(buffer_, offset_, SIDES[side]));
+			if (placement < 0 || table.getSide(placement).ordinal() != side) {
+				throw new IllegalArgumentException("Invalid orientation in the record on side " + SIDES[side]);
+			}
+			placements[piece] = placement;
+		}
+
+		return new Solution(puzzlePieces_, placements, getOrbitSize(buffer_, offset_));
+	}
+
+	/**
+	 * @return The index of the piece covering the side in the record, NO_PIECE if the side is not covered
+	 */
+	public static int getPieceIndex(final ByteBuffer buffer_, final int offset_, final Side side_) {
+		return buffer_.get(offset_ + 2 * side_.ordinal()) & 0xFF;
+	}
+
+	/**
+	 * @return The packed state of the placement on the side in the record - see PlacementTable.encodeOrientation
+	 */
+	public static int getOrientation(final ByteBuffer buffer_, final int offset_, final Side side_) {
+		return buffer_.get(offset_ + 2 * side_.ordinal() + 1) & ORIENTATION_MASK;
+	}
+
+	/**
+	 * @return The orbit size of the solution in the record - see Solution.getOrbitSize()
+	 */
+	public static int getOrbitSize(final ByteBuffer buffer_, final int offset_) {
+		int result = 0;
+		for (int side=0; side<SIDE_COUNT; side++) {
+			result |= ((buffer_.get(offset_ + 2 * side + 1) & 0xFF) >> ORIENTATION_BITS) << (2 * side);
+		}
+		return result;
+	}
+}
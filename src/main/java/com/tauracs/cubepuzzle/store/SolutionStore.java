@@ -0,0 +1,158 @@
+package com.tauracs.cubepuzzle.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.tauracs.cubepuzzle.model.Solution;
+import com.tauracs.cubepuzzle.model.interfaces.ISolutionListener;
+
+/**
+ * Append-only file of solution records (see SolutionCodec) written through memory mapped chunks.
+ *
+ * The file starts with a header: magic number, record size and the number of the records.
+ * The records follow the header back to back, so record N is at HEADER_SIZE + N * RECORD_SIZE.
+ * The count of the header is updated with every record, the file may be longer than the records
+ * as the chunks are mapped ahead. Opening an existing store continues after its last record.
+ *
+ * The store can be passed to resolveAll() as a listener. An IOException of the mapping stops the
+ * enumeration and it is thrown by close().
+ * Not thread safe - the resolvers never call the listener concurrently.
+ *
+ */
+public final class SolutionStore implements ISolutionListener, Closeable {
+
+	final static int MAGIC = 0x43554245;
+
+	/**
+	 * Bytes of the header: magic number, record size, record count
+	 */
+	final static int HEADER_SIZE = 4 + 4 + 8;
+
+	final static int COUNT_OFFSET = 8;
+
+	/**
+	 * Number of the records mapped at once
+	 */
+	final static private int CHUNK_RECORDS = 1 << 16;
+
+	private final RandomAccessFile _file;
+
+	private final FileChannel _channel;
+
+	private final MappedByteBuffer _header;
+
+	/**
+	 * The mapped chunk receiving the next records
+	 */
+	private MappedByteBuffer _chunk = null;
+
+	private long _chunkStart;
+
+	private long _count;
+
+	private IOException _error = null;
+
+	/**
+	 * Opens the store, an existing store is continued
+	 * @param file_ - the file of the store
+	 * @throws IOException - the file can not be opened or it is not a store
+	 */
+	public SolutionStore(final File file_) throws IOException {
+		_file = new RandomAccessFile(file_, "rw");
+		try {
+			_channel = _file.getChannel();
+			boolean created = _channel.size() == 0;
+			_header = _channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+			_header.order(ByteOrder.BIG_ENDIAN);
+
+			if (created) {
+				_header.putInt(0, MAGIC);
+				_header.putInt(4, SolutionCodec.RECORD_SIZE);
+				_header.putLong(COUNT_OFFSET, 0);
+			}
+			else {
+				checkHeader(_header, file_);
+			}
+			_count = _header.getLong(COUNT_OFFSET);
+		}
+		catch (IOException e) {
+			_file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Verifies the magic number and the record size of a store
+	 */
+	static void checkHeader(final MappedByteBuffer header_, final File file_) throws IOException {
+		if (header_.getInt(0) != MAGIC || header_.getInt(4) != SolutionCodec.RECORD_SIZE) {
+			throw new IOException("Not a solution store: " + file_);
+		}
+	}
+
+	/**
+	 * @return Number of the records
+	 */
+	public long size() {
+		return _count;
+	}
+
+	/**
+	 * Appends the record of the solution
+	 * @return the number of the record
+	 */
+	public long append(final Solution solution_) throws IOException {
+		if (_chunk == null || _count - _chunkStart >= CHUNK_RECORDS) {
+			_chunkStart = _count;
+			_chunk = _channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + _chunkStart * SolutionCodec.RECORD_SIZE,
+					(long)CHUNK_RECORDS * SolutionCodec.RECORD_SIZE);
+		}
+
+		SolutionCodec.encode(solution_, _chunk, (int)(_count - _chunkStart) * SolutionCodec.RECORD_SIZE);
+		_header.putLong(COUNT_OFFSET, _count + 1);
+		return _count++;
+	}
+
+	/**
+	 * Appends the solution, an IOException stops the enumeration
+	 */
+	public boolean onSolution(final Solution solution_) {
+		try {
+			append(solution_);
+			return true;
+		} catch (IOException e) {
+			_error = e;
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the mapped records and the header to the storage device
+	 */
+	public void force() {
+		if (_chunk != null) {
+			_chunk.force();
+		}
+		_header.force();
+	}
+
+	/**
+	 * Forces the records to the storage device and closes the file
+	 * @throws IOException - the error of the file, including the one that stopped an enumeration
+	 */
+	public void close() throws IOException {
+		force();
+		_chunk = null;
+		_file.close();
+		if (_error != null) {
+			IOException error = _error;
+			_error = null;
+			throw error;
+		}
+	}
+}
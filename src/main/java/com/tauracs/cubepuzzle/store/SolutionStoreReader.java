@@ -0,0 +1,126 @@
+package com.tauracs.cubepuzzle.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+import com.tauracs.cubepuzzle.model.Solution;
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Random access reader of a SolutionStore.
+ *
+ * The records are read through read-only memory mapped segments, the accessors of the
+ * fields read the mapped bytes directly and only get() creates objects.
+ * The reader sees the records that were stored when it was opened.
+ * The accessors can be called from several threads.
+ *
+ */
+public final class SolutionStoreReader implements Closeable {
+
+	/**
+	 * Number of the records of a mapped segment - below the 2GB limit of a mapping
+	 */
+	final static private int SEGMENT_RECORDS = 1 << 26;
+
+	private final RandomAccessFile _file;
+
+	private final List<PuzzlePiece> _puzzlePieces;
+
+	private final MappedByteBuffer[] _segments;
+
+	private final long _count;
+
+	/**
+	 * @param file_ - the file of the store
+	 * @param puzzlePieces_ - the pieces the solutions were built from, null if get() is not used
+	 * @throws IOException - the file can not be opened or it is not a store
+	 */
+	public SolutionStoreReader(final File file_, final List<PuzzlePiece> puzzlePieces_) throws IOException {
+		_puzzlePieces = puzzlePieces_;
+		_file = new RandomAccessFile(file_, "r");
+		try {
+			FileChannel channel = _file.getChannel();
+			if (channel.size() < SolutionStore.HEADER_SIZE) {
+				throw new IOException("Not a solution store: " + file_);
+			}
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, SolutionStore.HEADER_SIZE);
+			header.order(ByteOrder.BIG_ENDIAN);
+			SolutionStore.checkHeader(header, file_);
+			_count = header.getLong(SolutionStore.COUNT_OFFSET);
+
+			_segments = new MappedByteBuffer[(int)((_count + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS)];
+			for (int i=0; i<_segments.length; i++) {
+				long first = (long)i * SEGMENT_RECORDS;
+				long records = Math.min(SEGMENT_RECORDS, _count - first);
+				_segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						SolutionStore.HEADER_SIZE + first * SolutionCodec.RECORD_SIZE, records * SolutionCodec.RECORD_SIZE);
+			}
+		}
+		catch (IOException e) {
+			_file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return Number of the records
+	 */
+	public long size() {
+		return _count;
+	}
+
+	/**
+	 * Decodes the requested record
+	 * @param index_ - number of the record
+	 * @return
+	 */
+	public Solution get(final long index_) {
+		if (_puzzlePieces == null) {
+			throw new IllegalStateException("The reader was opened without the pieces");
+		}
+		return SolutionCodec.decode(_puzzlePieces, getSegment(index_), getOffset(index_));
+	}
+
+	/**
+	 * @return The index of the piece covering the side in the requested record, SolutionCodec.NO_PIECE if the side is not covered
+	 */
+	public int getPieceIndex(final long index_, final Side side_) {
+		return SolutionCodec.getPieceIndex(getSegment(index_), getOffset(index_), side_);
+	}
+
+	/**
+	 * @return The packed state of the placement on the side in the requested record - see PlacementTable.encodeOrientation
+	 */
+	public int getOrientation(final long index_, final Side side_) {
+		return SolutionCodec.getOrientation(getSegment(index_), getOffset(index_), side_);
+	}
+
+	/**
+	 * @return The orbit size of the solution in the requested record
+	 */
+	public int getOrbitSize(final long index_) {
+		return SolutionCodec.getOrbitSize(getSegment(index_), getOffset(index_));
+	}
+
+	private MappedByteBuffer getSegment(final long index_) {
+		if (index_ < 0 || index_ >= _count) {
+			throw new IndexOutOfBoundsException("Record " + index_ + " of " + _count);
+		}
+		return _segments[(int)(index_ / SEGMENT_RECORDS)];
+	}
+
+	private static int getOffset(final long index_) {
+		return (int)(index_ % SEGMENT_RECORDS) * SolutionCodec.RECORD_SIZE;
+	}
+
+	public void close() throws IOException {
+		_file.close();
+	}
+}
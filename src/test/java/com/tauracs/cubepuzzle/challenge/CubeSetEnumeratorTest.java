@@ -0,0 +1,224 @@
+package com.tauracs.cubepuzzle.challenge;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import com.tauracs.cubepuzzle.challenge.CubeSetEnumerator;
+import com.tauracs.cubepuzzle.challenge.PieceBorder;
+import com.tauracs.cubepuzzle.model.TestBase;
+
+/**
+ * Class checking the border words and the enumeration of the cube sets (additional challenge 2)
+ */
+public class CubeSetEnumeratorTest extends TestBase {
+	
+	/**
+	 * The pool shared by the enumerations of the class
+	 */
+	final static private ForkJoinPool POOL = new ForkJoinPool(4);
+	
+	@AfterClass
+	public static void shutdownPool() {
+		POOL.shutdown();
+	}
+	
+	/**
+	 * The pieces of the blue cube in the order they can be plugged together in the plane
+	 */
+	static int[] createBlueBorders() {
+		return new int[]{
+			PieceBorder.fromLayout(new char[][]{
+					{' ',' ','*',' ',' '},
+					{' ','*','*','*',' '},
+					{'*','*','*','*','*'},
+					{' ','*','*','*',' '},
+					{' ',' ','*',' ',' '}
+			}),
+			PieceBorder.fromLayout(new char[][]{
+					{'*',' ','*',' ','*'},
+					{'*','*','*','*','*'},
+					{' ','*','*','*',' '},
+					{'*','*','*','*','*'},
+					{'*',' ','*',' ','*'}
+			}),
+			PieceBorder.fromLayout(new char[][]{
+					{' ',' ','*',' ',' '},
+					{' ','*','*','*','*'},
+					{'*','*','*','*',' '},
+					{' ','*','*','*','*'},
+					{' ',' ','*',' ',' '}
+			}),
+			PieceBorder.fromLayout(new char[][]{
+					{' ','*',' ','*',' '},
+					{'*','*','*','*',' '},
+					{' ','*','*','*','*'},
+					{'*','*','*','*',' '},
+					{'*','*',' ','*',' '}
+			}),
+			PieceBorder.fromLayout(new char[][]{
+					{' ','*',' ','*',' '},
+					{'*','*','*','*','*'},
+					{' ','*','*','*',' '},
+					{'*','*','*','*','*'},
+					{'*',' ','*',' ',' '}
+			}),
+			PieceBorder.fromLayout(new char[][]{
+					{' ','*',' ','*',' '},
+					{' ','*','*','*','*'},
+					{'*','*','*','*',' '},
+					{' ','*','*','*','*'},
+					{'*','*',' ','*','*'}
+			})
+		};
+	}
+	
+	@Test
+	public void TestCase01_Border_transformations() {
+		for (int border : createBlueBorders()) {
+			int rotated = border;
+			for (int i=0; i<4; i++) {
+				rotated = PieceBorder.rotate(rotated);
+				assertEquals(PieceBorder.canonical(border), PieceBorder.canonical(rotated));
+				assertEquals(PieceBorder.canonical(border), PieceBorder.canonical(PieceBorder.mirror(rotated)));
+			}
+			assertEquals(border, rotated);
+			assertEquals(border, PieceBorder.mirror(PieceBorder.mirror(border)));
+			assertEquals(border, PieceBorder.fromLayout(PieceBorder.toLayout(border)));
+		}
+	}
+	
+	@Test
+	public void TestCase02_Border_validity() {
+		for (int border : createBlueBorders()) {
+			assertTrue(PieceBorder.isValid(border));
+		}
+		//Flat top side
+		assertFalse(PieceBorder.isValid(0x1F));
+		//Top left corner without neighbours
+		assertFalse(PieceBorder.isValid(0x1));
+		assertTrue(PieceBorder.isValid(0x3));
+		assertTrue(PieceBorder.isValid(0));
+		//Left side wrapping around to cell 0
+		assertFalse(PieceBorder.isValid(0xF001));
+		assertFalse(PieceBorder.isValid(PieceBorder.WORD_COUNT));
+		assertFalse(PieceBorder.isValid(-1));
+	}
+	
+	@Test
+	public void TestCase03_Blue_pieces_fit_in_plane_and_cube() {
+		int[] blue = createBlueBorders();
+		assertTrue(CubeSetEnumerator.fitsInPlane(blue));
+		assertTrue(new CubeSetEnumerator(blue).isCube(blue));
+		
+		int[] swapped = blue.clone();
+		swapped[0] = blue[1];
+		swapped[1] = blue[0];
+		assertFalse(CubeSetEnumerator.fitsInPlane(swapped));
+		
+		//The bare cores leave holes in the cube
+		int[] cores = new int[6];
+		assertFalse(new CubeSetEnumerator(blue).isCube(cores));
+	}
+	
+	@Test
+	public void TestCase04_Enumeration_of_the_blue_pool() {
+		CubeSetEnumerator enumerator = new CubeSetEnumerator(createBlueBorders(), POOL);
+		long count = enumerator.enumerate();
+		
+		//The blue cube and 3 other sets made of the blue pieces
+		assertEquals(4, count);
+		assertEquals(count, enumerator.getCubeSetCount());
+		assertTrue(enumerator.getCheckCount() >= count);
+		assertTrue(enumerator.getLayoutCount() >= enumerator.getCheckCount());
+		assertEquals(enumerator.getTaskCount(), enumerator.getCompletedTaskCount());
+		
+		assertEquals(count, enumerator.enumerate());
+	}
+	
+	@Test
+	public void TestCase05_Full_pool() {
+		int[] pool = CubeSetEnumerator.createFullPool();
+		assertEquals(4239, pool.length);
+		for (int word : pool) {
+			assertEquals(word, PieceBorder.canonical(word));
+		}
+	}
+	
+	/**
+	 * The rules checked cell by cell
+	 */
+	private static boolean isValidByCells(final int border_) {
+		for (int side=0; side<4; side++) {
+			int corner = 4 * side;
+			boolean flat = true;
+			for (int cell=corner; cell<=corner+4; cell++) {
+				flat &= PieceBorder.isSet(border_, cell);
+			}
+			if (flat || PieceBorder.isSet(border_, corner) && !PieceBorder.isSet(border_, corner - 1) && !PieceBorder.isSet(border_, corner + 1)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Test
+	public void TestCase06_Batch_validation_of_all_the_words() {
+		int[] words = new int[PieceBorder.WORD_COUNT + 2];
+		int expected = 0;
+		for (int word=0; word<PieceBorder.WORD_COUNT; word++) {
+			words[word + 1] = word;
+			assertEquals(isValidByCells(word), PieceBorder.isValid(word));
+			expected += isValidByCells(word) ? 1 : 0;
+		}
+		words[0] = -1;
+		words[words.length - 1] = PieceBorder.WORD_COUNT;
+		
+		int[] valid = new int[words.length];
+		int count = PieceBorder.selectValid(words, 0, words.length, valid);
+		assertEquals(expected, count);
+		for (int i=0; i<count; i++) {
+			assertTrue(PieceBorder.isValid(valid[i]));
+			assertTrue(i == 0 || valid[i - 1] < valid[i]);
+		}
+		assertEquals(0, PieceBorder.selectValid(words, words.length, 0, valid));
+	}
+	
+	/**
+	 * The blue pieces and the valid words one cell away from the blue pieces 4 and 5
+	 */
+	static int[] createToggledPool() {
+		int[] blue = createBlueBorders();
+		int[] pool = new int[blue.length + 32];
+		System.arraycopy(blue, 0, pool, 0, blue.length);
+		int size = blue.length;
+		for (int piece=4; piece<6; piece++) {
+			for (int cell=0; cell<PieceBorder.CELL_COUNT; cell++) {
+				int toggled = blue[piece] ^ (1 << cell);
+				if (PieceBorder.isValid(toggled)) {
+					pool[size++] = toggled;
+				}
+			}
+		}
+		int[] result = new int[size];
+		System.arraycopy(pool, 0, result, 0, size);
+		return result;
+	}
+	
+	@Test(timeout=60000)
+	public void TestCase07_Enumeration_of_a_larger_pool() {
+		int[] pool = createToggledPool();
+		assertEquals(35, pool.length);
+		
+		CubeSetEnumerator enumerator = new CubeSetEnumerator(pool, POOL);
+		long count = enumerator.enumerate();
+		
+		assertEquals(75, count);
+		assertEquals(count, enumerator.getCubeSetCount());
+		assertTrue(enumerator.getCheckCount() >= count);
+		assertTrue(enumerator.getLayoutCount() >= enumerator.getCheckCount());
+		assertEquals(enumerator.getTaskCount(), enumerator.getCompletedTaskCount());
+	}
+}
@@ -0,0 +1,88 @@
+package com.tauracs.cubepuzzle.cli;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.logging.Logger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.tauracs.cubepuzzle.model.PuzzleResolver;
+import com.tauracs.cubepuzzle.model.TestBase;
+import com.tauracs.cubepuzzle.model.TestFixtures;
+
+/**
+ * Class checking the batch solving of the puzzle sheets
+ */
+public class BatchSolverTest extends TestBase {
+	
+	@Rule
+	public TemporaryFolder _folder = new TemporaryFolder();
+	
+	private File writeSheet(final String name_, final int cubeCount_) throws IOException {
+		File file = new File(_folder.getRoot(), name_);
+		FileWriter writer = new FileWriter(file);
+		for (int cube=0; cube<cubeCount_; cube++) {
+			writer.write(TestFixtures.BLUE_SHEET);
+			writer.write("\n");
+		}
+		writer.close();
+		return file;
+	}
+	
+	@Test
+	public void UseCase01_Directory_of_sheets_solved_in_parallel() throws IOException {
+		File sheets = _folder.newFolder("sheets");
+		File output = new File(_folder.getRoot(), "output");
+		writeSheet("sheets/a.txt", 10);
+		writeSheet("sheets/b.txt", 3);
+		
+		BatchSolver.Report report = new BatchSolver(3, output).solve(BatchSolver.listSheets(sheets));
+		Logger.getGlobal().info(report.toString());
+		
+		assertEquals(13, report.getPuzzleCount());
+		assertEquals(13, report.getSolvedCount());
+		assertTrue(report.getThroughput() > 0);
+		assertTrue(report.getLatencyPercentile(50) <= report.getLatencyPercentile(99));
+		assertTrue(report.getLatencyPercentile(100) <= report.getElapsedNanos());
+		
+		//The solutions are written in the order of the cubes
+		PuzzleResolver resolver = new PuzzleResolver();
+		resolver.resolve(TestFixtures.createBluePuzzlePieces());
+		String content = new String(Files.readAllBytes(new File(output, "a.txt.solutions").toPath()), Charset.forName("US-ASCII"));
+		StringBuilder expected = new StringBuilder();
+		for (int cube=1; cube<=10; cube++) {
+			expected.append("Cube ").append(cube).append(":\n").append(resolver.to360TString()).append("\n");
+		}
+		assertEquals(expected.toString(), content);
+		assertTrue(new File(output, "b.txt.solutions").isFile());
+	}
+	
+	@Test(expected = IOException.class)
+	public void UseCase02_Malformed_sheet_is_reported() throws IOException {
+		File sheet = writeSheet("broken.txt", 1);
+		Files.write(sheet.toPath(), "ooo\n".getBytes("US-ASCII"), java.nio.file.StandardOpenOption.APPEND);
+		new BatchSolver(2, _folder.getRoot()).solve(BatchSolver.listSheets(sheet));
+	}
+	
+	@Test
+	public void UseCase03_Solutions_counted_in_count_mode() throws IOException {
+		File sheet = writeSheet("count.txt", 2);
+		File output = new File(_folder.getRoot(), "counts");
+		
+		BatchSolver solver = new BatchSolver(2, output);
+		solver.setCountMode(true);
+		BatchSolver.Report report = solver.solve(BatchSolver.listSheets(sheet));
+		assertEquals(2, report.getSolvedCount());
+		
+		String count = new PuzzleResolver().count(TestFixtures.createBluePuzzlePieces(), true).toString();
+		String content = new String(Files.readAllBytes(new File(output, "count.txt.solutions").toPath()), Charset.forName("US-ASCII"));
+		assertEquals("Cube 1:\n" + count + "\n\nCube 2:\n" + count + "\n\n", content);
+	}
+}
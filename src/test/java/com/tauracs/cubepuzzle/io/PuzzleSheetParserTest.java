@@ -0,0 +1,81 @@
+package com.tauracs.cubepuzzle.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+import com.tauracs.cubepuzzle.model.PuzzleResolver;
+import com.tauracs.cubepuzzle.model.TestBase;
+import com.tauracs.cubepuzzle.model.TestFixtures;
+
+/**
+ * Class checking the parsing of the puzzle sheets
+ */
+public class PuzzleSheetParserTest extends TestBase {
+	
+	@Rule
+	public TemporaryFolder _folder = new TemporaryFolder();
+	
+	@Test
+	public void UseCase01_Sheet_file_with_several_cubes() throws IOException {
+		File file = _folder.newFile("cubes.txt");
+		FileWriter writer = new FileWriter(file);
+		for (int cube=0; cube<3; cube++) {
+			writer.write(TestFixtures.BLUE_SHEET);
+			writer.write("\n  \n");
+		}
+		writer.close();
+		
+		List<PuzzlePiece> blue = TestFixtures.createBluePuzzlePieces();
+		PuzzleSheetParser parser = new PuzzleSheetParser(file.toPath());
+		List<PuzzlePiece> pieces;
+		while ((pieces = parser.next()) != null) {
+			assertEquals(PuzzleSheetParser.PIECES_PER_CUBE, pieces.size());
+			for (int i=0; i<pieces.size(); i++) {
+				assertEquals(blue.get(i).getOccupancyLow(), pieces.get(i).getOccupancyLow());
+				assertEquals(blue.get(i).getOccupancyHigh(), pieces.get(i).getOccupancyHigh());
+			}
+			assertTrue(new PuzzleResolver().resolve(pieces));
+		}
+		parser.close();
+		
+		assertEquals(3, parser.getCubeCount());
+	}
+	
+	@Test
+	public void UseCase02_Configurable_chars_and_bands() throws IOException {
+		//Three bands of three pieces - two cubes of four pieces and one left over
+		String band = TestFixtures.BLUE_SHEET.substring(0, TestFixtures.BLUE_SHEET.indexOf("\n o o") + 1).replace('o', '#').replace(' ', '.');
+		String sheet = band + band + "\n" + band;
+		PuzzleSheetParser parser = new PuzzleSheetParser(new StringReader(sheet), '#', '.', 4);
+		
+		assertEquals(4, parser.next().size());
+		assertEquals(4, parser.next().size());
+		try {
+			parser.next();
+			fail("Incomplete cube accepted");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("incomplete cube"));
+		}
+	}
+	
+	@Test
+	public void UseCase03_Misaligned_band_is_rejected() throws IOException {
+		PuzzleSheetParser parser = new PuzzleSheetParser(new StringReader(TestFixtures.BLUE_SHEET.substring(TestFixtures.BLUE_SHEET.indexOf('\n') + 1)), 'o', ' ', 6);
+		try {
+			parser.next();
+			fail("Misaligned band accepted");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("Line "));
+		}
+	}
+}
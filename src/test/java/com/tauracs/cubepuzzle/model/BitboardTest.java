@@ -0,0 +1,41 @@
+package com.tauracs.cubepuzzle.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import com.tauracs.cubepuzzle.model.Bitboard;
+import com.tauracs.cubepuzzle.model.Dimensions;
+
+/**
+ * Test class checking the surface cell indexing of the Bitboard
+ */
+public class BitboardTest extends TestBase {
+
+	@Test
+	public void UseCase01_Surface_cell_count() {
+		int side = Dimensions.CUBE_EDGE_SIZE;
+		assertEquals(side * side * side - (side-2)*(side-2)*(side-2), Bitboard.CELL_COUNT);
+		assertEquals(Bitboard.CELL_COUNT, Long.bitCount(Bitboard.FULL_LOW) + Long.bitCount(Bitboard.FULL_HIGH));
+	}
+	
+	@Test
+	public void UseCase02_Index_and_coords_are_matching() {
+		for (int index=0; index < Bitboard.CELL_COUNT; index++) {
+			assertEquals(index, Bitboard.indexOf(Bitboard.getX(index), Bitboard.getY(index), Bitboard.getZ(index)));
+		}
+	}
+	
+	@Test
+	public void UseCase03_Inner_cells_have_no_index() {
+		assertEquals(-1, Bitboard.indexOf(2, 2, 2));
+		assertFalse(Bitboard.isOnSurface(1, 2, 3));
+	}
+	
+	@Test
+	public void UseCase04_Bits_are_split_between_the_words() {
+		assertTrue(Bitboard.isSet(Bitboard.lowBit(0), Bitboard.highBit(0), 0));
+		assertTrue(Bitboard.isSet(Bitboard.lowBit(Bitboard.CELL_COUNT-1), Bitboard.highBit(Bitboard.CELL_COUNT-1), Bitboard.CELL_COUNT-1));
+		assertEquals(0L, Bitboard.lowBit(Bitboard.CELL_COUNT-1));
+		assertEquals(0L, Bitboard.highBit(0));
+	}
+}
@@ -21,43 +21,42 @@ public class BrickMovementTest extends TestBase {
 	/**
 	 * The base Brick that is moved around
 	 */
-	private final Brick _brick = new Brick(1, 1, FRONT_SIDE_Z_POSITION);
+	private final Brick _brick = Brick.valueOf(1, 1, FRONT_SIDE_Z_POSITION);
 	
 	
 	private void moveToSideAndCheckResult(Brick brick, Brick expected,
 			Side newSide) {
 		assertEquals("Side size should be 5",5, Dimensions.CUBE_EDGE_SIZE);
-		brick.moveToSideFromFront(newSide);		
-		assertEquals(expected, brick);
+		assertSame(expected, brick.moveToSideFromFront(newSide));
 	}
 	
 	@Test
 	public void UseCase0_Move_Brick_To_FRONT_side() {
-		moveToSideAndCheckResult(_brick, new Brick(1, 1, 0), Side.FRONT);
+		moveToSideAndCheckResult(_brick, Brick.valueOf(1, 1, 0), Side.FRONT);
 	}
 	
 	@Test
 	public void UseCase1_Move_Brick_To_BACK_side() {
-		moveToSideAndCheckResult(_brick, new Brick(3, 1, 4), Side.BACK);
+		moveToSideAndCheckResult(_brick, Brick.valueOf(3, 1, 4), Side.BACK);
 	}
 
 	@Test
 	public void UseCase2_Move_Brick_To_LEFT_side() {
-		moveToSideAndCheckResult(_brick, new Brick(0, 1, 3), Side.LEFT);
+		moveToSideAndCheckResult(_brick, Brick.valueOf(0, 1, 3), Side.LEFT);
 	}
 	
 	@Test
 	public void UseCase3_Move_Brick_To_RIGHT_side() {
-		moveToSideAndCheckResult(_brick, new Brick(4, 1, 1), Side.RIGHT);
+		moveToSideAndCheckResult(_brick, Brick.valueOf(4, 1, 1), Side.RIGHT);
 	}
 	
 	@Test
 	public void UseCase4_Move_Brick_To_TOP_side() {
-		moveToSideAndCheckResult(_brick, new Brick(1, 0, 3), Side.TOP);
+		moveToSideAndCheckResult(_brick, Brick.valueOf(1, 0, 3), Side.TOP);
 	}
 	
 	@Test
 	public void UseCase5_Move_Brick_To_BOTTOM_side() {
-		moveToSideAndCheckResult(_brick, new Brick(1, 4, 1), Side.BOTTOM);
+		moveToSideAndCheckResult(_brick, Brick.valueOf(1, 4, 1), Side.BOTTOM);
 	}
 }
@@ -13,7 +13,7 @@ public class BrickTest extends TestBase {
 
 	@Test
 	public void UseCase_01_Brick_creation() {
-		Brick b = new Brick(0, 0, 0);
+		Brick b = Brick.valueOf(0, 0, 0);
 		assertNotNull(b);
 	}
 	
@@ -21,7 +21,7 @@ public class BrickTest extends TestBase {
 	public void UseCase_02_Brick_creation_fails_when_wrong_coords_passed() {
 		
 		try{
-			new Brick(-1, 0, 0);
+			Brick.valueOf(-1, 0, 0);
 			fail("No exception was thrown");		
 		}
 		catch(Exception e) {
@@ -32,8 +32,8 @@ public class BrickTest extends TestBase {
 	@Test
 	public void UseCase_03_Brick_equality() {
 		
-		Brick brick = new Brick(1, 0, 0);
-		Brick b2 = new Brick(1,0,0);
+		Brick brick = Brick.valueOf(1, 0, 0);
+		Brick b2 = Brick.valueOf(1,0,0);
 		
 		assertEquals(brick, b2);	
 	}
@@ -41,54 +41,66 @@ public class BrickTest extends TestBase {
 	@Test
 	public void UseCase_03_Brick_rotateArondAxisZ_90() {	
 		assertEquals("Side size should be 5",5, Dimensions.CUBE_EDGE_SIZE);
-		Brick brick = new Brick(1, 1, 0);
-		brick.rotateAroundShapeAxis(CoordAxis.Z, -1);		
-		Brick expected = new Brick(3, 1, 0);		
-		assertEquals(expected, brick);			
+		Brick brick = Brick.valueOf(1, 1, 0);
+		Brick rotated = brick.rotateAroundShapeAxis(CoordAxis.Z, -1);		
+		Brick expected = Brick.valueOf(3, 1, 0);		
+		assertEquals(expected, rotated);			
 	}
 	
 	@Test
 	public void UseCase_03_Brick_rotateArondShapeAxis_Z_180() {
 		assertEquals("Side size should be 5",5, Dimensions.CUBE_EDGE_SIZE);
-		Brick brick = new Brick(1, 1, 0);
-		brick.rotateAroundShapeAxis(CoordAxis.Z, -2);		
-		Brick expected = new Brick(3, 3, 0);		
-		assertEquals(expected, brick);			
+		Brick brick = Brick.valueOf(1, 1, 0);
+		Brick rotated = brick.rotateAroundShapeAxis(CoordAxis.Z, -2);		
+		Brick expected = Brick.valueOf(3, 3, 0);		
+		assertEquals(expected, rotated);			
 	}
 	
 	@Test
 	public void UseCase_03_Brick_rotateArondShapeAxis_Z_270() {
 		assertEquals("Side size should be 5",5, Dimensions.CUBE_EDGE_SIZE);
-		Brick brick = new Brick(1, 1, 0);
-		brick.rotateAroundShapeAxis(CoordAxis.Z, -3);		
-		Brick expected = new Brick(1, 3, 0);		
-		assertEquals(expected, brick);			
+		Brick brick = Brick.valueOf(1, 1, 0);
+		Brick rotated = brick.rotateAroundShapeAxis(CoordAxis.Z, -3);		
+		Brick expected = Brick.valueOf(1, 3, 0);		
+		assertEquals(expected, rotated);			
 	}
 	
 	@Test
 	public void UseCase_03_Brick_rotateArondAxisX() {
-		Brick brick = new Brick(1, 1, 0);
-		Brick clone = brick.clone();
-		brick.rotateAroundShapeAxis(CoordAxis.X, 4);		
-		assertEquals(clone, brick);		
-		brick.rotateAroundShapeAxis(CoordAxis.X, -4);					
+		Brick brick = Brick.valueOf(1, 1, 0);
+		assertSame(brick, brick.rotateAroundShapeAxis(CoordAxis.X, 4));
+		assertSame(brick, brick.rotateAroundShapeAxis(CoordAxis.X, -4));
+		assertSame(brick, brick.rotateAroundShapeAxis(CoordAxis.X, 1).rotateAroundShapeAxis(CoordAxis.X, -1));
 	}
 	
 	@Test
 	public void UseCase_03_Brick_rotateArondAxisY() {
-		Brick brick = new Brick(1, 1, 0);
-		Brick clone = brick.clone();
-		brick.rotateAroundShapeAxis(CoordAxis.Y, 4);		
-		assertEquals(clone, brick);		
-		brick.rotateAroundShapeAxis(CoordAxis.Y, -4);					
+		Brick brick = Brick.valueOf(1, 1, 0);
+		assertSame(brick, brick.rotateAroundShapeAxis(CoordAxis.Y, 4));
+		assertSame(brick, brick.rotateAroundShapeAxis(CoordAxis.Y, -4));
+		assertSame(brick, brick.rotateAroundShapeAxis(CoordAxis.Y, 1).rotateAroundShapeAxis(CoordAxis.Y, -1));
 	}
 	
 	@Test
 	public void UseCase_03_Brick_rotateArondAxisZ() {
-		Brick brick = new Brick(1, 1, 0);
-		Brick clone = brick.clone();
-		brick.rotateAroundShapeAxis(CoordAxis.Z, 4);		
-		assertEquals(clone, brick);		
-		brick.rotateAroundShapeAxis(CoordAxis.Z, -4);					
+		Brick brick = Brick.valueOf(1, 1, 0);
+		assertSame(brick, brick.rotateAroundShapeAxis(CoordAxis.Z, 4));
+		assertSame(brick, brick.rotateAroundShapeAxis(CoordAxis.Z, -4));
+		assertSame(brick, brick.rotateAroundShapeAxis(CoordAxis.Z, 1).rotateAroundShapeAxis(CoordAxis.Z, -1));
+	}
+	
+	@Test
+	public void UseCase_04_Bricks_are_interned_by_packed_index() {
+		for (int z=0; z<Dimensions.CUBE_EDGE_SIZE; z++) {
+			for (int y=0; y<Dimensions.CUBE_EDGE_SIZE; y++) {
+				for (int x=0; x<Dimensions.CUBE_EDGE_SIZE; x++) {
+					Brick brick = Brick.valueOf(x, y, z);
+					assertSame(brick, Brick.valueOf(x, y, z));
+					assertSame(brick, Brick.valueOf(brick.getIndex()));
+					assertEquals(brick.getIndex(), brick.hashCode());
+				}
+			}
+		}
+		assertFalse(Brick.valueOf(1, 0, 0).equals(Brick.valueOf(0, 1, 0)));
 	}
 }
@@ -0,0 +1,56 @@
+package com.tauracs.cubepuzzle.model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import com.tauracs.cubepuzzle.model.enums.*;
+
+/**
+ * Test class that checks the precomputed transforms of the CellPermutation class
+ */
+public class CellPermutationTest extends TestBase {
+
+	@Test
+	public void UseCase01_Four_quarter_turns_are_the_identity() {
+		for (CoordAxis axis : CoordAxis.values()) {
+			CellPermutation turn = CellPermutation.rotation(axis, 1);
+			CellPermutation composed = turn.then(turn).then(turn).then(turn);
+			for (int i=0; i<Brick.COUNT; i++) {
+				assertEquals(i, composed.getTarget(i));
+			}
+			assertSame(CellPermutation.rotation(axis, 3), CellPermutation.rotation(axis, -1));
+		}
+	}
+	
+	@Test
+	public void UseCase02_Side_moves_match_the_Brick_rotations() {
+		for (Side side : Side.values()) {
+			for (int y=0; y<Dimensions.CUBE_EDGE_SIZE; y++) {
+				for (int x=0; x<Dimensions.CUBE_EDGE_SIZE; x++) {
+					Brick brick = Brick.valueOf(x, y, 0);
+					Brick moved = Brick.valueOf(CellPermutation.sideMove(side).getTarget(brick.getIndex()));
+					assertSame(brick.moveToSideFromFront(side), moved);
+					assertEquals(brick.getIndex(), CellPermutation.normalization(side).getTarget(moved.getIndex()));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void UseCase03_Composed_placement_matches_the_steps() {
+		PuzzlePiece piece = new PuzzlePiece(PuzzleResolverTest.createBluePuzzlePieces().get(0)._sourceLayout);
+		for (Side side : Side.values()) {
+			for (Direction direction : Direction.values()) {
+				PuzzlePiece stepwise = (PuzzlePiece)piece.clone();
+				stepwise.rotateAroundAxis(CoordAxis.Z, direction);
+				stepwise.moveToSideFromFront(side);
+				
+				PuzzlePiece composed = (PuzzlePiece)piece.clone();
+				composed.transform(CellPermutation.placement(side, direction));
+				
+				assertEquals(stepwise.getOccupancyLow(), composed.getOccupancyLow());
+				assertEquals(stepwise.getOccupancyHigh(), composed.getOccupancyHigh());
+				assertEquals(stepwise.size(), composed.size());
+			}
+		}
+	}
+}
@@ -79,5 +79,14 @@ public class CubeTest extends TestBase {
 			assertEquals("Brick in the clone does not equals original", brick, brick_in_clone);
 		}
 	}
+	
+	@Test
+	public void UseCase04_overlapping_PuzzlePiece_is_not_extracted() {
+		Cube cube = createCubeAndExtractPuzzlePiece();
+		int size = cube.size();
+		
+		assertFalse("Overlapping piece was extracted", cube.extract(_testPuzzliePiece));
+		assertEquals("Failed extraction modified the cube", size, cube.size());
+	}
 
 }
@@ -0,0 +1,75 @@
+package com.tauracs.cubepuzzle.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import com.tauracs.cubepuzzle.model.DancingLinksResolver;
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+import com.tauracs.cubepuzzle.model.PuzzleResolver;
+import com.tauracs.cubepuzzle.model.Solution;
+import com.tauracs.cubepuzzle.model.enums.Side;
+import com.tauracs.cubepuzzle.model.interfaces.ISolutionListener;
+
+/**
+ * Class checking the Dancing Links based Puzzle Resolving
+ */
+public class DancingLinksResolverTest extends TestBase {
+	
+	private DancingLinksResolver _resolver = new DancingLinksResolver();
+	
+	@Test
+	public void TestCase01_Cube_against_one_complete_puzzle_piece() {
+		ArrayList<PuzzlePiece> blocks = new ArrayList<PuzzlePiece>();
+		blocks.add(PuzzlePieceTests.COMPLETE);
+		assertTrue("System did not resolve ", _resolver.resolve(blocks));
+	}
+	
+	@Test
+	public void TestCase02_Cube_against_BLUE_puzzle_pieces() {
+		assertTrue("System did not resolve ", _resolver.resolve(PuzzleResolverTest.createBluePuzzlePieces()));
+		assertEquals("Cube was not covered", 0, _resolver.getResultCube().size());
+		
+		HashSet<Side> sides = new HashSet<Side>();
+		for (PuzzlePiece piece : _resolver.getSolution()) {
+			sides.add(piece.getSide());
+		}
+		assertEquals("Not all the sides are covered", Side.values().length, sides.size());
+	}
+	
+	@Test
+	public void TestCase03_Cube_against_six_complete_puzzle_pieces() {
+		ArrayList<PuzzlePiece> blocks = new ArrayList<PuzzlePiece>();
+		for (int i=0; i<6; i++) {
+			blocks.add((PuzzlePiece)PuzzlePieceTests.COMPLETE.clone());
+		}
+		assertFalse("Overlapping pieces were resolved", _resolver.resolve(blocks));
+		assertNull(_resolver.getResultCube());
+	}
+	
+	@Test
+	public void TestCase04_Unique_solutions_match_the_backtracking_resolver() {
+		final AtomicLong dlxOrbits = new AtomicLong();
+		final AtomicLong backtrackingOrbits = new AtomicLong();
+		
+		long dlx = _resolver.resolveAll(PuzzleResolverTest.createBluePuzzlePieces(), new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				dlxOrbits.addAndGet(solution_.getOrbitSize());
+				return true;
+			}
+		});
+		
+		long backtracking = new PuzzleResolver().resolveAll(PuzzleResolverTest.createBluePuzzlePieces(), new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				backtrackingOrbits.addAndGet(solution_.getOrbitSize());
+				return true;
+			}
+		});
+		
+		assertEquals(backtracking, dlx);
+		assertEquals(backtrackingOrbits.get(), dlxOrbits.get());
+	}
+}
@@ -0,0 +1,90 @@
+package com.tauracs.cubepuzzle.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import com.tauracs.cubepuzzle.model.ParallelPuzzleResolver;
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+import com.tauracs.cubepuzzle.model.PuzzleResolver;
+import com.tauracs.cubepuzzle.model.Solution;
+import com.tauracs.cubepuzzle.model.interfaces.ISolutionListener;
+
+/**
+ * Class checking the Puzzle Resolving on a ForkJoinPool
+ */
+public class ParallelPuzzleResolverTest extends TestBase {
+	
+	/**
+	 * The pool shared by the tests of the class
+	 */
+	final static private ForkJoinPool POOL = new ForkJoinPool(4);
+	
+	private ParallelPuzzleResolver _resolver = new ParallelPuzzleResolver(POOL);
+	
+	@AfterClass
+	public static void shutdownPool() {
+		POOL.shutdown();
+	}
+	
+	@Test
+	public void TestCase01_Cube_against_BLUE_puzzle_pieces() {
+		assertTrue("System did not resolve ", _resolver.resolve(PuzzleResolverTest.createBluePuzzlePieces()));
+		assertEquals("Cube was not covered", 0, _resolver.getResultCube().size());
+		
+		int pieceCount = 0;
+		for (PuzzlePiece piece : _resolver.getSolution()) {
+			assertNotNull(piece);
+			pieceCount++;
+		}
+		assertEquals(6, pieceCount);
+	}
+	
+	@Test
+	public void TestCase02_Cube_against_six_complete_puzzle_pieces() {
+		ArrayList<PuzzlePiece> blocks = new ArrayList<PuzzlePiece>();
+		for (int i=0; i<6; i++) {
+			blocks.add((PuzzlePiece)PuzzlePieceTests.COMPLETE.clone());
+		}
+		assertFalse("Overlapping pieces were resolved", _resolver.resolve(blocks));
+		assertNull(_resolver.getResultCube());
+	}
+	
+	@Test
+	public void TestCase03_Unique_solutions_match_the_sequential_resolver() {
+		final AtomicLong parallelOrbits = new AtomicLong();
+		final AtomicLong sequentialOrbits = new AtomicLong();
+		
+		long parallel = _resolver.resolveAll(PuzzleResolverTest.createBluePuzzlePieces(), new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				parallelOrbits.addAndGet(solution_.getOrbitSize());
+				return true;
+			}
+		});
+		
+		long sequential = new PuzzleResolver().resolveAll(PuzzleResolverTest.createBluePuzzlePieces(), new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				sequentialOrbits.addAndGet(solution_.getOrbitSize());
+				return true;
+			}
+		});
+		
+		assertEquals(sequential, parallel);
+		assertEquals(sequentialOrbits.get(), parallelOrbits.get());
+	}
+	
+	@Test
+	public void TestCase04_Enumeration_stopped_by_listener() {
+		long count = _resolver.resolveAll(PuzzleResolverTest.createBluePuzzlePieces(), new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				return false;
+			}
+		});
+		
+		assertEquals(1, count);
+	}
+}
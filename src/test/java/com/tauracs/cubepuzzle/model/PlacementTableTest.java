@@ -0,0 +1,137 @@
+package com.tauracs.cubepuzzle.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import com.tauracs.cubepuzzle.model.Bitboard;
+import com.tauracs.cubepuzzle.model.CubeEdge;
+import com.tauracs.cubepuzzle.model.Dimensions;
+import com.tauracs.cubepuzzle.model.PlacementTable;
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+import com.tauracs.cubepuzzle.model.enums.Direction;
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Test class checking the precomputed placements of the PuzzlePiece
+ */
+public class PlacementTableTest extends TestBase {
+	
+	private final char[][] _layout = new char[][]{
+			{' ',' ',' ',' ',' '},
+			{' ','*',' ',' ',' '},
+			{' ','*','*',' ',' '},
+			{' ',' ',' ',' ',' '},
+			{' ',' ',' ',' ',' '}
+	};
+
+	@Test
+	public void UseCase01_Table_contains_all_the_states() {
+		PuzzlePiece piece = new PuzzlePiece(_layout);
+		PlacementTable placements = piece.getPlacements();
+		
+		assertEquals(PlacementTable.PLACEMENT_COUNT, placements.size());
+		
+		int index = 0;
+		for (int flip=0; flip<2; flip++) {
+			if (flip == 1) {
+				piece.flip();
+			}
+			do {
+				assertEquals(piece.getOccupancyLow(), placements.getLow(index));
+				assertEquals(piece.getOccupancyHigh(), placements.getHigh(index));
+				assertEquals(piece.getSide(), placements.getSide(index));
+				assertEquals(piece.getDirection(), placements.getDirection(index));
+				assertEquals(flip == 1, placements.isFlipped(index));
+				index++;
+			} while(piece.nextState());
+		}
+	}
+	
+	@Test
+	public void UseCase02_applyPlacement_restores_the_state() {
+		PuzzlePiece piece = new PuzzlePiece(_layout);
+		PlacementTable placements = piece.getPlacements();
+		
+		for (int i=placements.size()-1; i>=0; i--) {
+			piece.applyPlacement(i);
+			assertEquals(placements.getLow(i), piece.getOccupancyLow());
+			assertEquals(placements.getHigh(i), piece.getOccupancyHigh());
+			assertEquals(placements.getSide(i), piece.getSide());
+			assertEquals(placements.isFlipped(i), piece.isFlipped());
+			assertEquals(3, piece.size());
+		}
+	}
+	
+	@Test
+	public void UseCase03_Orientation_encoding() {
+		byte orientation = PlacementTable.encodeOrientation(Side.BOTTOM, Direction.ROTATED_270, true);
+		assertEquals((Side.BOTTOM.ordinal() << 3) | (Direction.ROTATED_270.ordinal() << 1) | 1, orientation);
+	}
+	
+	@Test
+	public void UseCase04_Clones_share_the_table() {
+		PuzzlePiece piece = new PuzzlePiece(_layout);
+		PlacementTable placements = piece.getPlacements();
+		assertSame(placements, ((PuzzlePiece)piece.clone()).getPlacements());
+	}
+	
+	@Test
+	public void UseCase05_Edge_codes_of_the_placements() {
+		PlacementTable placements = new PuzzlePiece(_layout).getPlacements();
+		
+		for (int i=0; i<placements.size(); i++) {
+			for (int edge=0; edge<CubeEdge.COUNT; edge++) {
+				int expected = CubeEdge.hasSide(edge, placements.getSide(i)) ? CubeEdge.getCode(edge, placements.getLow(i), placements.getHigh(i)) : 0;
+				assertEquals(expected, placements.getEdgeCode(i, edge));
+			}
+		}
+	}
+	
+	@Test
+	public void UseCase06_Cube_edges() {
+		for (Side side : Side.values()) {
+			int[] edges = CubeEdge.getEdges(side);
+			assertEquals(4, edges.length);
+			
+			for (int edge : edges) {
+				Side other = CubeEdge.getOtherSide(edge, side);
+				assertTrue(side != other);
+				assertTrue(CubeEdge.hasSide(edge, other));
+				//The inner cells of the edge are on the two sides only
+				for (int i=1; i<CubeEdge.LENGTH-1; i++) {
+					int cell = CubeEdge.getCell(edge, i);
+					int boundaries = 0;
+					for (int coord : new int[]{Bitboard.getX(cell), Bitboard.getY(cell), Bitboard.getZ(cell)}) {
+						if (coord == 0 || coord == Dimensions.MAX_COORD) {
+							boundaries++;
+						}
+					}
+					assertEquals(2, boundaries);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void UseCase07_Distinct_placements_and_multiplicities() {
+		PlacementTable asymmetric = new PuzzlePiece(_layout).getPlacements();
+		assertEquals(1, asymmetric.getSymmetryCount());
+		assertEquals(PlacementTable.PLACEMENT_COUNT, asymmetric.getDistinctCount());
+		
+		for (PuzzlePiece piece : PuzzleResolverTest.createBluePuzzlePieces()) {
+			PlacementTable placements = piece.getPlacements();
+			int total = 0;
+			for (int i : placements.getDistinctPlacements()) {
+				assertTrue(placements.isDistinct(i));
+				assertEquals(placements.getSymmetryCount(), placements.getMultiplicity(i));
+				total += placements.getMultiplicity(i);
+			}
+			assertEquals(PlacementTable.PLACEMENT_COUNT, total);
+		}
+		
+		//The plus shaped piece has all the 8 symmetries of the square
+		PlacementTable plus = PuzzleResolverTest.createBluePuzzlePieces().get(0).getPlacements();
+		assertEquals(8, plus.getSymmetryCount());
+		assertEquals(6, plus.getDistinctCount());
+	}
+}
@@ -2,18 +2,49 @@ package com.tauracs.cubepuzzle.model;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import org.junit.AfterClass;
 import org.junit.Test;
 import com.tauracs.cubepuzzle.model.PuzzlePiece;
 import com.tauracs.cubepuzzle.model.PuzzleResolver;
+import com.tauracs.cubepuzzle.model.SolverStats;
+import com.tauracs.cubepuzzle.model.enums.EvictionPolicy;
+import com.tauracs.cubepuzzle.model.enums.ResolveStatus;
+import com.tauracs.cubepuzzle.model.enums.Side;
+import com.tauracs.cubepuzzle.model.interfaces.IProgressListener;
+import com.tauracs.cubepuzzle.model.interfaces.IPuzzleResolver;
+import com.tauracs.cubepuzzle.model.interfaces.ISolutionListener;
 
 /**
  * Class checking the Puzzle Resolving
  */
 public class PuzzleResolverTest extends TestBase {
 	
+	/**
+	 * The pool of the parallel resolvers shared by the tests of the class
+	 */
+	final static private ForkJoinPool POOL = new ForkJoinPool(4);
+	
 	private PuzzleResolver _resolver = new PuzzleResolver();
+	
+	@AfterClass
+	public static void shutdownPool() {
+		POOL.shutdown();
+	}
 
 	@Test
 	public void TestCase01_Cube_against_one_complete_puzzle_piece() {
@@ -33,79 +64,564 @@ public class PuzzleResolverTest extends TestBase {
 		assertTrue("System did not resolve ", result);		
 	}
 	
+	/**
+	 * Creates the pieces of the blue cube from the README
+	 */
+	static ArrayList<PuzzlePiece> createBluePuzzlePieces() {
+		return TestFixtures.createBluePuzzlePieces();
+	}
+	
 	@Test
 	public void TestCase03_Cube_against_BLUE_puzzle_pieces() {
 		
-		 PuzzlePiece block1 = new PuzzlePiece(
-					new char[][]{
-							{' ',' ','*',' ',' '},
-							{' ','*','*','*',' '},
-							{'*','*','*','*','*'},
-							{' ','*','*','*',' '},
-							{' ',' ','*',' ',' '}
-					}
-				);
-		 
-		 PuzzlePiece block2 = new PuzzlePiece(
-					new char[][]{
-							{'*',' ','*',' ','*'},
-							{'*','*','*','*','*'},
-							{' ','*','*','*',' '},
-							{'*','*','*','*','*'},
-							{'*',' ','*',' ','*'},
-					}
-				);
-		 
-		 PuzzlePiece block3 = new PuzzlePiece(
-					new char[][]{
-							{' ',' ','*',' ',' '},
-							{' ','*','*','*','*'},
-							{'*','*','*','*',' '},
-							{' ','*','*','*','*'},
-							{' ',' ','*',' ',' '},
-					}
-				);
-		 
-		 PuzzlePiece block4 = new PuzzlePiece(
-					new char[][]{
-							{' ','*',' ','*',' '},
-							{'*','*','*','*',' '},
-							{' ','*','*','*','*'},
-							{'*','*','*','*',' '},
-							{'*','*',' ','*',' '},
-					}
-				);
-		 
-		 PuzzlePiece block5 = new PuzzlePiece(
-					new char[][]{
-							{' ','*',' ','*',' '},
-							{'*','*','*','*','*'},
-							{' ','*','*','*',' '},
-							{'*','*','*','*','*'},
-							{'*',' ','*',' ',' '},
-					}
-				);
-		 
-		 PuzzlePiece block6 = new PuzzlePiece(
-					new char[][]{
-							{' ','*',' ','*',' '},
-							{' ','*','*','*','*'},
-							{'*','*','*','*',' '},
-							{' ','*','*','*','*'},
-							{'*','*',' ','*','*'},
-					}
-				);
-		
-		ArrayList<PuzzlePiece> blocks = new ArrayList<PuzzlePiece>();
-		blocks.add(block1);
-		blocks.add(block2);
-		blocks.add(block3);
-		blocks.add(block4);
-		blocks.add(block5);
-		blocks.add(block6);		
+		ArrayList<PuzzlePiece> blocks = createBluePuzzlePieces();
 		boolean result = _resolver.resolve(blocks);
 		assertTrue("System did not resolve ", result);
 		
 		Logger.getGlobal().info(String.format("\n\nSolution generated by to360String():\n\n%s",_resolver.to360TString()));
 	}
+	
+	@Test
+	public void TestCase04_Cube_against_BLUE_puzzle_pieces_in_reverse_order() {
+		
+		ArrayList<PuzzlePiece> blocks = createBluePuzzlePieces();
+		Collections.reverse(blocks);
+		
+		assertTrue("System did not resolve ", _resolver.resolve(blocks));
+		assertEquals("Cube was not covered", 0, _resolver.getResultCube().size());
+		
+		HashSet<Side> sides = new HashSet<Side>();
+		for (PuzzlePiece piece : _resolver.getSolution()) {
+			sides.add(piece.getSide());
+		}
+		assertEquals("Not all the sides are covered", Side.values().length, sides.size());
+	}
+	
+	@Test
+	public void TestCase05_Cube_against_six_complete_puzzle_pieces() {
+		ArrayList<PuzzlePiece> blocks = new ArrayList<PuzzlePiece>();
+		for (int i=0; i<6; i++) {
+			blocks.add((PuzzlePiece)PuzzlePieceTests.COMPLETE.clone());
+		}
+		assertFalse("Overlapping pieces were resolved", _resolver.resolve(blocks));
+		assertNull(_resolver.getResultCube());
+	}
+	
+	/**
+	 * Counts all the solutions without symmetry reduction - the placements covering the same bricks are counted once
+	 */
+	private static long countSolutions(final List<PuzzlePiece> pieces_, final int depth_, final long low_, final long high_) {
+		if (depth_ == pieces_.size()) {
+			return 1;
+		}
+		PlacementTable table = pieces_.get(depth_).getPlacements();
+		HashSet<String> visited = new HashSet<String>();
+		long result = 0;
+		
+		for (int i=0; i<table.size(); i++) {
+			if (!visited.add(table.getLow(i) + ":" + table.getHigh(i))) {
+				continue;
+			}
+			if ((table.getLow(i) & ~low_) == 0 && (table.getHigh(i) & ~high_) == 0) {
+				result += countSolutions(pieces_, depth_ + 1, low_ & ~table.getLow(i), high_ & ~table.getHigh(i));
+			}
+		}
+		return result;
+	}
+	
+	@Test
+	public void TestCase06_Unique_solutions_of_BLUE_puzzle_pieces() {
+		final ArrayList<PuzzlePiece> blocks = createBluePuzzlePieces();
+		final ArrayList<Solution> solutions = new ArrayList<Solution>();
+		
+		long count = _resolver.resolveAll(blocks, new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				solutions.add(solution_);
+				return true;
+			}
+		});
+		
+		assertEquals(solutions.size(), count);
+		assertTrue("No solution was found", count > 0);
+		
+		long orbitSum = 0;
+		for (Solution solution : solutions) {
+			orbitSum += solution.getOrbitSize();
+			assertEquals("Solution does not cover all the sides", Side.values().length, solution.getPieces().size());
+		}
+		
+		assertEquals("Solution classes do not cover all the solutions", 
+				countSolutions(blocks, 0, Bitboard.FULL_LOW, Bitboard.FULL_HIGH), orbitSum);
+	}
+	
+	@Test
+	public void TestCase07_Enumeration_stopped_by_listener() {
+		long count = _resolver.resolveAll(createBluePuzzlePieces(), new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				return false;
+			}
+		});
+		
+		assertEquals(1, count);
+	}
+	
+	@Test
+	public void TestCase08_Solver_stats_of_BLUE_puzzle_pieces() {
+		_resolver.getStats().setTimingEnabled(true);
+		assertTrue(_resolver.resolve(createBluePuzzlePieces()));
+		
+		SolverStats stats = _resolver.getStats();
+		assertTrue(stats.getNodeCount() > 0);
+		assertTrue(stats.getPlacementCount() >= stats.getFailedExtractionCount());
+		assertTrue(stats.getPlacementCount() - stats.getFailedExtractionCount() >= stats.getBacktrackCount());
+		assertEquals(6, stats.getMaxDepth());
+		assertEquals(7, stats.getDepthCount());
+		assertTrue(stats.getTimeAtDepth(0) > 0);
+		assertTrue(stats.getTimeAtDepth(0) <= stats.getElapsedNanos());
+		
+		long nodes = stats.getNodeCount();
+		assertTrue(_resolver.resolve(createBluePuzzlePieces()));
+		assertEquals("The counters were not reset", nodes, stats.getNodeCount());
+		
+		Logger.getGlobal().info(stats.toString());
+	}
+	
+	@Test
+	public void TestCase09_Face_search_resolves_with_the_edge_index() {
+		for (boolean reversed : new boolean[]{false, true}) {
+			ArrayList<PuzzlePiece> blocks = createBluePuzzlePieces();
+			if (reversed) {
+				Collections.reverse(blocks);
+			}
+			
+			SolverStats stats = new SolverStats();
+			stats.start(blocks.size());
+			FaceSearch search = new FaceSearch(blocks, stats);
+			assertTrue(search.findFirst());
+			assertTrue(search.getCube().isEmpty());
+			
+			//Only the placements mating with the neighbours are tried - less than the placements of one blind level
+			assertTrue(stats.getPlacementCount() < blocks.size() * PlacementTable.PLACEMENT_COUNT);
+		}
+	}
+	
+	@Test
+	public void TestCase10_Unsolvable_exact_cover_is_pruned() {
+		ArrayList<PuzzlePiece> blocks = createUnsolvablePuzzlePieces();
+		
+		assertEquals(0, countSolutions(blocks, 0, Bitboard.FULL_LOW, Bitboard.FULL_HIGH));
+		assertFalse(_resolver.resolve(blocks));
+		assertTrue(_resolver.getStats().getPrunedCount() > 0);
+		
+		assertEquals(0, _resolver.resolveAll(blocks, new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				return true;
+			}
+		}));
+		assertTrue(_resolver.getStats().getPrunedCount() > 0);
+	}
+	
+	@Test
+	public void TestCase11_Transposition_table_skips_the_failed_states() {
+		ArrayList<PuzzlePiece> blocks = createUnsolvablePuzzlePieces();
+		
+		_resolver.setTranspositionTableSize(0);
+		assertFalse(_resolver.resolve(blocks));
+		long nodes = _resolver.getStats().getNodeCount();
+		assertEquals(0, _resolver.getStats().getTranspositionHitCount());
+		
+		for (EvictionPolicy policy : EvictionPolicy.values()) {
+			for (int size : new int[]{2, PuzzleResolver.DEFAULT_TRANSPOSITION_TABLE_SIZE}) {
+				_resolver.setEvictionPolicy(policy);
+				_resolver.setTranspositionTableSize(size);
+				assertFalse(_resolver.resolve(blocks));
+				assertTrue(_resolver.getStats().getNodeCount() <= nodes);
+				
+				//The table is cleared between the calls
+				assertTrue(_resolver.resolve(createBluePuzzlePieces()));
+				assertTrue(_resolver.getResultCube().isEmpty());
+			}
+		}
+		assertFalse(_resolver.resolve(blocks));
+		assertTrue(_resolver.getStats().getTranspositionHitCount() > 0);
+		assertTrue(_resolver.getStats().getNodeCount() < nodes);
+	}
+	
+	@Test
+	public void TestCase12_Solutions_are_streamed_to_a_writer_and_a_channel() throws IOException {
+		final StringBuilder expected = new StringBuilder();
+		StringWriter writer = new StringWriter();
+		final SolutionRenderer renderer = new SolutionRenderer(writer, 'o', ' ', 1);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final SolutionRenderer channelRenderer = new SolutionRenderer(Channels.newChannel(bytes));
+		
+		long count = _resolver.resolveAll(createBluePuzzlePieces(), new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				expected.append(PuzzleResolver.to360TString(solution_.getPieces())).append('\n');
+				return renderer.onSolution(solution_) && channelRenderer.onSolution(solution_);
+			}
+		});
+		renderer.flush();
+		
+		assertEquals(count, renderer.getSolutionCount());
+		assertEquals(expected.toString(), writer.toString());
+		
+		//The channel renderer buffers all the solutions until the flush
+		assertEquals(0, bytes.size());
+		channelRenderer.flush();
+		assertEquals(expected.toString(), new String(bytes.toByteArray(), "US-ASCII"));
+	}
+	
+	@Test
+	public void TestCase13_Surplus_pieces_branch_on_the_most_constrained_cell() {
+		ArrayList<PuzzlePiece> unsolvable = createUnsolvablePuzzlePieces();
+		unsolvable.add((PuzzlePiece)unsolvable.get(0).clone());
+		ArrayList<PuzzlePiece> solvable = createBluePuzzlePieces();
+		solvable.add(2, (PuzzlePiece)unsolvable.get(0).clone());
+		
+		_resolver.setTranspositionTableSize(0);
+		for (List<PuzzlePiece> blocks : Arrays.asList(solvable, unsolvable)) {
+			assertTrue(CellSearch.isApplicable(blocks));
+			assertFalse(FaceSearch.isApplicable(blocks));
+		}
+		
+		//The cell search leaves the surplus piece out
+		assertTrue(_resolver.resolve(solvable));
+		assertTrue(_resolver.getResultCube().isEmpty());
+		
+		assertFalse(_resolver.resolve(unsolvable));
+		assertTrue(_resolver.getStats().getPrunedCount() > 0);
+		SolverStats stats = new SolverStats();
+		stats.start(unsolvable.size());
+		assertFalse(new BacktrackingSearch(unsolvable, false, stats).findFirst());
+		stats.finish();
+		assertTrue(_resolver.getStats().getNodeCount() < stats.getNodeCount());
+	}
+	
+	private static ArrayList<PuzzlePiece> createUnsolvablePuzzlePieces() {
+		ArrayList<PuzzlePiece> result = createBluePuzzlePieces();
+		result.set(0, new PuzzlePiece(
+				new char[][]{
+						{' ','*',' ',' ',' '},
+						{' ','*','*','*',' '},
+						{'*','*','*','*','*'},
+						{' ','*','*','*',' '},
+						{' ',' ','*',' ',' '}
+				}
+			));
+		return result;
+	}
+	
+	@Test
+	public void TestCase14_Asynchronous_resolve_reports_the_status() throws Exception {
+		final double[] lastFraction = new double[]{-1};
+		IProgressListener listener = new IProgressListener() {
+			public void onProgress(long nodeCount_, int depth_, double fraction_) {
+				assertTrue(nodeCount_ > 0);
+				assertTrue(fraction_ >= 0 && fraction_ <= 1);
+				lastFraction[0] = fraction_;
+			}
+		};
+		
+		ResolveResult result = _resolver.resolveAsync(createBluePuzzlePieces(), 0, 0, listener).get(10, TimeUnit.SECONDS);
+		assertEquals(ResolveStatus.SOLVED, result.getStatus());
+		assertEquals(6, result.getSolution().getPieces().size());
+		assertTrue(result.getNodeCount() > 0);
+		assertEquals(1.0, lastFraction[0], 0);
+		assertTrue(_resolver.getResultCube().isEmpty());
+		
+		result = _resolver.resolveAsync(createUnsolvablePuzzlePieces(), 0, 0, null).get(10, TimeUnit.SECONDS);
+		assertEquals(ResolveStatus.UNSOLVABLE, result.getStatus());
+		assertNull(result.getSolution());
+		assertNull(_resolver.getResultCube());
+		
+		result = _resolver.resolveAsync(createUnsolvablePuzzlePieces(), 0, 10, null).get(10, TimeUnit.SECONDS);
+		assertEquals(ResolveStatus.BUDGET_EXCEEDED, result.getStatus());
+		assertEquals(10, result.getNodeCount());
+		
+		//The deadline passes while the search waits for the executor
+		Executor lateExecutor = new Executor() {
+			public void execute(Runnable command_) {
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				command_.run();
+			}
+		};
+		result = _resolver.resolveAsync(createUnsolvablePuzzlePieces(), 1, 0, null, lateExecutor).get(10, TimeUnit.SECONDS);
+		assertEquals(ResolveStatus.TIMED_OUT, result.getStatus());
+		assertEquals(1, result.getNodeCount());
+	}
+	
+	@Test
+	public void TestCase15_Cancelled_resolve_stops_the_search() {
+		final List<Runnable> queue = new ArrayList<Runnable>();
+		Executor queueExecutor = new Executor() {
+			public void execute(Runnable command_) {
+				queue.add(command_);
+			}
+		};
+		
+		//Cancelled before the start the search does not run
+		CompletableFuture<ResolveResult> future = _resolver.resolveAsync(createBluePuzzlePieces(), 0, 0, null, queueExecutor);
+		assertTrue(future.cancel(true));
+		assertTrue(future.isCancelled());
+		_resolver.getStats().start(0);
+		queue.get(0).run();
+		assertEquals(0, _resolver.getStats().getNodeCount());
+		
+		//Cancelled during the search it stops at the next check
+		SearchControl control = new SearchControl(0, 0, null, 6);
+		SolverStats stats = new SolverStats();
+		FaceSearch search = new FaceSearch(createUnsolvablePuzzlePieces(), stats);
+		search.setControl(control);
+		control.cancel();
+		assertFalse(search.findFirst());
+		assertEquals(ResolveStatus.CANCELLED, control.getStopReason());
+		assertEquals(1, control.getNodeCount());
+		
+		try {
+			_resolver.resolveAsync(null, 0, 0, null, queueExecutor);
+			fail("A null piece list should be rejected");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals(1, queue.size());
+		}
+	}
+	
+	@Test
+	public void TestCase16_Solutions_are_counted_without_creating_them() {
+		ArrayList<PuzzlePiece> blocks = createBluePuzzlePieces();
+		long expected = countSolutions(blocks, 0, Bitboard.FULL_LOW, Bitboard.FULL_HIGH);
+		
+		SolutionCount count = _resolver.count(blocks, false);
+		assertEquals(expected, count.getSolutionCount());
+		assertFalse(count.hasClassCounts());
+		assertTrue(_resolver.getStats().getTranspositionHitCount() > 0);
+		long nodeCount = _resolver.getStats().getNodeCount();
+		
+		//The states reached along several paths are explored again without the count table
+		SolverStats stats = new SolverStats();
+		stats.start(blocks.size());
+		assertEquals(expected, new BacktrackingSearch(blocks, false, stats).count().getSolutionCount());
+		stats.finish();
+		assertTrue(nodeCount < stats.getNodeCount());
+		
+		SolutionCount classes = _resolver.count(blocks, true);
+		assertEquals(expected, classes.getSolutionCount());
+		long orbitSum = 0;
+		for (int orbitSize=1; orbitSize<=CubeSymmetry.COUNT; orbitSize++) {
+			orbitSum += orbitSize * classes.getClassCount(orbitSize);
+		}
+		assertEquals(expected, orbitSum);
+		assertEquals(_resolver.resolveAll(blocks, new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				return true;
+			}
+		}), classes.getClassCount());
+		
+		assertEquals(0, _resolver.count(createUnsolvablePuzzlePieces(), false).getSolutionCount());
+		assertEquals(0, _resolver.count(createUnsolvablePuzzlePieces(), true).getClassCount());
+		
+		//Swapping identical pieces gives an other solution in both modes
+		PuzzlePiece column = new PuzzlePiece(
+				new char[][]{
+						{' ','*','*','*',' '},
+						{' ','*','*','*',' '},
+						{' ','*','*','*',' '},
+						{' ','*','*','*',' '},
+						{' ','*','*','*',' '}
+				}
+			);
+		PuzzlePiece core = new PuzzlePiece(
+				new char[][]{
+						{' ',' ',' ',' ',' '},
+						{' ','*','*','*',' '},
+						{' ','*','*','*',' '},
+						{' ','*','*','*',' '},
+						{' ',' ',' ',' ',' '}
+				}
+			);
+		List<PuzzlePiece> twins = Arrays.asList((PuzzlePiece)PuzzlePieceTests.COMPLETE.clone(), (PuzzlePiece)PuzzlePieceTests.COMPLETE.clone(),
+				column, (PuzzlePiece)column.clone(), core, (PuzzlePiece)core.clone());
+		expected = countSolutions(twins, 0, Bitboard.FULL_LOW, Bitboard.FULL_HIGH);
+		assertEquals(48, expected);
+		assertEquals(expected, _resolver.count(twins, false).getSolutionCount());
+		classes = _resolver.count(twins, true);
+		assertEquals(expected, classes.getSolutionCount());
+		assertEquals(1, classes.getClassCount());
+		assertEquals(1, countUniqueSolutions(_resolver, twins));
+		
+		//A surplus twin can take the place of the other one
+		blocks.add((PuzzlePiece)blocks.get(2).clone());
+		expected = _resolver.count(blocks, false).getSolutionCount();
+		assertEquals(expected, _resolver.count(blocks, true).getSolutionCount());
+		assertTrue(expected >= 2 * countSolutions(createBluePuzzlePieces(), 0, Bitboard.FULL_LOW, Bitboard.FULL_HIGH));
+	}
+	
+	private static long countUniqueSolutions(final IPuzzleResolver resolver_, final List<PuzzlePiece> pieces_) {
+		return resolver_.resolveAll(pieces_, new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				return true;
+			}
+		});
+	}
+	
+	@Test
+	public void TestCase17_Surplus_piece_results_do_not_depend_on_the_order() {
+		ParallelPuzzleResolver parallel = new ParallelPuzzleResolver(POOL);
+		//An asymmetric piece is the anchor of the symmetry reduction if it comes first
+		PuzzlePiece asymmetric = new PuzzlePiece(
+				new char[][]{
+						{' ','*',' ',' ',' '},
+						{'*','*','*','*',' '},
+						{' ','*','*','*','*'},
+						{'*','*','*','*',' '},
+						{'*',' ',' ','*','*'}
+				}
+			);
+		assertEquals(PlacementTable.PLACEMENT_COUNT, asymmetric.getPlacements().getDistinctCount());
+		
+		for (PuzzlePiece surplus : Arrays.asList(PuzzlePieceTests.COMPLETE, asymmetric)) {
+			long[] expected = null;
+			
+			for (int position=0; position<=6; position+=3) {
+				ArrayList<PuzzlePiece> blocks = createBluePuzzlePieces();
+				blocks.add(position, (PuzzlePiece)surplus.clone());
+				
+				SolutionCount classes = _resolver.count(blocks, true);
+				long[] results = new long[]{
+						countUniqueSolutions(_resolver, blocks),
+						classes.getClassCount(),
+						countUniqueSolutions(parallel, blocks),
+						_resolver.count(blocks, false).getSolutionCount(),
+						classes.getSolutionCount()
+				};
+				assertTrue(parallel.resolve(blocks));
+				assertTrue(parallel.getResultCube().isEmpty());
+				
+				assertEquals(results[0], results[1]);
+				assertEquals(results[0], results[2]);
+				assertEquals(results[3], results[4]);
+				if (expected == null) {
+					expected = results;
+					//The blue solutions leave the surplus piece out
+					assertTrue(results[0] >= 3);
+					assertTrue(results[3] >= 144);
+				}
+				assertTrue(Arrays.equals(expected, results));
+			}
+		}
+	}
+	
+	@Test
+	public void TestCase18_All_the_engines_agree_on_surplus_pieces() {
+		ParallelPuzzleResolver parallel = new ParallelPuzzleResolver(POOL);
+		DancingLinksResolver dancingLinks = new DancingLinksResolver();
+		
+		ArrayList<PuzzlePiece> solvable = createBluePuzzlePieces();
+		solvable.add(3, (PuzzlePiece)PuzzlePieceTests.COMPLETE.clone());
+		ArrayList<PuzzlePiece> unsolvable = createUnsolvablePuzzlePieces();
+		unsolvable.add((PuzzlePiece)unsolvable.get(0).clone());
+		
+		for (List<PuzzlePiece> blocks : Arrays.asList(solvable, unsolvable)) {
+			assertTrue(CellSearch.isApplicable(blocks));
+			long classCount = countUniqueSolutions(_resolver, blocks);
+			long solutionCount = _resolver.count(blocks, false).getSolutionCount();
+			boolean solved = solutionCount > 0;
+			
+			assertEquals(solved, classCount > 0);
+			assertEquals(classCount, _resolver.count(blocks, true).getClassCount());
+			assertEquals(classCount, countUniqueSolutions(parallel, blocks));
+			assertEquals(classCount, countUniqueSolutions(dancingLinks, blocks));
+			
+			for (IPuzzleResolver resolver : Arrays.<IPuzzleResolver>asList(_resolver, parallel, dancingLinks)) {
+				assertEquals(solved, resolver.resolve(blocks));
+				if (solved) {
+					assertTrue(resolver.getResultCube().isEmpty());
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void TestCase19_Pieces_without_center_brick_are_compared_at_the_leaves() {
+		PuzzlePiece corner = new PuzzlePiece(
+				new char[][]{
+						{'*',' ',' ',' ',' '},
+						{' ',' ',' ',' ',' '},
+						{' ',' ',' ',' ',' '},
+						{' ',' ',' ',' ',' '},
+						{' ',' ',' ',' ',' '}
+				}
+			);
+		DancingLinksResolver dancingLinks = new DancingLinksResolver();
+		
+		//Two bricks on the corners of an edge, a side or a diagonal of the cube
+		List<PuzzlePiece> blocks = Arrays.asList(corner, (PuzzlePiece)corner.clone());
+		SolutionCount classes = _resolver.count(blocks, true);
+		assertEquals(8 * 7, classes.getSolutionCount());
+		assertEquals(3, classes.getClassCount());
+		assertEquals(2, classes.getClassCount(12));
+		assertEquals(1, classes.getClassCount(4));
+		assertEquals(3, countUniqueSolutions(_resolver, blocks));
+		assertEquals(3, countUniqueSolutions(dancingLinks, blocks));
+		
+		blocks = new ArrayList<PuzzlePiece>(createBluePuzzlePieces().subList(0, 2));
+		blocks.add(corner);
+		long expected = countSolutions(blocks, 0, Bitboard.FULL_LOW, Bitboard.FULL_HIGH);
+		assertTrue(expected > 0);
+		assertEquals(expected, _resolver.count(blocks, false).getSolutionCount());
+		classes = _resolver.count(blocks, true);
+		assertEquals(expected, classes.getSolutionCount());
+		assertEquals(classes.getClassCount(), countUniqueSolutions(_resolver, blocks));
+		assertEquals(classes.getClassCount(), countUniqueSolutions(dancingLinks, blocks));
+		assertEquals(classes.getClassCount(), countUniqueSolutions(new ParallelPuzzleResolver(POOL), blocks));
+	}
+	
+	@Test
+	public void TestCase20_Concurrent_asynchronous_resolves_run_one_at_a_time() throws Exception {
+		final CountDownLatch finishing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		IProgressListener blockingListener = new IProgressListener() {
+			public void onProgress(long nodeCount_, int depth_, double fraction_) {
+				if (fraction_ == 1.0) {
+					finishing.countDown();
+					try {
+						release.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		};
+		
+		//The second search waits until the first one has reported its end
+		CompletableFuture<ResolveResult> first = _resolver.resolveAsync(createBluePuzzlePieces(), 0, 0, blockingListener, POOL);
+		assertTrue(finishing.await(10, TimeUnit.SECONDS));
+		CompletableFuture<ResolveResult> second = _resolver.resolveAsync(createUnsolvablePuzzlePieces(), 0, 0, null, POOL);
+		Thread.sleep(100);
+		assertFalse(second.isDone());
+		
+		release.countDown();
+		assertEquals(ResolveStatus.SOLVED, first.get(10, TimeUnit.SECONDS).getStatus());
+		assertEquals(ResolveStatus.UNSOLVABLE, second.get(10, TimeUnit.SECONDS).getStatus());
+		assertNull(_resolver.getResultCube());
+		
+		//The failed states of one puzzle do not prune the search of the other one
+		List<CompletableFuture<ResolveResult>> solvable = new ArrayList<CompletableFuture<ResolveResult>>();
+		List<CompletableFuture<ResolveResult>> unsolvable = new ArrayList<CompletableFuture<ResolveResult>>();
+		for (int i=0; i<20; i++) {
+			unsolvable.add(_resolver.resolveAsync(createUnsolvablePuzzlePieces(), 0, 0, null, POOL));
+			solvable.add(_resolver.resolveAsync(createBluePuzzlePieces(), 0, 0, null, POOL));
+		}
+		for (int i=0; i<20; i++) {
+			ResolveResult result = solvable.get(i).get(10, TimeUnit.SECONDS);
+			assertEquals(ResolveStatus.SOLVED, result.getStatus());
+			assertEquals(6, result.getSolution().getPieces().size());
+			assertEquals(ResolveStatus.UNSOLVABLE, unsolvable.get(i).get(10, TimeUnit.SECONDS).getStatus());
+		}
+	}
 }
@@ -0,0 +1,154 @@
+package com.tauracs.cubepuzzle.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+import com.tauracs.cubepuzzle.model.Bitboard;
+import com.tauracs.cubepuzzle.model.Bitset;
+import com.tauracs.cubepuzzle.model.CubeGeometry;
+import com.tauracs.cubepuzzle.model.CubeSymmetry;
+import com.tauracs.cubepuzzle.model.PlacementTable;
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+import com.tauracs.cubepuzzle.model.ScalablePlacementTable;
+import com.tauracs.cubepuzzle.model.ScalablePuzzleResolver;
+import com.tauracs.cubepuzzle.model.enums.Side;
+
+/**
+ * Class checking the geometry, the placements and the resolution of cubes with configurable edge size
+ */
+public class ScalablePuzzleResolverTest extends TestBase {
+	
+	/**
+	 * Creates the layout of a piece with the bricks in the passed rectangle
+	 */
+	private static char[][] createLayout(final int edgeSize_, final int from_, final int to_, final int rowFrom_, final int rowTo_) {
+		char[][] result = new char[edgeSize_][edgeSize_];
+		for (int y=0; y<edgeSize_; y++) {
+			for (int x=0; x<edgeSize_; x++) {
+				result[y][x] = x >= from_ && x <= to_ && y >= rowFrom_ && y <= rowTo_ ? '*' : ' ';
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Creates six pieces that cover the cube: two complete sides, two sides without the left and right columns
+	 * and two sides with the inner cells only
+	 */
+	static List<char[][]> createBoxPieces(final int edgeSize_) {
+		int max = edgeSize_ - 1;
+		List<char[][]> result = new ArrayList<char[][]>();
+		result.add(createLayout(edgeSize_, 1, max - 1, 1, max - 1));
+		result.add(createLayout(edgeSize_, 0, max, 0, max));
+		result.add(createLayout(edgeSize_, 1, max - 1, 0, max));
+		result.add(createLayout(edgeSize_, 1, max - 1, 1, max - 1));
+		result.add(createLayout(edgeSize_, 0, max, 0, max));
+		result.add(createLayout(edgeSize_, 1, max - 1, 0, max));
+		return result;
+	}
+	
+	@Test
+	public void UseCase01_Geometry_of_5_matches_the_Bitboard() {
+		CubeGeometry geometry = CubeGeometry.of(5);
+		
+		assertEquals(Bitboard.CELL_COUNT, geometry.getCellCount());
+		assertEquals(2, geometry.getWordCount());
+		for (int index=0; index<geometry.getCellCount(); index++) {
+			assertEquals(Bitboard.indexOf(geometry.getX(index), geometry.getY(index), geometry.getZ(index)), index);
+			for (int symmetry=0; symmetry<CubeGeometry.SYMMETRY_COUNT; symmetry++) {
+				assertEquals(CubeSymmetry.transform(symmetry, index), geometry.transform(symmetry, index));
+			}
+		}
+	}
+	
+	@Test
+	public void UseCase02_Surface_sizes() {
+		for (int edgeSize=Dimensions.MIN_EDGE_SIZE; edgeSize<=Dimensions.MAX_EDGE_SIZE; edgeSize++) {
+			CubeGeometry geometry = CubeGeometry.of(edgeSize);
+			int cells = 6 * edgeSize * edgeSize - 12 * edgeSize + 8;
+			
+			assertEquals(cells, geometry.getCellCount());
+			assertEquals((cells + 63) / 64, geometry.getWordCount());
+			assertEquals(cells, Bitset.cardinality(geometry.createFullMask(), 0, geometry.getWordCount()));
+			assertSame(geometry, CubeGeometry.of(edgeSize));
+		}
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void UseCase03_Edge_size_out_of_range() {
+		CubeGeometry.of(Dimensions.MAX_EDGE_SIZE + 1);
+	}
+	
+	@Test
+	public void TestCase04_Placements_of_5_match_the_PlacementTable() {
+		CubeGeometry geometry = CubeGeometry.of(5);
+		
+		for (PuzzlePiece piece : PuzzleResolverTest.createBluePuzzlePieces()) {
+			PlacementTable expected = piece.getPlacements();
+			ScalablePlacementTable table = new ScalablePlacementTable(geometry, piece._sourceLayout);
+			
+			HashSet<String> expectedMasks = new HashSet<String>();
+			HashSet<String> masks = new HashSet<String>();
+			for (int i=0; i<expected.size(); i++) {
+				expectedMasks.add(String.format("%x %x %s", expected.getLow(i), expected.getHigh(i), expected.getSide(i)));
+				long[] mask = table.getMask(i);
+				masks.add(String.format("%x %x %s", mask[0], mask[1], table.getSide(i)));
+			}
+			assertEquals(expectedMasks, masks);
+		}
+	}
+	
+	@Test
+	public void TestCase05_Cubes_of_6_and_10_are_resolved() {
+		for (int edgeSize : new int[]{6, 10}) {
+			ScalablePuzzleResolver resolver = new ScalablePuzzleResolver(edgeSize);
+			List<char[][]> pieces = createBoxPieces(edgeSize);
+			
+			assertTrue("System did not resolve ", resolver.resolve(pieces));
+			assertTrue("Cube was not covered", Bitset.isEmpty(resolver.getResultCube(), 0, resolver.getGeometry().getWordCount()));
+			
+			HashSet<Side> sides = new HashSet<Side>();
+			for (int piece=0; piece<pieces.size(); piece++) {
+				sides.add(resolver.getSide(piece));
+			}
+			assertEquals(6, sides.size());
+			assertTrue(resolver.getStats().getNodeCount() > 0);
+		}
+	}
+	
+	@Test
+	public void TestCase06_Cube_of_7_against_six_complete_pieces() {
+		ScalablePuzzleResolver resolver = new ScalablePuzzleResolver(7);
+		List<char[][]> pieces = Collections.nCopies(6, createLayout(7, 0, 6, 0, 6));
+		
+		assertFalse("Overlapping pieces were resolved", resolver.resolve(pieces));
+		assertNull(resolver.getResultCube());
+	}
+	
+	@Test
+	public void TestCase07_Surplus_pieces_are_left_out_in_any_order() {
+		ScalablePuzzleResolver resolver = new ScalablePuzzleResolver(6);
+		
+		for (int position=0; position<=6; position++) {
+			List<char[][]> pieces = createBoxPieces(6);
+			pieces.add(position, createLayout(6, 0, 5, 0, 5));
+			
+			assertTrue("System did not resolve with the surplus piece at " + position, resolver.resolve(pieces));
+			assertTrue("Cube was not covered", Bitset.isEmpty(resolver.getResultCube(), 0, resolver.getGeometry().getWordCount()));
+			
+			int placed = 0;
+			for (int piece=0; piece<pieces.size(); piece++) {
+				placed += resolver.getPlacement(piece) >= 0 ? 1 : 0;
+			}
+			assertEquals(6, placed);
+		}
+		
+		//Seven complete pieces can not cover the cube without overlapping
+		assertFalse(resolver.resolve(Collections.nCopies(7, createLayout(6, 0, 5, 0, 5))));
+	}
+}
@@ -7,6 +7,7 @@ import org.junit.Test;
 import com.tauracs.cubepuzzle.model.PuzzlePiece;
 import com.tauracs.cubepuzzle.model.Brick;
 import com.tauracs.cubepuzzle.model.Cube;
+import com.tauracs.cubepuzzle.model.enums.Side;
 import com.tauracs.cubepuzzle.model.interfaces.IBrick;
 
 /**
@@ -95,4 +96,45 @@ public class ShapeTest extends TestBase {
 		
 	}
 
+	@Test
+	public void UseCase5_Face_masks_follow_the_updates() {
+		PuzzlePiece piece = (PuzzlePiece)PuzzleResolverTest.createBluePuzzlePieces().get(0).clone();
+		Cube cube = new Cube();
+		
+		do {
+			//Bulk update, rebuilt on demand
+			cube.removeAll(piece);
+			for (Side side : Side.values()) {
+				assertFaceMask(piece, side);
+				assertFaceMask(cube, side);
+			}
+			//Single brick updates
+			for (IBrick brick : piece) {
+				cube.createBrick(brick.getX(), brick.getY(), brick.getZ());
+				assertTrue(cube.remove(brick));
+			}
+			assertFaceMask(cube, piece.getSide());
+			cube.addAll(piece.getOccupancyLow(), piece.getOccupancyHigh());
+			assertEquals((1 << 25) - 1, cube.getFaceMask(piece.getSide()));
+		} while (piece.nextState());
+	}
+	
+	/**
+	 * Compares the face mask of the side with a scan of the normalized bricks
+	 */
+	private static void assertFaceMask(final Shape shape_, final Side side_) {
+		int count = 0;
+		for (IBrick brick : shape_.getBricks(side_)) {
+			count++;
+		}
+		int expected = 0;
+		for (IBrick brick : shape_) {
+			Brick normalized = Brick.valueOf(CellPermutation.normalization(side_).getTarget(((Brick)brick).getIndex()));
+			if (normalized.getZ() == 0) {
+				expected |= 1 << (normalized.getY() * 5 + normalized.getX());
+			}
+		}
+		assertEquals(expected, shape_.getFaceMask(side_));
+		assertEquals(Integer.bitCount(expected), count);
+	}
 }
@@ -0,0 +1,103 @@
+package com.tauracs.cubepuzzle.model;
+
+import java.util.ArrayList;
+
+/**
+ * Puzzle pieces and sheets shared by the tests of the packages
+ *
+ */
+public final class TestFixtures {
+	
+	/**
+	 * The blue cube as drawn in the README - some lines without the trailing spaces
+	 */
+	final static public String BLUE_SHEET =
+			"  o  o o o  o\n" +
+			" ooo ooooo oooo\n" +
+			"ooooo ooo oooo \n" +
+			" ooo ooooo oooo\n" +
+			"  o  o o o  o  \n" +
+			" o o  o o  o o\n" +
+			"oooo ooooo oooo\n" +
+			" oooo ooo oooo \n" +
+			"oooo ooooo oooo\n" +
+			"oo o o o  oo oo\n";
+	
+	private TestFixtures() {
+	}
+	
+	/**
+	 * Creates the pieces of the blue cube from the README
+	 */
+	public static ArrayList<PuzzlePiece> createBluePuzzlePieces() {
+		
+		 PuzzlePiece block1 = new PuzzlePiece(
+					new char[][]{
+							{' ',' ','*',' ',' '},
+							{' ','*','*','*',' '},
+							{'*','*','*','*','*'},
+							{' ','*','*','*',' '},
+							{' ',' ','*',' ',' '}
+					}
+				);
+		 
+		 PuzzlePiece block2 = new PuzzlePiece(
+					new char[][]{
+							{'*',' ','*',' ','*'},
+							{'*','*','*','*','*'},
+							{' ','*','*','*',' '},
+							{'*','*','*','*','*'},
+							{'*',' ','*',' ','*'},
+					}
+				);
+		 
+		 PuzzlePiece block3 = new PuzzlePiece(
+					new char[][]{
+							{' ',' ','*',' ',' '},
+							{' ','*','*','*','*'},
+							{'*','*','*','*',' '},
+							{' ','*','*','*','*'},
+							{' ',' ','*',' ',' '},
+					}
+				);
+		 
+		 PuzzlePiece block4 = new PuzzlePiece(
+					new char[][]{
+							{' ','*',' ','*',' '},
+							{'*','*','*','*',' '},
+							{' ','*','*','*','*'},
+							{'*','*','*','*',' '},
+							{'*','*',' ','*',' '},
+					}
+				);
+		 
+		 PuzzlePiece block5 = new PuzzlePiece(
+					new char[][]{
+							{' ','*',' ','*',' '},
+							{'*','*','*','*','*'},
+							{' ','*','*','*',' '},
+							{'*','*','*','*','*'},
+							{'*',' ','*',' ',' '},
+					}
+				);
+		 
+		 PuzzlePiece block6 = new PuzzlePiece(
+					new char[][]{
+							{' ','*',' ','*',' '},
+							{' ','*','*','*','*'},
+							{'*','*','*','*',' '},
+							{' ','*','*','*','*'},
+							{'*','*',' ','*','*'},
+					}
+				);
+		
+		ArrayList<PuzzlePiece> blocks = new ArrayList<PuzzlePiece>();
+		blocks.add(block1);
+		blocks.add(block2);
+		blocks.add(block3);
+		blocks.add(block4);
+		blocks.add(block5);
+		blocks.add(block6);
+		return blocks;
+	}
+}
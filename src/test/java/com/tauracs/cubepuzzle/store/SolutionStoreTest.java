@@ -0,0 +1,122 @@
+package com.tauracs.cubepuzzle.store;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.tauracs.cubepuzzle.model.PuzzlePiece;
+import com.tauracs.cubepuzzle.model.PuzzleResolver;
+import com.tauracs.cubepuzzle.model.Solution;
+import com.tauracs.cubepuzzle.model.TestBase;
+import com.tauracs.cubepuzzle.model.TestFixtures;
+import com.tauracs.cubepuzzle.model.enums.Side;
+import com.tauracs.cubepuzzle.model.interfaces.ISolutionListener;
+
+/**
+ * Class checking the binary encoding and the memory mapped store of the solutions
+ */
+public class SolutionStoreTest extends TestBase {
+	
+	@Rule
+	public TemporaryFolder _folder = new TemporaryFolder();
+	
+	/**
+	 * @return The solutions of the pieces (unique up to rotating or mirroring)
+	 */
+	private static List<Solution> enumerate(final List<PuzzlePiece> pieces_) {
+		final List<Solution> result = new ArrayList<Solution>();
+		new PuzzleResolver().resolveAll(pieces_, new ISolutionListener() {
+			public boolean onSolution(Solution solution_) {
+				result.add(solution_);
+				return true;
+			}
+		});
+		return result;
+	}
+	
+	private static void assertSameSolution(final Solution expected_, final Solution actual_) {
+		assertEquals(expected_.size(), actual_.size());
+		for (int piece=0; piece<expected_.size(); piece++) {
+			assertEquals(expected_.getPlacement(piece), actual_.getPlacement(piece));
+		}
+		assertEquals(expected_.getOrbitSize(), actual_.getOrbitSize());
+	}
+	
+	@Test
+	public void UseCase01_Solution_record_roundtrip() {
+		List<PuzzlePiece> pieces = TestFixtures.createBluePuzzlePieces();
+		ByteBuffer buffer = ByteBuffer.allocate(SolutionCodec.RECORD_SIZE + 1);
+		
+		assertEquals(12, SolutionCodec.RECORD_SIZE);
+		for (Solution solution : enumerate(pieces)) {
+			SolutionCodec.encode(solution, buffer, 1);
+			assertSameSolution(solution, SolutionCodec.decode(pieces, buffer, 1));
+			
+			for (int piece=0; piece<solution.size(); piece++) {
+				Side side = pieces.get(piece).getPlacements().getSide(solution.getPlacement(piece));
+				assertEquals(piece, SolutionCodec.getPieceIndex(buffer, 1, side));
+			}
+		}
+		
+		//Partial solution with the maximal orbit size
+		int[] placements = new int[pieces.size()];
+		for (int piece=0; piece<placements.length; piece++) {
+			placements[piece] = -1;
+		}
+		placements[2] = 5;
+		Solution partial = new Solution(pieces, placements, SolutionCodec.MAX_ORBIT_SIZE);
+		SolutionCodec.encode(partial, buffer, 0);
+		assertSameSolution(partial, SolutionCodec.decode(pieces, buffer, 0));
+	}
+	
+	@Test
+	public void UseCase02_Store_append_and_random_access() throws IOException {
+		List<PuzzlePiece> pieces = TestFixtures.createBluePuzzlePieces();
+		List<Solution> solutions = enumerate(pieces);
+		File file = new File(_folder.getRoot(), "blue.solutions");
+		
+		SolutionStore store = new SolutionStore(file);
+		long count = new PuzzleResolver().resolveAll(pieces, store);
+		assertEquals(solutions.size(), count);
+		assertEquals(count, store.size());
+		store.close();
+		
+		//Reopening continues after the last record
+		store = new SolutionStore(file);
+		assertEquals(count, store.size());
+		assertEquals(count, store.append(solutions.get(0)));
+		store.close();
+		
+		SolutionStoreReader reader = new SolutionStoreReader(file, pieces);
+		assertEquals(count + 1, reader.size());
+		for (int i=(int)count; i>=0; i--) {
+			Solution expected = solutions.get(i % (int)count);
+			assertSameSolution(expected, reader.get(i));
+			assertEquals(expected.getOrbitSize(), reader.getOrbitSize(i));
+		}
+		
+		try {
+			reader.get(count + 1);
+			fail("Reading after the last record");
+		} catch (IndexOutOfBoundsException e) {
+		}
+		reader.close();
+	}
+	
+	@Test(expected = IOException.class)
+	public void UseCase03_Invalid_store_is_rejected() throws IOException {
+		File file = _folder.newFile("invalid.solutions");
+		java.io.FileOutputStream out = new java.io.FileOutputStream(file);
+		out.write(new byte[64]);
+		out.close();
+		new SolutionStoreReader(file, null);
+	}
+}